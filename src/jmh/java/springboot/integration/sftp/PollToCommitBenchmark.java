@@ -0,0 +1,156 @@
+package springboot.integration.sftp;
+
+import org.apache.sshd.sftp.client.SftpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.integration.file.remote.RemoteFileTemplate;
+import org.springframework.integration.file.remote.session.CachingSessionFactory;
+import org.springframework.util.FileSystemUtils;
+import springboot.integration.sftp.processors.NumberDistribution;
+import springboot.integration.sftp.utils.EmbeddedSftpServer;
+import springboot.integration.sftp.utils.SftpClientUtils;
+import springboot.integration.sftp.utils.TransactionManagerOps;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure a full cycle from the upload of a batch of files to the embedded SFTP server
+ * until every file is committed or rolled back by the transaction manager.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PollToCommitBenchmark {
+
+    private static final long TIMEOUT_MILLIS = 60_000;
+
+    /**
+     * Number of files uploaded per invocation.
+     */
+    @Param({"1", "10"})
+    public int files;
+
+    /**
+     * Number of lines of each file.
+     */
+    @Param({"1000", "100000"})
+    public int lines;
+
+    /**
+     * Concurrent mode, see sftp-concurrent-enabled.
+     */
+    @Param({"false", "true"})
+    public boolean concurrent;
+
+    private EmbeddedSftpServer server;
+
+    private ConfigurableApplicationContext context;
+
+    private RemoteFileTemplate<SftpClient.DirEntry> template;
+
+    private TransactionManagerOps managerOps;
+
+    private ApplicationProperties applicationProperties;
+
+    private Path localDir;
+
+    private String content;
+
+    private final List<String> uploaded = new ArrayList<>();
+
+    private long counter;
+
+    @Setup
+    public void setup() throws IOException {
+        localDir = Files.createTempDirectory("poll-benchmark");
+        Path file = localDir.resolve("content.txt");
+        NumberDistribution.MIXED.write(file, lines, 42);
+        content = Files.readString(file, StandardCharsets.US_ASCII);
+        Files.delete(file);
+
+        server = new EmbeddedSftpServer();
+        server.setPort(2222);
+        server.setUploadDir("upload");
+        server.start();
+
+        context = new SpringApplicationBuilder(Application.class)
+                .properties("server.port=0",
+                        "sftp-local-dir=" + localDir,
+                        "sftp-poller-delay=10",
+                        "sftp-pool-size=2",
+                        "sftp-max-fetch-size=" + files,
+                        "sftp-max-messages-per-poll=" + files,
+                        "sftp-concurrent-enabled=" + concurrent,
+                        "sftp-metadata-store=memory",
+                        "sftp-log-each-line=false",
+                        "logging.level.root=warn")
+                .run();
+        applicationProperties = context.getBean(ApplicationProperties.class);
+        managerOps = context.getBean(TransactionManagerOps.class);
+        @SuppressWarnings("unchecked")
+        CachingSessionFactory<SftpClient.DirEntry> sessionFactory =
+                context.getBean("sftpSessionFactory", CachingSessionFactory.class);
+        template = new RemoteFileTemplate<>(sessionFactory);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        server.shutdown();
+        FileSystemUtils.deleteRecursively(localDir);
+    }
+
+    /**
+     * Remove the uploaded files so the remote listing does not grow with each invocation.
+     */
+    @TearDown(Level.Invocation)
+    public void deleteUploaded() {
+        for (String path : uploaded) {
+            SftpClientUtils.deleteTestFile(template, path);
+        }
+        uploaded.clear();
+    }
+
+    @Benchmark
+    public void pollToCommit() throws Exception {
+        List<String> names = new ArrayList<>(files);
+        for (int i = 0; i < files; i++) {
+            String name = "bench" + (counter++) + ".txt";
+            String path = applicationProperties.getSftpRemoteDir() + "/" + name;
+            SftpClientUtils.createTestFile(template, path, content);
+            uploaded.add(path);
+            names.add(name);
+        }
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        for (String name : names) {
+            while (managerOps.inspect(TransactionManagerOps.key("default", name)) == null) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IllegalStateException("File not committed in time: " + name);
+                }
+                Thread.sleep(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package springboot.integration.sftp;
+
+import org.apache.sshd.sftp.client.SftpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.integration.endpoint.SourcePollingChannelAdapter;
+import org.springframework.integration.file.remote.RemoteFileTemplate;
+import org.springframework.integration.file.remote.session.CachingSessionFactory;
+import org.springframework.util.FileSystemUtils;
+import springboot.integration.sftp.processors.NumberDistribution;
+import springboot.integration.sftp.utils.EmbeddedSftpServer;
+import springboot.integration.sftp.utils.SftpClientUtils;
+import springboot.integration.sftp.utils.TransactionManagerOps;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare virtual threads with platform threads from the start of the polling of many small files,
+ * uploaded beforehand with the poller stopped, until every file is committed, with concurrent
+ * downloads and processing.
+ * Both setups use the same concurrency, as pool sizes for platform threads and as
+ * concurrency limits for virtual threads. The virtual threads setup requires Java 21.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class VirtualThreadsBenchmark {
+
+    private static final long TIMEOUT_MILLIS = 120_000;
+
+    /**
+     * Number of files uploaded per invocation.
+     */
+    @Param({"200"})
+    public int files;
+
+    /**
+     * Number of lines of each file.
+     */
+    @Param({"100"})
+    public int lines;
+
+    /**
+     * Concurrent downloads and processing workers.
+     */
+    @Param({"4", "16"})
+    public int concurrency;
+
+    /**
+     * Virtual threads mode, see sftp-virtual-threads.
+     */
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    private EmbeddedSftpServer server;
+
+    private ConfigurableApplicationContext context;
+
+    private RemoteFileTemplate<SftpClient.DirEntry> template;
+
+    private TransactionManagerOps managerOps;
+
+    private ApplicationProperties applicationProperties;
+
+    private SourcePollingChannelAdapter poller;
+
+    private Path localDir;
+
+    private String content;
+
+    private final List<String> uploaded = new ArrayList<>();
+
+    private final List<String> names = new ArrayList<>();
+
+    private long counter;
+
+    @Setup
+    public void setup() throws IOException {
+        localDir = Files.createTempDirectory("virtual-benchmark");
+        Path file = localDir.resolve("content.txt");
+        NumberDistribution.MIXED.write(file, lines, 42);
+        content = Files.readString(file, StandardCharsets.US_ASCII);
+        Files.delete(file);
+
+        server = new EmbeddedSftpServer();
+        server.setPort(2222);
+        server.setUploadDir("upload");
+        server.start();
+
+        context = new SpringApplicationBuilder(Application.class)
+                .properties("server.port=0",
+                        "sftp-local-dir=" + localDir,
+                        "sftp-poller-delay=10",
+                        "sftp-pool-size=" + (concurrency + 1),
+                        "sftp-max-fetch-size=" + files,
+                        "sftp-max-messages-per-poll=" + files,
+                        "sftp-download-concurrency=" + concurrency,
+                        "sftp-concurrent-enabled=true",
+                        "sftp-worker-pool-size=" + concurrency,
+                        "sftp-worker-queue-capacity=" + files,
+                        "sftp-virtual-threads=" + virtualThreads,
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "sftp-metadata-store=memory",
+                        "sftp-log-each-line=false",
+                        "logging.level.root=warn")
+                .run();
+        applicationProperties = context.getBean(ApplicationProperties.class);
+        managerOps = context.getBean(TransactionManagerOps.class);
+        poller = context.getBean(SourcePollingChannelAdapter.class);
+        @SuppressWarnings("unchecked")
+        CachingSessionFactory<SftpClient.DirEntry> sessionFactory =
+                context.getBean("sftpSessionFactory", CachingSessionFactory.class);
+        template = new RemoteFileTemplate<>(sessionFactory);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        server.shutdown();
+        FileSystemUtils.deleteRecursively(localDir);
+    }
+
+    /**
+     * Upload the files of an invocation with the poller stopped, so the upload is not measured.
+     */
+    @Setup(Level.Invocation)
+    public void upload() throws IOException {
+        poller.stop();
+        for (int i = 0; i < files; i++) {
+            String name = "small" + (counter++) + ".txt";
+            String path = applicationProperties.getSftpRemoteDir() + "/" + name;
+            SftpClientUtils.createTestFile(template, path, content);
+            uploaded.add(path);
+            names.add(name);
+        }
+    }
+
+    /**
+     * Remove the uploaded files so the remote listing does not grow with each invocation.
+     */
+    @TearDown(Level.Invocation)
+    public void deleteUploaded() {
+        for (String path : uploaded) {
+            SftpClientUtils.deleteTestFile(template, path);
+        }
+        uploaded.clear();
+        names.clear();
+    }
+
+    @Benchmark
+    public void manySmallFiles() throws Exception {
+        poller.start();
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        for (String name : names) {
+            while (managerOps.inspect(TransactionManagerOps.key("default", name)) == null) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IllegalStateException("File not committed in time: " + name);
+                }
+                Thread.sleep(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package springboot.integration.sftp.handlers;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.FileSystemUtils;
+import springboot.integration.sftp.ApplicationHealthIndicator;
+import springboot.integration.sftp.ApplicationProperties;
+import springboot.integration.sftp.metadata.ContentDigestIndex;
+import springboot.integration.sftp.metrics.PipelineMetrics;
+import springboot.integration.sftp.pollers.Backpressure;
+import springboot.integration.sftp.processors.NumberDistribution;
+import springboot.integration.sftp.processors.ProcessorRegistry;
+import springboot.integration.sftp.processors.ProcessorStages;
+import springboot.integration.sftp.utils.TransactionManagerOps;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the handling of a local file of a given size and numbers distribution, for each parser.
+ * The handler runs inside a minimal context without any SFTP session.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReceivedFilesHandlerBenchmark {
+
+    /**
+     * Number of lines of the generated file.
+     */
+    @Param({"10000", "1000000"})
+    public int lines;
+
+    /**
+     * Numbers distribution, see {@link NumberDistribution}.
+     */
+    @Param({"small", "large"})
+    public String distribution;
+
+    /**
+     * Parser used by the handler.
+     */
+    @Param({"bytes", "lines", "parallel"})
+    public String parser;
+
+    private Path directory;
+
+    private AnnotationConfigApplicationContext context;
+
+    private ReceivedFilesHandler handler;
+
+    private Message<File> message;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("handler-benchmark");
+        Path file = directory.resolve("numbers.txt");
+        NumberDistribution.forName(distribution).write(file, lines, 42);
+        message = MessageBuilder.withPayload(file.toFile()).build();
+
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.setSftpOutcomeWindow(1000);
+        properties.setSftpPrimalityEngine("miller-rabin");
+        properties.setSftpParser(parser);
+        properties.setSftpParallelThreads(0);
+        properties.setSftpParallelRangeSize(4L * 1024 * 1024);
+        properties.setSftpLogEachLine(false);
+        properties.setSftpLocalDir(directory.toString());
+        properties.setSftpStreamingEnabled(false);
+        properties.setSftpBackpressureHighBytes(0L);
+        properties.setSftpBackpressureLowBytes(0L);
+        properties.setSftpBackpressureHighFiles(0);
+        properties.setSftpBackpressureLowFiles(0);
+        properties.setSftpBackpressureHighInFlight(0);
+        properties.setSftpBackpressureLowInFlight(0);
+        properties.setSftpHealthWindow(300000L);
+        properties.setSftpHealthErrorPercent(50);
+        properties.setSftpHealthMinFiles(1);
+        properties.setSftpHealthStallTimeout(0L);
+        properties.setSftpHealthRecentErrors(5);
+        properties.setSftpProcessorStages("prime");
+        properties.setSftpDedupEnabled(false);
+        properties.setSftpDedupCapacity(0);
+
+        context = new AnnotationConfigApplicationContext();
+        context.getBeanFactory().registerSingleton("applicationProperties", properties);
+        context.registerBean(SimpleMeterRegistry.class);
+        context.registerBean(PipelineMetrics.class);
+        context.registerBean(Backpressure.class);
+        context.register(ProcessorStages.class);
+        context.registerBean(ProcessorRegistry.class);
+        context.registerBean(ContentDigestIndex.class);
+        context.registerBean(ApplicationHealthIndicator.class);
+        context.registerBean(TransactionManagerOps.class);
+        context.registerBean(ReceivedFilesHandler.class);
+        context.refresh();
+        handler = context.getBean(ReceivedFilesHandler.class);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void handleMessage() {
+        handler.handleMessage(message);
+    }
+}
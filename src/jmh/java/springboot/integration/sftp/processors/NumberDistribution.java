@@ -0,0 +1,78 @@
+package springboot.integration.sftp.processors;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Numbers distributions used to generate benchmark input.
+ */
+public enum NumberDistribution {
+    /**
+     * Numbers below 10 000.
+     */
+    SMALL,
+    /**
+     * Odd numbers between 2^30 and 2^31.
+     */
+    LARGE,
+    /**
+     * Any non-negative int.
+     */
+    MIXED;
+
+    /**
+     * Resolve a distribution by its benchmark parameter name.
+     *
+     * @param name distribution name
+     * @return NumberDistribution
+     */
+    public static NumberDistribution forName(String name) {
+        return valueOf(name.toUpperCase().replace('-', '_'));
+    }
+
+    /**
+     * Generate numbers with a fixed seed.
+     *
+     * @param count number of values
+     * @param seed  random seed
+     * @return generated numbers
+     */
+    public int[] generate(int count, long seed) {
+        Random random = new Random(seed);
+        int[] numbers = new int[count];
+        for (int i = 0; i < count; i++) {
+            numbers[i] = next(random);
+        }
+        return numbers;
+    }
+
+    /**
+     * Write a numbers file with one number per line.
+     *
+     * @param file  target file
+     * @param lines number of lines
+     * @param seed  random seed
+     * @throws IOException in case of write errors
+     */
+    public void write(Path file, int lines, long seed) throws IOException {
+        Random random = new Random(seed);
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            for (int i = 0; i < lines; i++) {
+                writer.write(Integer.toString(next(random)));
+                writer.write('\n');
+            }
+        }
+    }
+
+    private int next(Random random) {
+        return switch (this) {
+            case SMALL -> random.nextInt(10_000);
+            case LARGE -> (1 << 30) + random.nextInt(1 << 30) | 1;
+            case MIXED -> random.nextInt(Integer.MAX_VALUE);
+        };
+    }
+}
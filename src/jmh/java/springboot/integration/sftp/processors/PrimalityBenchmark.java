@@ -0,0 +1,67 @@
+package springboot.integration.sftp.processors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare primality engines on numbers close to the top of the int range.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrimalityBenchmark {
+
+    /**
+     * Numbers distribution: large random odd numbers or large primes only.
+     */
+    @Param({"large", "large-primes"})
+    public String distribution;
+
+    private int[] numbers;
+
+    private final PrimalityEngine trialDivision = new TrialDivisionEngine();
+    private final PrimalityEngine millerRabin = new MillerRabinEngine();
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        numbers = new int[1024];
+        int i = 0;
+        while (i < numbers.length) {
+            int n = (1 << 30) + random.nextInt(1 << 30) | 1;
+            if (distribution.equals("large") || millerRabin.isPrime(n)) {
+                numbers[i++] = n;
+            }
+        }
+    }
+
+    @Benchmark
+    public void trialDivision(Blackhole blackhole) {
+        for (int n : numbers) {
+            blackhole.consume(trialDivision.isPrime(n));
+        }
+    }
+
+    @Benchmark
+    public void millerRabin(Blackhole blackhole) {
+        for (int n : numbers) {
+            blackhole.consume(millerRabin.isPrime(n));
+        }
+    }
+}
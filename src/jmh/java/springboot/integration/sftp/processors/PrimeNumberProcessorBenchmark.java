@@ -0,0 +1,61 @@
+package springboot.integration.sftp.processors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the line processor, parsing included, on the configured primality engines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrimeNumberProcessorBenchmark {
+
+    /**
+     * Numbers distribution, see {@link NumberDistribution}.
+     */
+    @Param({"small", "large", "mixed"})
+    public String distribution;
+
+    /**
+     * Primality engine name.
+     */
+    @Param({"miller-rabin", "trial-division"})
+    public String engine;
+
+    private String[] lines;
+
+    private PrimeNumberProcessor processor;
+
+    @Setup
+    public void setup() {
+        processor = new PrimeNumberProcessor(PrimalityEngine.forName(engine), false);
+        int[] numbers = NumberDistribution.forName(distribution).generate(1024, 42);
+        lines = new String[numbers.length];
+        for (int i = 0; i < numbers.length; i++) {
+            lines[i] = String.valueOf(numbers[i]);
+        }
+    }
+
+    @Benchmark
+    public void process(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(processor.process(line));
+        }
+    }
+}
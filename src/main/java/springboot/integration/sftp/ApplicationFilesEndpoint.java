@@ -0,0 +1,53 @@
+package springboot.integration.sftp;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+import springboot.integration.sftp.utils.FileOutcome;
+import springboot.integration.sftp.utils.FileOutcomeStore;
+import springboot.integration.sftp.utils.TransactionManagerOps;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read-only actuator endpoint exposing the recent file outcomes.
+ */
+@Component
+@Endpoint(id = "files")
+public class ApplicationFilesEndpoint {
+    /**
+     * Transaction manager helper holding the file outcomes.
+     */
+    @Autowired
+    private TransactionManagerOps managerOps;
+
+    /**
+     * Counters and recent file outcomes.
+     *
+     * @return files report
+     */
+    @ReadOperation
+    public Map<String, Object> files() {
+        FileOutcomeStore outcomes = managerOps.getOutcomes();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("success", outcomes.getSuccessCount());
+        report.put("error", outcomes.getErrorCount());
+        report.put("window", outcomes.getCapacity());
+        report.put("recent", outcomes.recent());
+        return report;
+    }
+
+    /**
+     * Last outcome of a file.
+     *
+     * @param name file key, e.g. numbers1.txt, or partner:numbers1.txt for a named source
+     * @return file outcome, null results in a 404 response
+     */
+    @ReadOperation
+    public FileOutcome file(@Selector String name) {
+        return managerOps.getOutcomes().get(name);
+    }
+}
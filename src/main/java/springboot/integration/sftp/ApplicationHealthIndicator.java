@@ -1,61 +1,168 @@
 package springboot.integration.sftp;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.stereotype.Component;
+import springboot.integration.sftp.pollers.Backpressure;
+import springboot.integration.sftp.utils.HealthWindow;
+
+import java.util.List;
+import java.util.function.LongSupplier;
 
 /**
  * Application Health indicator.
+ * Health is rated over a sliding window of the file outcomes instead of the last one,
+ * so a single failing file among many good ones does not flip the status.
+ * The application is down when the error percentage of the window reaches its threshold,
+ * or when no file succeeded for the stall timeout while files are waiting to be processed.
+ * The waiting files are read from the backlog measured by the backpressure, so a probe does not
+ * scan the staging directories each time.
  */
 @Component
 public class ApplicationHealthIndicator implements HealthIndicator {
     /**
-     * Initial status is success
+     * Number of buckets of the sliding window
+     */
+    private static final int WINDOW_BUCKETS = 10;
+    /**
+     * Duration of the sliding window in milliseconds
+     */
+    private final long windowMillis;
+    /**
+     * Number of error details kept
+     */
+    private final int recentErrors;
+    /**
+     * Outcomes of the sliding window
+     */
+    private volatile HealthWindow window;
+    /**
+     * Percentage of errors reporting the application down
+     */
+    private final int errorPercent;
+    /**
+     * Outcomes required before the error percentage is evaluated
+     */
+    private final int minFiles;
+    /**
+     * Time without success while a backlog exists reporting the application down
+     */
+    private final long stallTimeout;
+    /**
+     * Current time in milliseconds
+     */
+    private final LongSupplier clock;
+    /**
+     * Backlog for the stall detection, state reported while the remote polling is paused
+     */
+    private final Backpressure backpressure;
+
+    /**
+     * Constructor.
+     *
+     * @param applicationProperties health thresholds
+     * @param backpressure          backlog and remote polling state
      */
-    private boolean success = true;
+    @Autowired
+    public ApplicationHealthIndicator(ApplicationProperties applicationProperties, Backpressure backpressure) {
+        this(applicationProperties, backpressure, System::currentTimeMillis);
+    }
+
+    ApplicationHealthIndicator(ApplicationProperties applicationProperties, Backpressure backpressure,
+                               LongSupplier clock) {
+        this.windowMillis = applicationProperties.getSftpHealthWindow();
+        this.recentErrors = applicationProperties.getSftpHealthRecentErrors();
+        this.window = new HealthWindow(windowMillis, WINDOW_BUCKETS, recentErrors, clock);
+        this.errorPercent = applicationProperties.getSftpHealthErrorPercent();
+        this.minFiles = applicationProperties.getSftpHealthMinFiles();
+        this.stallTimeout = applicationProperties.getSftpHealthStallTimeout();
+        this.clock = clock;
+        this.backpressure = backpressure;
+    }
+
     /**
-     * Details message in case of errors
+     * Start a new window, discarding the recorded outcomes.
      */
-    private String details;
+    void reset() {
+        window = new HealthWindow(windowMillis, WINDOW_BUCKETS, recentErrors, clock);
+    }
 
     /**
-     * Mark health-check as healthy.
+     * Record a successful file.
      */
     public void success() {
-        this.success = true;
+        window.success();
     }
 
     /**
-     * Mark health-check as error.
+     * Record an error.
      *
      * @param details error details
      */
     public void error(final String details) {
-        this.details = details;
-        this.success = false;
+        window.error(details);
     }
 
     /**
      * Retrieve health-check status.
      *
-     * @return
+     * @return true if healthy
      */
     public boolean isSuccess() {
-        return success;
+        HealthWindow.Snapshot snapshot = window.snapshot();
+        return !isFailing(snapshot) && !isStalled();
+    }
+
+    /**
+     * Last error details, most recent first.
+     *
+     * @return error details
+     */
+    public List<String> getRecentErrors() {
+        return window.getRecentErrors();
     }
 
     /**
      * Actuator health-check logic.
+     * A paused remote polling is reported in the details without changing the status.
      *
      * @return Health report
      */
     @Override
     public Health health() {
-        if (!success) {
-            return Health.down()
-                    .withDetail("message", details).build();
+        HealthWindow.Snapshot snapshot = window.snapshot();
+        boolean failing = isFailing(snapshot);
+        boolean stalled = isStalled();
+        List<String> recentErrors = window.getRecentErrors();
+        Health.Builder health = failing || stalled ? Health.down() : Health.up();
+        if (failing && !recentErrors.isEmpty()) {
+            health.withDetail("message", recentErrors.get(0));
+        } else if (stalled) {
+            health.withDetail("message", "No successful file for "
+                    + (clock.getAsLong() - window.getLastSuccess()) + " ms while files are waiting");
+        }
+        health.withDetail("successes", snapshot.successes())
+                .withDetail("errors", snapshot.errors())
+                .withDetail("errorPercent", snapshot.errorPercent())
+                .withDetail("filesPerSecond", snapshot.filesPerSecond())
+                .withDetail("recentErrors", recentErrors);
+        if (backpressure.getPaused()) {
+            health.withDetail("backpressure", "paused")
+                    .withDetail("stagedBytes", backpressure.getStagedBytes())
+                    .withDetail("stagedFiles", backpressure.getStagedFiles())
+                    .withDetail("inFlight", backpressure.getInFlight());
         }
-        return Health.up().build();
+        return health.build();
+    }
+
+    private boolean isFailing(HealthWindow.Snapshot snapshot) {
+        return snapshot.total() >= minFiles && snapshot.errors() > 0 && snapshot.errorPercent() >= errorPercent;
+    }
+
+    private boolean isStalled() {
+        return stallTimeout > 0 && clock.getAsLong() - window.getLastSuccess() >= stallTimeout
+                && backpressure.getBacklog() > 0;
     }
 
 }
@@ -6,6 +6,9 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.validation.annotation.Validated;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Application Properties.
  */
@@ -73,6 +76,276 @@ public class ApplicationProperties {
      */
     @NotNull
     private Integer sftpMaxMessagesPerPoll;
+    /**
+     * Process received files concurrently on a bounded worker pool
+     */
+    @NotNull
+    private Boolean sftpConcurrentEnabled;
+    /**
+     * Number of worker threads processing files in concurrent mode
+     */
+    @NotNull
+    private Integer sftpWorkerPoolSize;
+    /**
+     * Number of files waiting for a free worker in concurrent mode
+     */
+    @NotNull
+    private Integer sftpWorkerQueueCapacity;
+    /**
+     * Read remote files directly as streams without staging them in the local dir
+     */
+    @NotNull
+    private Boolean sftpStreamingEnabled;
+    /**
+     * Remote accept-once metadata store type: file or memory
+     */
+    @NotNull
+    private String sftpMetadataStore;
+    /**
+     * Local file used by the file metadata store
+     */
+    @NotNull
+    private String sftpMetadataFile;
+    /**
+     * Number of recent file outcomes kept in memory
+     */
+    @NotNull
+    private Integer sftpOutcomeWindow;
+    /**
+     * Prime number check algorithm: miller-rabin or trial-division
+     */
+    @NotNull
+    private String sftpPrimalityEngine;
+    /**
+     * File parser: bytes parses numbers straight from bytes, parallel parses ranges of
+     * a local file in parallel, lines reads UTF-8 lines
+     */
+    @NotNull
+    private String sftpParser;
+    /**
+     * Number of threads used by the parallel parser, 0 for all available processors
+     */
+    @NotNull
+    private Integer sftpParallelThreads;
+    /**
+     * Size in bytes of the file ranges parsed in parallel
+     */
+    @NotNull
+    private Long sftpParallelRangeSize;
+    /**
+     * Log the result of each processed line
+     */
+    @NotNull
+    private Boolean sftpLogEachLine;
+    /**
+     * Destination of the per-file results: none, local or remote
+     */
+    @NotNull
+    private String sftpResultSink;
+    /**
+     * Local directory where results are written, or staged before upload
+     */
+    @NotNull
+    private String sftpResultsDir;
+    /**
+     * SFTP remote dir where results are uploaded by the remote result sink
+     */
+    @NotNull
+    private String sftpOutboundDir;
+    /**
+     * Adapt the poller delay to the backlog, see sftp-poller-max-delay
+     */
+    @NotNull
+    private Boolean sftpPollerAdaptive;
+    /**
+     * Maximum poller delay in ms after consecutive empty polls in adaptive mode
+     */
+    @NotNull
+    private Integer sftpPollerMaxDelay;
+    /**
+     * Number of remote files downloaded concurrently, each on its own pooled session
+     */
+    @NotNull
+    private Integer sftpDownloadConcurrency;
+    /**
+     * Number of byte ranges downloaded in parallel for large files, 1 to download in one piece
+     */
+    @NotNull
+    private Integer sftpSegmentCount;
+    /**
+     * Minimum size in bytes of a file downloaded in byte ranges
+     */
+    @NotNull
+    private Long sftpSegmentThreshold;
+    /**
+     * Evaluate only the remote files above a persisted modification time and name watermark
+     */
+    @NotNull
+    private Boolean sftpListingWatermark;
+    /**
+     * Minimum distance in ms between the listing watermark and the newest remote file
+     */
+    @NotNull
+    private Integer sftpListingWatermarkLag;
+    /**
+     * Date partition subdirectories of the remote dir, e.g. yyyy-MM-dd, empty for none
+     */
+    @NotNull
+    private String sftpRemotePartitionPattern;
+    /**
+     * Number of past date partitions listed when there is no listing watermark
+     */
+    @NotNull
+    private Integer sftpRemotePartitionLookbackDays;
+    /**
+     * Additional named SFTP sources, e.g. sftp-sources.partner1.host, each polled independently
+     */
+    private Map<String, SftpSourceProperties> sftpSources = new LinkedHashMap<>();
+    /**
+     * Directory shared by the instances of a cluster where remote files are claimed, disabled if empty
+     */
+    @NotNull
+    private String sftpClusterClaimDir;
+    /**
+     * Id of this instance in the cluster, defaults to the host name so it is stable across restarts;
+     * set it when several instances run on the same host
+     */
+    @NotNull
+    private String sftpClusterInstanceId;
+    /**
+     * Keep partial downloads and resume them from the local offset when the remote file is unchanged
+     */
+    @NotNull
+    private Boolean sftpDownloadResumable;
+    /**
+     * Staged bytes in the local dirs above which remote polling pauses, 0 to disable
+     */
+    @NotNull
+    private Long sftpBackpressureHighBytes;
+    /**
+     * Staged bytes in the local dirs below which remote polling resumes
+     */
+    @NotNull
+    private Long sftpBackpressureLowBytes;
+    /**
+     * Staged files in the local dirs above which remote polling pauses, 0 to disable
+     */
+    @NotNull
+    private Integer sftpBackpressureHighFiles;
+    /**
+     * Staged files in the local dirs below which remote polling resumes
+     */
+    @NotNull
+    private Integer sftpBackpressureLowFiles;
+    /**
+     * Files received and not yet processed above which remote polling pauses, 0 to disable
+     */
+    @NotNull
+    private Integer sftpBackpressureHighInFlight;
+    /**
+     * Files received and not yet processed below which remote polling resumes
+     */
+    @NotNull
+    private Integer sftpBackpressureLowInFlight;
+    /**
+     * Sliding window of the health model in milliseconds
+     */
+    @NotNull
+    private Long sftpHealthWindow;
+    /**
+     * Percentage of errors in the window reporting the application down
+     */
+    @NotNull
+    private Integer sftpHealthErrorPercent;
+    /**
+     * Outcomes required in the window before the error percentage is evaluated
+     */
+    @NotNull
+    private Integer sftpHealthMinFiles;
+    /**
+     * Time without a successful file while a backlog exists reporting the application down, disabled if not positive
+     */
+    @NotNull
+    private Long sftpHealthStallTimeout;
+    /**
+     * Number of last error details reported by the health check
+     */
+    @NotNull
+    private Integer sftpHealthRecentErrors;
+    /**
+     * Comma separated stages of the pipeline processing the files no other pipeline matches
+     */
+    @NotNull
+    private String sftpProcessorStages;
+    /**
+     * Additional named processor pipelines, e.g. sftp-pipelines.odd-primes.stages, selected by file name or source
+     */
+    private Map<String, ProcessorPipelineProperties> sftpPipelines = new LinkedHashMap<>();
+    /**
+     * Skip the processing of staged files whose content was already processed under another name
+     */
+    @NotNull
+    private Boolean sftpDedupEnabled;
+    /**
+     * Append-only log file of the processed content digests
+     */
+    @NotNull
+    private String sftpDedupFile;
+    /**
+     * Maximum number of content digests kept, the oldest are evicted first
+     */
+    @NotNull
+    private Integer sftpDedupCapacity;
+    /**
+     * Run the pollers, downloads and workers on virtual threads bounded by their concurrency, requires Java 21
+     */
+    @NotNull
+    private Boolean sftpVirtualThreads;
+    /**
+     * Commit the files of a poll together once the poll ends, ignored in concurrent mode
+     */
+    @NotNull
+    private Boolean sftpTransactionBatchEnabled;
+    /**
+     * Handling of the other files of a batch when one fails: file rolls back the failed file, batch the whole batch
+     */
+    @NotNull
+    private String sftpTransactionBatchFailurePolicy;
+    /**
+     * Action on the processed remote files: none, move or delete
+     */
+    @NotNull
+    private String sftpRemoteArchiveAction;
+    /**
+     * Remote archive dir of the moved files, suffixed by the source name for the other sources
+     */
+    @NotNull
+    private String sftpRemoteArchiveDir;
+    /**
+     * Date partition subdirectories of the remote archive dir, e.g. yyyy/MM/dd, empty for none
+     */
+    @NotNull
+    private String sftpRemoteArchivePartitionPattern;
+    /**
+     * User of the authenticated actuator endpoints (files, metrics, prometheus), empty to deny them
+     */
+    @NotNull
+    private String sftpActuatorUsername;
+    /**
+     * Password of the actuator user with its encoding prefix, e.g. {bcrypt}...
+     */
+    @NotNull
+    private String sftpActuatorPassword;
+    /**
+     * Time in ms after which the claim of a file still in processing can be taken over by another instance, must exceed the processing time of a file
+     */
+    @NotNull
+    private Long sftpClusterClaimLease;
+    /**
+     * Time in ms the claims of processed files are kept when they are not archived, must exceed the time processed files stay in the remote dir
+     */
+    @NotNull
+    private Long sftpClusterClaimRetention;
 
     public @NotNull String getSftpUsername() {
         return sftpUsername;
@@ -169,4 +442,436 @@ public class ApplicationProperties {
     public void setSftpLocalDir(@NotNull String sftpLocalDir) {
         this.sftpLocalDir = sftpLocalDir;
     }
+
+    public @NotNull Boolean getSftpConcurrentEnabled() {
+        return sftpConcurrentEnabled;
+    }
+
+    public void setSftpConcurrentEnabled(@NotNull Boolean sftpConcurrentEnabled) {
+        this.sftpConcurrentEnabled = sftpConcurrentEnabled;
+    }
+
+    public @NotNull Integer getSftpWorkerPoolSize() {
+        return sftpWorkerPoolSize;
+    }
+
+    public void setSftpWorkerPoolSize(@NotNull Integer sftpWorkerPoolSize) {
+        this.sftpWorkerPoolSize = sftpWorkerPoolSize;
+    }
+
+    public @NotNull Integer getSftpWorkerQueueCapacity() {
+        return sftpWorkerQueueCapacity;
+    }
+
+    public void setSftpWorkerQueueCapacity(@NotNull Integer sftpWorkerQueueCapacity) {
+        this.sftpWorkerQueueCapacity = sftpWorkerQueueCapacity;
+    }
+
+    public @NotNull Boolean getSftpStreamingEnabled() {
+        return sftpStreamingEnabled;
+    }
+
+    public void setSftpStreamingEnabled(@NotNull Boolean sftpStreamingEnabled) {
+        this.sftpStreamingEnabled = sftpStreamingEnabled;
+    }
+
+    public @NotNull String getSftpMetadataStore() {
+        return sftpMetadataStore;
+    }
+
+    public void setSftpMetadataStore(@NotNull String sftpMetadataStore) {
+        this.sftpMetadataStore = sftpMetadataStore;
+    }
+
+    public @NotNull String getSftpMetadataFile() {
+        return sftpMetadataFile;
+    }
+
+    public void setSftpMetadataFile(@NotNull String sftpMetadataFile) {
+        this.sftpMetadataFile = sftpMetadataFile;
+    }
+
+    public @NotNull Integer getSftpOutcomeWindow() {
+        return sftpOutcomeWindow;
+    }
+
+    public void setSftpOutcomeWindow(@NotNull Integer sftpOutcomeWindow) {
+        this.sftpOutcomeWindow = sftpOutcomeWindow;
+    }
+
+    public @NotNull String getSftpPrimalityEngine() {
+        return sftpPrimalityEngine;
+    }
+
+    public void setSftpPrimalityEngine(@NotNull String sftpPrimalityEngine) {
+        this.sftpPrimalityEngine = sftpPrimalityEngine;
+    }
+
+    public @NotNull String getSftpParser() {
+        return sftpParser;
+    }
+
+    public void setSftpParser(@NotNull String sftpParser) {
+        this.sftpParser = sftpParser;
+    }
+
+    public @NotNull Integer getSftpParallelThreads() {
+        return sftpParallelThreads;
+    }
+
+    public void setSftpParallelThreads(@NotNull Integer sftpParallelThreads) {
+        this.sftpParallelThreads = sftpParallelThreads;
+    }
+
+    public @NotNull Long getSftpParallelRangeSize() {
+        return sftpParallelRangeSize;
+    }
+
+    public void setSftpParallelRangeSize(@NotNull Long sftpParallelRangeSize) {
+        this.sftpParallelRangeSize = sftpParallelRangeSize;
+    }
+
+    public @NotNull Boolean getSftpLogEachLine() {
+        return sftpLogEachLine;
+    }
+
+    public void setSftpLogEachLine(@NotNull Boolean sftpLogEachLine) {
+        this.sftpLogEachLine = sftpLogEachLine;
+    }
+
+    public @NotNull String getSftpResultSink() {
+        return sftpResultSink;
+    }
+
+    public void setSftpResultSink(@NotNull String sftpResultSink) {
+        this.sftpResultSink = sftpResultSink;
+    }
+
+    public @NotNull String getSftpResultsDir() {
+        return sftpResultsDir;
+    }
+
+    public void setSftpResultsDir(@NotNull String sftpResultsDir) {
+        this.sftpResultsDir = sftpResultsDir;
+    }
+
+    public @NotNull String getSftpOutboundDir() {
+        return sftpOutboundDir;
+    }
+
+    public void setSftpOutboundDir(@NotNull String sftpOutboundDir) {
+        this.sftpOutboundDir = sftpOutboundDir;
+    }
+
+    public @NotNull Boolean getSftpPollerAdaptive() {
+        return sftpPollerAdaptive;
+    }
+
+    public void setSftpPollerAdaptive(@NotNull Boolean sftpPollerAdaptive) {
+        this.sftpPollerAdaptive = sftpPollerAdaptive;
+    }
+
+    public @NotNull Integer getSftpPollerMaxDelay() {
+        return sftpPollerMaxDelay;
+    }
+
+    public void setSftpPollerMaxDelay(@NotNull Integer sftpPollerMaxDelay) {
+        this.sftpPollerMaxDelay = sftpPollerMaxDelay;
+    }
+
+    public @NotNull Integer getSftpDownloadConcurrency() {
+        return sftpDownloadConcurrency;
+    }
+
+    public void setSftpDownloadConcurrency(@NotNull Integer sftpDownloadConcurrency) {
+        this.sftpDownloadConcurrency = sftpDownloadConcurrency;
+    }
+
+    public @NotNull Integer getSftpSegmentCount() {
+        return sftpSegmentCount;
+    }
+
+    public void setSftpSegmentCount(@NotNull Integer sftpSegmentCount) {
+        this.sftpSegmentCount = sftpSegmentCount;
+    }
+
+    public @NotNull Long getSftpSegmentThreshold() {
+        return sftpSegmentThreshold;
+    }
+
+    public void setSftpSegmentThreshold(@NotNull Long sftpSegmentThreshold) {
+        this.sftpSegmentThreshold = sftpSegmentThreshold;
+    }
+
+    public @NotNull Boolean getSftpListingWatermark() {
+        return sftpListingWatermark;
+    }
+
+    public void setSftpListingWatermark(@NotNull Boolean sftpListingWatermark) {
+        this.sftpListingWatermark = sftpListingWatermark;
+    }
+
+    public @NotNull Integer getSftpListingWatermarkLag() {
+        return sftpListingWatermarkLag;
+    }
+
+    public void setSftpListingWatermarkLag(@NotNull Integer sftpListingWatermarkLag) {
+        this.sftpListingWatermarkLag = sftpListingWatermarkLag;
+    }
+
+    public @NotNull String getSftpRemotePartitionPattern() {
+        return sftpRemotePartitionPattern;
+    }
+
+    public void setSftpRemotePartitionPattern(@NotNull String sftpRemotePartitionPattern) {
+        this.sftpRemotePartitionPattern = sftpRemotePartitionPattern;
+    }
+
+    public @NotNull Integer getSftpRemotePartitionLookbackDays() {
+        return sftpRemotePartitionLookbackDays;
+    }
+
+    public void setSftpRemotePartitionLookbackDays(@NotNull Integer sftpRemotePartitionLookbackDays) {
+        this.sftpRemotePartitionLookbackDays = sftpRemotePartitionLookbackDays;
+    }
+
+    public Map<String, SftpSourceProperties> getSftpSources() {
+        return sftpSources;
+    }
+
+    public void setSftpSources(Map<String, SftpSourceProperties> sftpSources) {
+        this.sftpSources = sftpSources;
+    }
+
+    public @NotNull String getSftpClusterClaimDir() {
+        return sftpClusterClaimDir;
+    }
+
+    public void setSftpClusterClaimDir(@NotNull String sftpClusterClaimDir) {
+        this.sftpClusterClaimDir = sftpClusterClaimDir;
+    }
+
+    public @NotNull String getSftpClusterInstanceId() {
+        return sftpClusterInstanceId;
+    }
+
+    public void setSftpClusterInstanceId(@NotNull String sftpClusterInstanceId) {
+        this.sftpClusterInstanceId = sftpClusterInstanceId;
+    }
+
+    public @NotNull Boolean getSftpDownloadResumable() {
+        return sftpDownloadResumable;
+    }
+
+    public void setSftpDownloadResumable(@NotNull Boolean sftpDownloadResumable) {
+        this.sftpDownloadResumable = sftpDownloadResumable;
+    }
+
+    public @NotNull Long getSftpBackpressureHighBytes() {
+        return sftpBackpressureHighBytes;
+    }
+
+    public void setSftpBackpressureHighBytes(@NotNull Long sftpBackpressureHighBytes) {
+        this.sftpBackpressureHighBytes = sftpBackpressureHighBytes;
+    }
+
+    public @NotNull Long getSftpBackpressureLowBytes() {
+        return sftpBackpressureLowBytes;
+    }
+
+    public void setSftpBackpressureLowBytes(@NotNull Long sftpBackpressureLowBytes) {
+        this.sftpBackpressureLowBytes = sftpBackpressureLowBytes;
+    }
+
+    public @NotNull Integer getSftpBackpressureHighFiles() {
+        return sftpBackpressureHighFiles;
+    }
+
+    public void setSftpBackpressureHighFiles(@NotNull Integer sftpBackpressureHighFiles) {
+        this.sftpBackpressureHighFiles = sftpBackpressureHighFiles;
+    }
+
+    public @NotNull Integer getSftpBackpressureLowFiles() {
+        return sftpBackpressureLowFiles;
+    }
+
+    public void setSftpBackpressureLowFiles(@NotNull Integer sftpBackpressureLowFiles) {
+        this.sftpBackpressureLowFiles = sftpBackpressureLowFiles;
+    }
+
+    public @NotNull Integer getSftpBackpressureHighInFlight() {
+        return sftpBackpressureHighInFlight;
+    }
+
+    public void setSftpBackpressureHighInFlight(@NotNull Integer sftpBackpressureHighInFlight) {
+        this.sftpBackpressureHighInFlight = sftpBackpressureHighInFlight;
+    }
+
+    public @NotNull Integer getSftpBackpressureLowInFlight() {
+        return sftpBackpressureLowInFlight;
+    }
+
+    public void setSftpBackpressureLowInFlight(@NotNull Integer sftpBackpressureLowInFlight) {
+        this.sftpBackpressureLowInFlight = sftpBackpressureLowInFlight;
+    }
+
+    public @NotNull Long getSftpHealthWindow() {
+        return sftpHealthWindow;
+    }
+
+    public void setSftpHealthWindow(@NotNull Long sftpHealthWindow) {
+        this.sftpHealthWindow = sftpHealthWindow;
+    }
+
+    public @NotNull Integer getSftpHealthErrorPercent() {
+        return sftpHealthErrorPercent;
+    }
+
+    public void setSftpHealthErrorPercent(@NotNull Integer sftpHealthErrorPercent) {
+        this.sftpHealthErrorPercent = sftpHealthErrorPercent;
+    }
+
+    public @NotNull Integer getSftpHealthMinFiles() {
+        return sftpHealthMinFiles;
+    }
+
+    public void setSftpHealthMinFiles(@NotNull Integer sftpHealthMinFiles) {
+        this.sftpHealthMinFiles = sftpHealthMinFiles;
+    }
+
+    public @NotNull Long getSftpHealthStallTimeout() {
+        return sftpHealthStallTimeout;
+    }
+
+    public void setSftpHealthStallTimeout(@NotNull Long sftpHealthStallTimeout) {
+        this.sftpHealthStallTimeout = sftpHealthStallTimeout;
+    }
+
+    public @NotNull Integer getSftpHealthRecentErrors() {
+        return sftpHealthRecentErrors;
+    }
+
+    public void setSftpHealthRecentErrors(@NotNull Integer sftpHealthRecentErrors) {
+        this.sftpHealthRecentErrors = sftpHealthRecentErrors;
+    }
+
+    public @NotNull String getSftpProcessorStages() {
+        return sftpProcessorStages;
+    }
+
+    public void setSftpProcessorStages(@NotNull String sftpProcessorStages) {
+        this.sftpProcessorStages = sftpProcessorStages;
+    }
+
+    public Map<String, ProcessorPipelineProperties> getSftpPipelines() {
+        return sftpPipelines;
+    }
+
+    public void setSftpPipelines(Map<String, ProcessorPipelineProperties> sftpPipelines) {
+        this.sftpPipelines = sftpPipelines;
+    }
+
+    public @NotNull Boolean getSftpDedupEnabled() {
+        return sftpDedupEnabled;
+    }
+
+    public void setSftpDedupEnabled(@NotNull Boolean sftpDedupEnabled) {
+        this.sftpDedupEnabled = sftpDedupEnabled;
+    }
+
+    public @NotNull String getSftpDedupFile() {
+        return sftpDedupFile;
+    }
+
+    public void setSftpDedupFile(@NotNull String sftpDedupFile) {
+        this.sftpDedupFile = sftpDedupFile;
+    }
+
+    public @NotNull Integer getSftpDedupCapacity() {
+        return sftpDedupCapacity;
+    }
+
+    public void setSftpDedupCapacity(@NotNull Integer sftpDedupCapacity) {
+        this.sftpDedupCapacity = sftpDedupCapacity;
+    }
+
+    public @NotNull Boolean getSftpVirtualThreads() {
+        return sftpVirtualThreads;
+    }
+
+    public void setSftpVirtualThreads(@NotNull Boolean sftpVirtualThreads) {
+        this.sftpVirtualThreads = sftpVirtualThreads;
+    }
+
+    public @NotNull Boolean getSftpTransactionBatchEnabled() {
+        return sftpTransactionBatchEnabled;
+    }
+
+    public void setSftpTransactionBatchEnabled(@NotNull Boolean sftpTransactionBatchEnabled) {
+        this.sftpTransactionBatchEnabled = sftpTransactionBatchEnabled;
+    }
+
+    public @NotNull String getSftpTransactionBatchFailurePolicy() {
+        return sftpTransactionBatchFailurePolicy;
+    }
+
+    public void setSftpTransactionBatchFailurePolicy(@NotNull String sftpTransactionBatchFailurePolicy) {
+        this.sftpTransactionBatchFailurePolicy = sftpTransactionBatchFailurePolicy;
+    }
+
+    public @NotNull String getSftpRemoteArchiveAction() {
+        return sftpRemoteArchiveAction;
+    }
+
+    public void setSftpRemoteArchiveAction(@NotNull String sftpRemoteArchiveAction) {
+        this.sftpRemoteArchiveAction = sftpRemoteArchiveAction;
+    }
+
+    public @NotNull String getSftpRemoteArchiveDir() {
+        return sftpRemoteArchiveDir;
+    }
+
+    public void setSftpRemoteArchiveDir(@NotNull String sftpRemoteArchiveDir) {
+        this.sftpRemoteArchiveDir = sftpRemoteArchiveDir;
+    }
+
+    public @NotNull String getSftpRemoteArchivePartitionPattern() {
+        return sftpRemoteArchivePartitionPattern;
+    }
+
+    public void setSftpRemoteArchivePartitionPattern(@NotNull String sftpRemoteArchivePartitionPattern) {
+        this.sftpRemoteArchivePartitionPattern = sftpRemoteArchivePartitionPattern;
+    }
+
+    public @NotNull String getSftpActuatorUsername() {
+        return sftpActuatorUsername;
+    }
+
+    public void setSftpActuatorUsername(@NotNull String sftpActuatorUsername) {
+        this.sftpActuatorUsername = sftpActuatorUsername;
+    }
+
+    public @NotNull String getSftpActuatorPassword() {
+        return sftpActuatorPassword;
+    }
+
+    public void setSftpActuatorPassword(@NotNull String sftpActuatorPassword) {
+        this.sftpActuatorPassword = sftpActuatorPassword;
+    }
+
+    public @NotNull Long getSftpClusterClaimLease() {
+        return sftpClusterClaimLease;
+    }
+
+    public void setSftpClusterClaimLease(@NotNull Long sftpClusterClaimLease) {
+        this.sftpClusterClaimLease = sftpClusterClaimLease;
+    }
+
+    public @NotNull Long getSftpClusterClaimRetention() {
+        return sftpClusterClaimRetention;
+    }
+
+    public void setSftpClusterClaimRetention(@NotNull Long sftpClusterClaimRetention) {
+        this.sftpClusterClaimRetention = sftpClusterClaimRetention;
+    }
 }
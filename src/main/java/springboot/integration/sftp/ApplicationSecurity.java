@@ -1,41 +1,77 @@
 package springboot.integration.sftp;
 
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.Http403ForbiddenEntryPoint;
 
 /**
  * Secured actuator endpoints.
+ * Health and info are public, the per-file outcomes and the metrics require the actuator user.
  */
 @Configuration
 public class ApplicationSecurity {
+    /**
+     * ApplicationProperties for the actuator user.
+     */
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
     /**
      * Permit only chain rules.
+     * Requests without valid credentials are forbidden, the credentials are sent with HTTP basic.
      *
-     * @param http HttpSecurity
+     * @param http                  HttpSecurity
+     * @param authenticationManager actuator user authentication
      * @return SecurityFilterChain
      * @throws Exception thrown exception in case of problems
      */
     @Bean
-    SecurityFilterChain permitOnly(final HttpSecurity http) throws Exception {
+    SecurityFilterChain permitOnly(final HttpSecurity http, final AuthenticationManager authenticationManager)
+            throws Exception {
         http.authorizeHttpRequests(authorize -> authorize
                 .requestMatchers("/actuator/info/**", "/actuator/health/**").permitAll()
-                .anyRequest().denyAll());
+                .requestMatchers("/actuator/files/**", "/actuator/metrics/**", "/actuator/prometheus/**")
+                .authenticated()
+                .anyRequest().denyAll())
+                .authenticationManager(authenticationManager)
+                .httpBasic(Customizer.withDefaults())
+                .exceptionHandling(exceptions -> exceptions.authenticationEntryPoint(new Http403ForbiddenEntryPoint()));
         return http.build();
     }
 
     /**
-     * Fix spring AuthenticationManager user password in the logs.
+     * Authentication of the actuator user, always failing when no user is configured.
+     * Also fixes spring AuthenticationManager user password in the logs.
+     *
+     * @return AuthenticationManager
      */
     @Bean
-    public AuthenticationManager noopAuthenticationManager() {
-        return authentication -> {
-            throw new AuthenticationServiceException("Authentication is disabled");
-        };
+    public AuthenticationManager actuatorAuthenticationManager() {
+        if (applicationProperties.getSftpActuatorUsername().isEmpty()) {
+            return authentication -> {
+                throw new AuthenticationServiceException("Authentication is disabled");
+            };
+        }
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setPasswordEncoder(PasswordEncoderFactories.createDelegatingPasswordEncoder());
+        provider.setUserDetailsService(new InMemoryUserDetailsManager(User
+                .withUsername(applicationProperties.getSftpActuatorUsername())
+                .password(applicationProperties.getSftpActuatorPassword())
+                .roles("ACTUATOR")
+                .build()));
+        return new ProviderManager(provider);
     }
 
 
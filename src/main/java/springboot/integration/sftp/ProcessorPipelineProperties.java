@@ -0,0 +1,45 @@
+package springboot.integration.sftp;
+
+/**
+ * Properties of a named processor pipeline, e.g. sftp-pipelines.odd-primes.pattern.
+ * A file is routed to the first pipeline matching both its name pattern and its source,
+ * criteria not set match any file.
+ */
+public class ProcessorPipelineProperties {
+    /**
+     * File name pattern, * matching any characters, e.g. odd_*.txt
+     */
+    private String pattern;
+    /**
+     * Name of the SFTP source the file comes from, default for the main source
+     */
+    private String source;
+    /**
+     * Comma separated stages a number must all pass to match, e.g. prime,odd
+     */
+    private String stages;
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public void setPattern(String pattern) {
+        this.pattern = pattern;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public String getStages() {
+        return stages;
+    }
+
+    public void setStages(String stages) {
+        this.stages = stages;
+    }
+}
@@ -1,38 +1,83 @@
 package springboot.integration.sftp;
 
 import org.apache.sshd.sftp.client.SftpClient;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationContext;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.expression.ExpressionParser;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.integration.annotation.InboundChannelAdapter;
 import org.springframework.integration.annotation.Poller;
 import org.springframework.integration.annotation.ServiceActivator;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.ExecutorChannel;
 import org.springframework.integration.core.MessageSource;
+import org.springframework.integration.dsl.IntegrationFlow;
+import org.springframework.integration.dsl.IntegrationFlowBuilder;
+import org.springframework.integration.dsl.PollerSpec;
 import org.springframework.integration.dsl.Pollers;
+import org.springframework.integration.dsl.context.IntegrationFlowContext;
+import org.springframework.integration.endpoint.SourcePollingChannelAdapter;
 import org.springframework.integration.file.filters.AcceptOnceFileListFilter;
 import org.springframework.integration.file.filters.CompositeFileListFilter;
+import org.springframework.integration.file.filters.FileListFilter;
 import org.springframework.integration.file.remote.session.CachingSessionFactory;
 import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.integration.metadata.ConcurrentMetadataStore;
 import org.springframework.integration.metadata.SimpleMetadataStore;
 import org.springframework.integration.scheduling.PollerMetadata;
-import org.springframework.integration.sftp.filters.SftpPersistentAcceptOnceFileListFilter;
-import org.springframework.integration.sftp.inbound.SftpInboundFileSynchronizer;
-import org.springframework.integration.sftp.inbound.SftpInboundFileSynchronizingMessageSource;
+import org.springframework.integration.sftp.inbound.SftpStreamingMessageSource;
 import org.springframework.integration.sftp.session.DefaultSftpSessionFactory;
+import org.springframework.integration.sftp.session.SftpRemoteFileTemplate;
 import org.springframework.integration.transaction.DefaultTransactionSynchronizationFactory;
-import org.springframework.integration.transaction.ExpressionEvaluatingTransactionSynchronizationProcessor;
 import org.springframework.integration.transaction.PseudoTransactionManager;
 import org.springframework.integration.transaction.TransactionSynchronizationFactory;
+import org.springframework.integration.transaction.TransactionSynchronizationProcessor;
+import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageHandler;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import springboot.integration.sftp.filters.RemoteAcceptOnceFileListFilter;
+import springboot.integration.sftp.filters.SharedClaimFileListFilter;
 import springboot.integration.sftp.handlers.ErrorHandler;
+import springboot.integration.sftp.handlers.FileTransactionCallbacks;
 import springboot.integration.sftp.handlers.ReceivedFilesHandler;
+import springboot.integration.sftp.handlers.TransactionalFilesHandler;
+import springboot.integration.sftp.metadata.FileMetadataStore;
+import springboot.integration.sftp.metrics.MeteredCachingSessionFactory;
+import springboot.integration.sftp.metrics.MeteredTransactionSynchronizationProcessor;
+import springboot.integration.sftp.metrics.PipelineMetrics;
+import springboot.integration.sftp.pollers.AdaptivePollTrigger;
+import springboot.integration.sftp.pollers.Backpressure;
+import springboot.integration.sftp.pollers.PollEndExecutor;
+import springboot.integration.sftp.processors.ProcessorRegistry;
+import springboot.integration.sftp.sinks.LocalResultSink;
+import springboot.integration.sftp.sinks.NoopResultSink;
+import springboot.integration.sftp.sinks.RemoteResultSink;
+import springboot.integration.sftp.sinks.ResultSink;
+import springboot.integration.sftp.synchronizers.ListingWatermark;
+import springboot.integration.sftp.synchronizers.RemoteArchiver;
+import springboot.integration.sftp.synchronizers.StagingFileSynchronizer;
+import springboot.integration.sftp.synchronizers.StagingMessageSource;
 import springboot.integration.sftp.utils.TransactionManagerOps;
 
 import java.io.File;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * Main SFTP adapter setup and configuration.
@@ -40,55 +85,137 @@ import java.util.List;
 @Configuration
 public class SftpAdapter {
     /**
-     * ApplicationContext for transaction manager
+     * Name of the main SFTP source in the metrics and the file outcomes.
      */
-    @Autowired
-    private ApplicationContext applicationContext;
+    private static final String DEFAULT_SOURCE = ProcessorRegistry.DEFAULT_SOURCE;
+
     /**
      * ApplicationProperties for SFTP connection parameters and local file storage.
      */
     @Autowired
     private ApplicationProperties applicationProperties;
+    /**
+     * Meters of each pipeline stage.
+     */
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+    /**
+     * Backpressure from the local staging and the processing.
+     */
+    @Autowired
+    private Backpressure backpressure;
+    /**
+     * Recorder of the file outcomes on commit and rollback.
+     */
+    @Autowired
+    private TransactionManagerOps managerOps;
+    /**
+     * Cluster claims of each source, created once per source.
+     */
+    private final Map<String, SharedClaimFileListFilter> claimFilters = new ConcurrentHashMap<>();
 
     /**
      * Session factory configuration.
      * Using caching session to maintain permanent open connections.
      * Testing of stale sessions for better stability.
      * Each session will create its own connection.
+     * The pool occupancy and the session checkout wait time are published as metrics.
      */
     @Bean
     public SessionFactory<SftpClient.DirEntry> sftpSessionFactory() {
-        DefaultSftpSessionFactory factory = new DefaultSftpSessionFactory();
-        factory.setHost(applicationProperties.getSftpHost());
-        factory.setPort(applicationProperties.getSftpPort());
-        factory.setUser(applicationProperties.getSftpUsername());
-        factory.setKnownHostsResource(applicationProperties.getSftpKnownHostsFile());
-        factory.setPrivateKey(applicationProperties.getSftpPrivateKeyFile());
-        CachingSessionFactory<SftpClient.DirEntry> cachingSessionFactory = new CachingSessionFactory<>(factory);
-        cachingSessionFactory.setTestSession(true);
-        cachingSessionFactory.setPoolSize(applicationProperties.getSftpPoolSize());
-        cachingSessionFactory.setSessionWaitTimeout(applicationProperties.getSftpSessionWaitTimeout());
-        return cachingSessionFactory;
+        return createSessionFactory(DEFAULT_SOURCE, SftpSourceProperties.of(applicationProperties));
     }
 
     /**
      * Handles the synchronization between remote SFTP directory and local mount.
+     * Remote listing and downloads are measured.
+     * Listed files can be downloaded concurrently, each on its own pooled session.
+     * Large files can be downloaded in byte ranges read in parallel over several pooled sessions.
+     * The listing can be limited to the files above a persisted watermark and to date partitions.
+     * Partial downloads can be resumed on the next poll.
      *
-     * @return SftpInboundFileSynchronizer
+     * @return StagingFileSynchronizer
      */
     @Bean
-    public SftpInboundFileSynchronizer sftpFileSynchronizer() {
-        SftpInboundFileSynchronizer fileSynchronizer = new SftpInboundFileSynchronizer(sftpSessionFactory());
-        fileSynchronizer.setDeleteRemoteFiles(false);
-        fileSynchronizer.setPreserveTimestamp(true);
+    public StagingFileSynchronizer sftpFileSynchronizer() {
+        SftpSourceProperties source = SftpSourceProperties.of(applicationProperties);
+        return createSynchronizer(DEFAULT_SOURCE, sftpSessionFactory(), remoteAcceptOnceFilter(),
+                createRemoteFilter(DEFAULT_SOURCE, remoteAcceptOnceFilter(), source), source, "watermark:");
+    }
 
-        CompositeFileListFilter<SftpClient.DirEntry> remoteFilter = new CompositeFileListFilter<>(
-                List.of(new SftpPersistentAcceptOnceFileListFilter(
-                        new SimpleMetadataStore(), "sftpMessageSource"))
-        );
-        fileSynchronizer.setFilter(remoteFilter);
-        fileSynchronizer.setRemoteDirectory(applicationProperties.getSftpRemoteDir());
-        return fileSynchronizer;
+    /**
+     * Executor of the concurrent downloads, its threads are started on demand.
+     * The session pool should be at least as large as the download concurrency.
+     * Only created when more than one file is downloaded at a time.
+     *
+     * @return AsyncTaskExecutor
+     */
+    @Bean
+    @ConditionalOnExpression("${sftp-download-concurrency} > 1")
+    public AsyncTaskExecutor sftpDownloadExecutor() {
+        if (applicationProperties.getSftpVirtualThreads()) {
+            return createVirtualExecutor("sftp-download-", applicationProperties.getSftpDownloadConcurrency());
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("sftp-download-");
+        executor.setCorePoolSize(applicationProperties.getSftpDownloadConcurrency());
+        executor.setMaxPoolSize(applicationProperties.getSftpDownloadConcurrency());
+        return executor;
+    }
+
+    /**
+     * Executor of the byte ranges of large files, the first range is read by the downloading thread.
+     * The session pool should be large enough for the ranges of the files downloaded concurrently.
+     * Only created when large files are split into several ranges.
+     *
+     * @return AsyncTaskExecutor
+     */
+    @Bean
+    @ConditionalOnExpression("${sftp-segment-count} > 1")
+    public AsyncTaskExecutor sftpSegmentExecutor() {
+        if (applicationProperties.getSftpVirtualThreads()) {
+            return createVirtualExecutor("sftp-segment-", Math.max(1, applicationProperties.getSftpSegmentCount() - 1));
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("sftp-segment-");
+        executor.setCorePoolSize(Math.max(1, applicationProperties.getSftpSegmentCount() - 1));
+        executor.setMaxPoolSize(Math.max(1, applicationProperties.getSftpSegmentCount() - 1));
+        return executor;
+    }
+
+    /**
+     * Store keeping track of the remote files already accepted.
+     * Persisted into a local file by default so a restart does not fetch the remote files again.
+     *
+     * @return ConcurrentMetadataStore
+     */
+    @Bean
+    public ConcurrentMetadataStore remoteMetadataStore() {
+        if ("memory".equals(applicationProperties.getSftpMetadataStore())) {
+            return new SimpleMetadataStore();
+        }
+        return new FileMetadataStore(Paths.get(applicationProperties.getSftpMetadataFile()));
+    }
+
+    /**
+     * Filter to prevent fetching the same remote file twice.
+     * Needed as a bean also for the transaction manager in streaming mode.
+     *
+     * @return RemoteAcceptOnceFileListFilter
+     */
+    @Bean
+    public RemoteAcceptOnceFileListFilter remoteAcceptOnceFilter() {
+        return new RemoteAcceptOnceFileListFilter(remoteMetadataStore(), "sftpMessageSource");
+    }
+
+    /**
+     * Template used to access remote files through the cached sessions.
+     *
+     * @return SftpRemoteFileTemplate
+     */
+    @Bean
+    public SftpRemoteFileTemplate sftpRemoteFileTemplate() {
+        return new SftpRemoteFileTemplate(sftpSessionFactory());
     }
 
     /**
@@ -98,39 +225,78 @@ public class SftpAdapter {
      * @return AcceptOnceFileListFilter
      */
     @Bean
-    public AcceptOnceFileListFilter acceptOnceFileListFilter() {
+    public AcceptOnceFileListFilter<File> acceptOnceFileListFilter() {
         return new AcceptOnceFileListFilter<>();
     }
 
     /**
      * Synchronize remote files to local.
+     * In streaming mode remote files are not staged on local disk, they are read
+     * directly through a cached session.
      *
      * @return received file as a message
      */
     @Bean
     @InboundChannelAdapter(channel = "sftpChannel", poller = @Poller(value = "pollerMetadata"))
-    public MessageSource<File> sftpMessageSource() {
-        SftpInboundFileSynchronizingMessageSource source =
-                new SftpInboundFileSynchronizingMessageSource(sftpFileSynchronizer());
-        source.setLocalDirectory(new File(applicationProperties.getSftpLocalDir()));
-        source.setAutoCreateLocalDirectory(true);
-        source.setLocalFilter(acceptOnceFileListFilter());
-        source.setMaxFetchSize(applicationProperties.getSftpMaxFetchSize());
-        return source;
+    public MessageSource<?> sftpMessageSource() {
+        SftpSourceProperties source = SftpSourceProperties.of(applicationProperties);
+        return createMessageSource(sftpFileSynchronizer(), sftpRemoteFileTemplate(),
+                createRemoteFilter(DEFAULT_SOURCE, remoteAcceptOnceFilter(), source), acceptOnceFileListFilter(),
+                source);
+    }
+
+    /**
+     * Channel between the inbound adapter and the files handler.
+     * In concurrent mode files are handed off to the worker pool, otherwise they are
+     * processed on the poller thread.
+     *
+     * @return MessageChannel
+     */
+    @Bean
+    public MessageChannel sftpChannel() {
+        if (applicationProperties.getSftpConcurrentEnabled()) {
+            return new ExecutorChannel(sftpWorkerExecutor());
+        }
+        return new DirectChannel();
+    }
+
+    /**
+     * Bounded worker pool used in concurrent mode.
+     * Platform threads use a fixed pool with a bounded queue and the poller thread
+     * runs the file itself when the queue is full.
+     * Virtual threads are throttled by a concurrency limit instead of a pool size.
+     * Only created in concurrent mode.
+     *
+     * @return TaskExecutor
+     */
+    @Bean
+    @ConditionalOnProperty(name = "sftp-concurrent-enabled", havingValue = "true")
+    public TaskExecutor sftpWorkerExecutor() {
+        if (applicationProperties.getSftpVirtualThreads()) {
+            return createVirtualExecutor("sftp-worker-", applicationProperties.getSftpWorkerPoolSize());
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("sftp-worker-");
+        executor.setCorePoolSize(applicationProperties.getSftpWorkerPoolSize());
+        executor.setMaxPoolSize(applicationProperties.getSftpWorkerPoolSize());
+        executor.setQueueCapacity(applicationProperties.getSftpWorkerQueueCapacity());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
     }
 
     /**
      * Poller configuration.
+     * In adaptive mode the delay follows the backlog, otherwise it is fixed.
+     * In concurrent mode the transaction is started by the worker handling the file,
+     * so the poller itself is not transactional.
      *
      * @return PollerMetadata
      */
     @Bean
     public PollerMetadata pollerMetadata() {
-        return Pollers.fixedDelay(applicationProperties.getSftpPollerDelay())
-                .transactional(transactionManager())
-                .transactionSynchronizationFactory(transactionSynchronizationFactory())
-                .maxMessagesPerPoll(applicationProperties.getSftpMaxMessagesPerPoll())
-                .getObject();
+        return createPoller(DEFAULT_SOURCE, SftpSourceProperties.of(applicationProperties),
+                fileTransactionCallbacks(), transactionSynchronizationFactory()).getObject();
     }
 
     /**
@@ -144,45 +310,66 @@ public class SftpAdapter {
     }
 
     /**
-     * Helper bean for the transaction manager.
+     * Transaction manager rollback and commit logic.
      *
-     * @return TransactionManagerOps
+     * @return TransactionSynchronizationFactory
      */
     @Bean
-    public TransactionManagerOps managerOps() {
-        return new TransactionManagerOps();
+    TransactionSynchronizationFactory transactionSynchronizationFactory() {
+        return new DefaultTransactionSynchronizationFactory(transactionSynchronizationProcessor());
     }
 
     /**
-     * Transaction manager rollback and commit logic.
+     * Rollback and commit logic shared by the poller and the concurrent workers,
+     * counting the commits and rollbacks.
      *
-     * @return TransactionSynchronizationFactory
+     * @return TransactionSynchronizationProcessor
      */
     @Bean
-    TransactionSynchronizationFactory transactionSynchronizationFactory() {
-        ExpressionParser parser = new SpelExpressionParser();
-        ExpressionEvaluatingTransactionSynchronizationProcessor syncProcessor =
-                new ExpressionEvaluatingTransactionSynchronizationProcessor();
-        syncProcessor.setBeanFactory(applicationContext.getAutowireCapableBeanFactory());
-        syncProcessor.setAfterRollbackExpression(
-                parser.parseExpression("@acceptOnceFileListFilter.remove(payload) and " +
-                        "@managerOps.error(payload.name)"));
-        syncProcessor.setAfterCommitExpression(
-                parser.parseExpression(
-                        "payload.delete() and @acceptOnceFileListFilter.remove(payload) and " +
-                                "@managerOps.success(payload.name)"));
-        return new DefaultTransactionSynchronizationFactory(syncProcessor);
+    TransactionSynchronizationProcessor transactionSynchronizationProcessor() {
+        return new MeteredTransactionSynchronizationProcessor(fileTransactionCallbacks(), pipelineMetrics);
+    }
+
+    /**
+     * Rollback and commit actions of the main source.
+     *
+     * @return FileTransactionCallbacks
+     */
+    @Bean
+    FileTransactionCallbacks fileTransactionCallbacks() {
+        return createTransactionCallbacks(DEFAULT_SOURCE, acceptOnceFileListFilter(), remoteAcceptOnceFilter(),
+                sftpFileSynchronizer(), sftpRemoteFileTemplate(), SftpSourceProperties.of(applicationProperties));
+    }
+
+    /**
+     * Destination of the per-file processing results.
+     *
+     * @return ResultSink
+     */
+    @Bean
+    public ResultSink resultSink() {
+        return switch (applicationProperties.getSftpResultSink()) {
+            case "local" -> new LocalResultSink(Paths.get(applicationProperties.getSftpResultsDir()));
+            case "remote" -> new RemoteResultSink(sftpRemoteFileTemplate(),
+                    applicationProperties.getSftpOutboundDir(), Paths.get(applicationProperties.getSftpResultsDir()));
+            default -> new NoopResultSink();
+        };
     }
 
     /**
      * Handler for incoming files.
      *
+     * @param receivedFilesHandler handler processing the files
      * @return MessageHandler
      */
     @Bean
     @ServiceActivator(inputChannel = "sftpChannel")
-    public MessageHandler inboundHandler() {
-        return new ReceivedFilesHandler();
+    public MessageHandler inboundHandler(ReceivedFilesHandler receivedFilesHandler) {
+        if (applicationProperties.getSftpConcurrentEnabled()) {
+            return new TransactionalFilesHandler(receivedFilesHandler, transactionManager(),
+                    transactionSynchronizationProcessor());
+        }
+        return receivedFilesHandler;
     }
 
     /**
@@ -196,5 +383,379 @@ public class SftpAdapter {
         return new ErrorHandler();
     }
 
-}
+    /**
+     * Register one independent flow per additional SFTP source once all beans are ready.
+     *
+     * @param flowContext          context registering the flows at runtime
+     * @param receivedFilesHandler handler processing the files
+     * @return SmartInitializingSingleton
+     */
+    @Bean
+    public SmartInitializingSingleton sftpSourcesRegistrar(IntegrationFlowContext flowContext,
+                                                           ReceivedFilesHandler receivedFilesHandler) {
+        SftpSourceProperties defaults = SftpSourceProperties.of(applicationProperties);
+        return () -> applicationProperties.getSftpSources().forEach((name, source) ->
+                registerSource(flowContext, receivedFilesHandler, name, source.withDefaults(defaults, name)));
+    }
+
+    /**
+     * Register the flow of an additional SFTP source.
+     * Each source has its own sessions, accept-once filters and poller thread, so a slow or
+     * flooding source does not delay the others; the processing pool is shared in concurrent mode.
+     * The accepted remote files are kept in the shared store under the source name,
+     * and the files are tagged with it to select their processor pipeline.
+     *
+     * @param flowContext          context registering the flows at runtime
+     * @param receivedFilesHandler handler processing the files
+     * @param name                 source name
+     * @param source               source properties
+     */
+    private void registerSource(IntegrationFlowContext flowContext, ReceivedFilesHandler receivedFilesHandler,
+                                String name, SftpSourceProperties source) {
+        CachingSessionFactory<SftpClient.DirEntry> sessionFactory = createSessionFactory(name, source);
+        RemoteAcceptOnceFileListFilter remoteFilter = new RemoteAcceptOnceFileListFilter(remoteMetadataStore(),
+                name + ":");
+        AcceptOnceFileListFilter<File> localFilter = new AcceptOnceFileListFilter<>();
+        FileListFilter<SftpClient.DirEntry> filter = createRemoteFilter(name, remoteFilter, source);
+        StagingFileSynchronizer synchronizer = createSynchronizer(name, sessionFactory, remoteFilter, filter,
+                source, "watermark:" + name + ":");
+        SftpRemoteFileTemplate template = new SftpRemoteFileTemplate(sessionFactory);
+        FileTransactionCallbacks callbacks = createTransactionCallbacks(name, localFilter, remoteFilter,
+                synchronizer, template, source);
+        TransactionSynchronizationProcessor syncProcessor =
+                new MeteredTransactionSynchronizationProcessor(callbacks, pipelineMetrics);
+        TaskScheduler scheduler = createScheduler("sftp-" + name + "-");
+
+        IntegrationFlowBuilder flow = IntegrationFlow.from(
+                createMessageSource(synchronizer, template, filter, localFilter, source),
+                e -> e.poller(createPoller(name, source, callbacks,
+                        new DefaultTransactionSynchronizationFactory(syncProcessor))))
+                .enrichHeaders(h -> h.header(ProcessorRegistry.SOURCE_HEADER, name));
+        if (applicationProperties.getSftpConcurrentEnabled()) {
+            flow.channel(c -> c.executor(sftpWorkerExecutor()))
+                    .handle(new TransactionalFilesHandler(receivedFilesHandler, transactionManager(), syncProcessor));
+        } else {
+            flow.handle(receivedFilesHandler);
+        }
+        IntegrationFlowContext.IntegrationFlowRegistration registration = flowContext.registration(flow.get())
+                .id(name + "SftpFlow")
+                .addBean(name + "SessionFactory", sessionFactory)
+                .addBean(name + "RemoteAcceptOnceFilter", remoteFilter)
+                .addBean(name + "AcceptOnceFileListFilter", localFilter)
+                .addBean(name + "FileSynchronizer", synchronizer)
+                .addBean(name + "RemoteFileTemplate", template)
+                .addBean(name + "TransactionCallbacks", callbacks)
+                .addBean(name + "TaskScheduler", scheduler)
+                .autoStartup(false)
+                .register();
+        //started with the context like the main source, polling on the scheduler of its source
+        registration.getIntegrationFlow().getIntegrationComponents().keySet().stream()
+                .filter(SourcePollingChannelAdapter.class::isInstance)
+                .forEach(adapter -> ((SourcePollingChannelAdapter) adapter).setTaskScheduler(scheduler));
+    }
+
+    /**
+     * Create the session factory of a source.
+     *
+     * @param name   source name
+     * @param source source properties
+     * @return CachingSessionFactory
+     */
+    private CachingSessionFactory<SftpClient.DirEntry> createSessionFactory(String name, SftpSourceProperties source) {
+        DefaultSftpSessionFactory factory = new DefaultSftpSessionFactory();
+        factory.setHost(source.getHost());
+        factory.setPort(source.getPort());
+        factory.setUser(source.getUsername());
+        factory.setKnownHostsResource(source.getKnownHostsFile());
+        factory.setPrivateKey(source.getPrivateKeyFile());
+        MeteredCachingSessionFactory<SftpClient.DirEntry> cachingSessionFactory =
+                new MeteredCachingSessionFactory<>(factory, pipelineMetrics);
+        cachingSessionFactory.setTestSession(true);
+        cachingSessionFactory.setPoolSize(source.getPoolSize());
+        cachingSessionFactory.setSessionWaitTimeout(applicationProperties.getSftpSessionWaitTimeout());
+        pipelineMetrics.bindSessionPool(name, cachingSessionFactory);
+        return cachingSessionFactory;
+    }
+
+    /**
+     * Create the synchronizer of a source.
+     *
+     * @param name             source name
+     * @param sessionFactory   source session factory
+     * @param acceptOnceFilter source accept-once filter, pruned as the listing watermark moves
+     * @param remoteFilter     source remote filter
+     * @param source           source properties
+     * @param watermarkPrefix  key prefix of the listing watermark, followed by the remote dir
+     * @return StagingFileSynchronizer
+     */
+    private StagingFileSynchronizer createSynchronizer(String name, SessionFactory<SftpClient.DirEntry> sessionFactory,
+                                                       RemoteAcceptOnceFileListFilter acceptOnceFilter,
+                                                       FileListFilter<SftpClient.DirEntry> remoteFilter,
+                                                       SftpSourceProperties source, String watermarkPrefix) {
+        StagingFileSynchronizer fileSynchronizer = new StagingFileSynchronizer(sessionFactory, pipelineMetrics);
+        fileSynchronizer.setSourceName(name);
+        fileSynchronizer.setDeleteRemoteFiles(false);
+        fileSynchronizer.setPreserveTimestamp(true);
+        fileSynchronizer.setFilter(remoteFilter);
+        fileSynchronizer.setRemoteDirectory(source.getRemoteDir());
+        if (applicationProperties.getSftpDownloadConcurrency() > 1) {
+            fileSynchronizer.setDownloadExecutor(sftpDownloadExecutor());
+        }
+        if (applicationProperties.getSftpListingWatermark()) {
+            fileSynchronizer.setWatermark(new ListingWatermark(remoteMetadataStore(),
+                    watermarkPrefix + source.getRemoteDir(), applicationProperties.getSftpListingWatermarkLag()),
+                    acceptOnceFilter);
+        }
+        if (!applicationProperties.getSftpRemotePartitionPattern().isEmpty()) {
+            fileSynchronizer.setPartitions(
+                    DateTimeFormatter.ofPattern(applicationProperties.getSftpRemotePartitionPattern()),
+                    applicationProperties.getSftpRemotePartitionLookbackDays());
+        }
+        fileSynchronizer.setResumable(applicationProperties.getSftpDownloadResumable());
+        fileSynchronizer.setContentDigest(applicationProperties.getSftpDedupEnabled());
+        fileSynchronizer.setBackpressure(backpressure);
+        if (applicationProperties.getSftpSegmentCount() > 1) {
+            fileSynchronizer.setSegmentedDownload(sftpSegmentExecutor(), applicationProperties.getSftpSegmentCount(),
+                    applicationProperties.getSftpSegmentThreshold());
+        }
+        return fileSynchronizer;
+    }
+
+    /**
+     * Create the message source of a source.
+     *
+     * @param synchronizer source synchronizer, used unless in streaming mode
+     * @param template     source remote file template, used in streaming mode
+     * @param remoteFilter source remote filter
+     * @param localFilter  source local accept-once filter
+     * @param source       source properties
+     * @return MessageSource
+     */
+    private MessageSource<?> createMessageSource(StagingFileSynchronizer synchronizer,
+                                                 SftpRemoteFileTemplate template,
+                                                 FileListFilter<SftpClient.DirEntry> remoteFilter,
+                                                 AcceptOnceFileListFilter<File> localFilter,
+                                                 SftpSourceProperties source) {
+        if (applicationProperties.getSftpStreamingEnabled()) {
+            requireStagedListing();
+            SftpStreamingMessageSource messageSource = new SftpStreamingMessageSource(template);
+            messageSource.setRemoteDirectory(source.getRemoteDir());
+            messageSource.setFilter(remoteFilter);
+            messageSource.setMaxFetchSize(source.getMaxFetchSize());
+            return messageSource;
+        }
+        StagingMessageSource messageSource = new StagingMessageSource(synchronizer);
+        messageSource.setLocalDirectory(new File(source.getLocalDir()));
+        messageSource.setAutoCreateLocalDirectory(true);
+        messageSource.setLocalFilter(localFilter);
+        messageSource.setMaxFetchSize(source.getMaxFetchSize());
+        return messageSource;
+    }
+
+    /**
+     * Fail at startup when the incremental listing is enabled in streaming mode, the watermark
+     * and the date partitions only apply to the synchronizer listing of staged files.
+     */
+    private void requireStagedListing() {
+        if (applicationProperties.getSftpListingWatermark()
+                || !applicationProperties.getSftpRemotePartitionPattern().isEmpty()) {
+            throw new IllegalStateException("sftp-listing-watermark and sftp-remote-partition-pattern are not"
+                    + " supported with sftp-streaming-enabled: disable one of them");
+        }
+    }
+
+    /**
+     * Create the remote filter of a source.
+     * In cluster mode the files accepted once are also claimed in the shared claim directory,
+     * so each remote file is downloaded and processed by a single instance.
+     *
+     * @param name         source name
+     * @param remoteFilter source remote accept-once filter
+     * @param source       source properties
+     * @return CompositeFileListFilter
+     */
+    private CompositeFileListFilter<SftpClient.DirEntry> createRemoteFilter(
+            String name, RemoteAcceptOnceFileListFilter remoteFilter, SftpSourceProperties source) {
+        CompositeFileListFilter<SftpClient.DirEntry> compositeFilter = new CompositeFileListFilter<>(
+                List.of(remoteFilter)
+        );
+        SharedClaimFileListFilter claims = claimFilter(name, source);
+        if (claims != null) {
+            compositeFilter.addFilter(claims);
+        }
+        return compositeFilter;
+    }
+
+    /**
+     * Cluster claims of a source, shared by its remote filters and its commit actions.
+     *
+     * @param name   source name
+     * @param source source properties
+     * @return SharedClaimFileListFilter, null outside cluster mode
+     */
+    private SharedClaimFileListFilter claimFilter(String name, SftpSourceProperties source) {
+        if (applicationProperties.getSftpClusterClaimDir().isEmpty()) {
+            return null;
+        }
+        return claimFilters.computeIfAbsent(name, n -> new SharedClaimFileListFilter(
+                Paths.get(applicationProperties.getSftpClusterClaimDir()),
+                source.getHost() + ":" + source.getPort() + "/" + source.getRemoteDir() + "/",
+                clusterInstanceId(), Duration.ofMillis(applicationProperties.getSftpClusterClaimLease()),
+                Duration.ofMillis(applicationProperties.getSftpClusterClaimRetention())));
+    }
+
+    /**
+     * Id of this instance in the cluster, the host name unless configured, so it is the same after a restart
+     * and the instance keeps the files it claimed.
+     *
+     * @return instance id
+     */
+    private String clusterInstanceId() {
+        if (!applicationProperties.getSftpClusterInstanceId().isEmpty()) {
+            return applicationProperties.getSftpClusterInstanceId();
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Could not resolve the host name, set sftp-cluster-instance-id", e);
+        }
+    }
+
+    /**
+     * Create an executor starting a virtual thread per task.
+     * The concurrency limit blocks the submitting thread like a semaphore once reached,
+     * so it bounds the tasks in flight the way the pool size does for platform threads.
+     *
+     * @param threadNamePrefix thread name prefix
+     * @param concurrencyLimit maximum number of tasks running at once
+     * @return SimpleAsyncTaskExecutor
+     */
+    private SimpleAsyncTaskExecutor createVirtualExecutor(String threadNamePrefix, int concurrencyLimit) {
+        requireVirtualThreads();
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrencyLimit);
+        return executor;
+    }
 
+    /**
+     * Fail at startup with a clear message when virtual threads are enabled on a JDK without them,
+     * instead of the unsupported operation thrown by the executor.
+     */
+    private static void requireVirtualThreads() {
+        if (Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads require Java 21 or later, running on Java "
+                    + Runtime.version().feature() + ": disable sftp-virtual-threads");
+        }
+    }
+
+    /**
+     * Create the poller scheduler of a source, a SimpleAsyncTaskScheduler in virtual threads mode.
+     * It runs the fixed-delay polls on its single scheduler thread, one after the other, not on a new
+     * virtual thread each; the downloads and the workers get their virtual threads from their executors.
+     *
+     * @param threadNamePrefix thread name prefix
+     * @return TaskScheduler
+     */
+    private TaskScheduler createScheduler(String threadNamePrefix) {
+        if (applicationProperties.getSftpVirtualThreads()) {
+            requireVirtualThreads();
+            SimpleAsyncTaskScheduler scheduler = new SimpleAsyncTaskScheduler();
+            scheduler.setThreadNamePrefix(threadNamePrefix);
+            scheduler.setVirtualThreads(true);
+            return scheduler;
+        }
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix(threadNamePrefix);
+        return scheduler;
+    }
+
+    /**
+     * Create the poller of a source.
+     * The backpressure counts the files in flight and pauses the receipts in streaming mode.
+     * A transactional poll applies its batch once it ends, also when an exception ends it before its
+     * empty receive.
+     *
+     * @param name                  source name
+     * @param source                source properties
+     * @param callbacks             source rollback and commit actions
+     * @param synchronizationFactory source rollback and commit logic
+     * @return PollerSpec
+     */
+    private PollerSpec createPoller(String name, SftpSourceProperties source, FileTransactionCallbacks callbacks,
+                                    TransactionSynchronizationFactory synchronizationFactory) {
+        PollerSpec poller;
+        if (applicationProperties.getSftpPollerAdaptive()) {
+            AdaptivePollTrigger trigger = new AdaptivePollTrigger(source.getPollerDelay(),
+                    applicationProperties.getSftpPollerMaxDelay(), source.getMaxMessagesPerPoll());
+            pipelineMetrics.bindPollerDelay(name, trigger::getCurrentDelay);
+            poller = Pollers.trigger(trigger).advice(trigger, backpressure);
+        } else {
+            poller = Pollers.fixedDelay(source.getPollerDelay()).advice(backpressure);
+        }
+        poller.maxMessagesPerPoll(source.getMaxMessagesPerPoll());
+        if (!applicationProperties.getSftpConcurrentEnabled()) {
+            poller.transactional(transactionManager())
+                    .transactionSynchronizationFactory(synchronizationFactory)
+                    .taskExecutor(new PollEndExecutor(callbacks::flush));
+        }
+        return poller;
+    }
+
+    /**
+     * Create the rollback and commit actions of a source.
+     * In batch mode the files of a poll are committed together, except in concurrent mode
+     * where each worker commits its own file.
+     * The committed remote files can be archived or deleted, those of a poll over one session.
+     * In concurrent mode there is no end of poll, the files committed while a worker archives are
+     * archived together by its next round.
+     * The synchronizer records the remote names of the staged files only when they are needed.
+     * In cluster mode the claims of the committed and rolled back files are updated.
+     *
+     * @param name         source name
+     * @param localFilter  source local accept-once filter
+     * @param remoteFilter source remote accept-once filter
+     * @param synchronizer source synchronizer, resolving the remote names of the staged files
+     * @param template     source remote file template, used to archive the remote files
+     * @param source       source properties
+     * @return FileTransactionCallbacks
+     */
+    private FileTransactionCallbacks createTransactionCallbacks(String name,
+                                                                AcceptOnceFileListFilter<File> localFilter,
+                                                                RemoteAcceptOnceFileListFilter remoteFilter,
+                                                                StagingFileSynchronizer synchronizer,
+                                                                SftpRemoteFileTemplate template,
+                                                                SftpSourceProperties source) {
+        FileTransactionCallbacks callbacks = new FileTransactionCallbacks(name, localFilter, remoteFilter,
+                managerOps, applicationProperties.getSftpStreamingEnabled());
+        callbacks.setBackpressure(backpressure);
+        if (applicationProperties.getSftpTransactionBatchEnabled()
+                && !applicationProperties.getSftpConcurrentEnabled()) {
+            callbacks.setBatch(source.getMaxMessagesPerPoll(), FileTransactionCallbacks.FailurePolicy.valueOf(
+                    applicationProperties.getSftpTransactionBatchFailurePolicy().toUpperCase(Locale.ROOT)));
+        }
+        String action = applicationProperties.getSftpRemoteArchiveAction();
+        if (!"none".equalsIgnoreCase(action)) {
+            String pattern = applicationProperties.getSftpRemoteArchivePartitionPattern();
+            RemoteArchiver archiver = new RemoteArchiver(template, source.getRemoteDir(),
+                    RemoteArchiver.Action.valueOf(action.toUpperCase(Locale.ROOT)), source.getArchiveDir(),
+                    pattern.isEmpty() ? null : DateTimeFormatter.ofPattern(pattern), pipelineMetrics);
+            int archiveBatchSize = source.getMaxMessagesPerPoll() > 0 ? source.getMaxMessagesPerPoll()
+                    : Integer.MAX_VALUE;
+            if (applicationProperties.getSftpConcurrentEnabled()) {
+                //workers end out of poll order, each commit archives what is queued
+                archiveBatchSize = 1;
+            }
+            callbacks.setArchiver(archiver, synchronizer::remoteFileName, archiveBatchSize);
+            synchronizer.setRecordRemoteNames(true);
+        }
+        SharedClaimFileListFilter claims = claimFilter(name, source);
+        if (claims != null) {
+            callbacks.setClaims(claims, synchronizer::remoteFileName, synchronizer::settle);
+            synchronizer.setRecordRemoteNames(true);
+            synchronizer.setTrackInFlight(true);
+        }
+        return callbacks;
+    }
+
+}
@@ -0,0 +1,201 @@
+package springboot.integration.sftp;
+
+import org.springframework.core.io.FileSystemResource;
+
+/**
+ * Properties of a named SFTP source, e.g. sftp-sources.partner1.host.
+ * Properties not set are taken from the main SFTP source.
+ */
+public class SftpSourceProperties {
+    /**
+     * SFTP connection username
+     */
+    private String username;
+    /**
+     * SFTP connection hostname
+     */
+    private String host;
+    /**
+     * SFTP connection port
+     */
+    private Integer port;
+    /**
+     * SFTP connection private key
+     */
+    private FileSystemResource privateKeyFile;
+    /**
+     * SFTP connection know host files
+     */
+    private FileSystemResource knownHostsFile;
+    /**
+     * SFTP remote dir
+     */
+    private String remoteDir;
+    /**
+     * Local directory where files are staged, defaults to the main local dir suffixed by the source name
+     */
+    private String localDir;
+    /**
+     * SFTP remote archive dir of the moved files, defaults to the main archive dir suffixed by the source name
+     */
+    private String archiveDir;
+    /**
+     * SFTP connection pool size
+     */
+    private Integer poolSize;
+    /**
+     * SFTP poller delay in ms
+     */
+    private Integer pollerDelay;
+    /**
+     * SFTP connection max fetch size
+     */
+    private Integer maxFetchSize;
+    /**
+     * SFTP connection max messages per poll
+     */
+    private Integer maxMessagesPerPoll;
+
+    /**
+     * Properties of the main SFTP source.
+     *
+     * @param applicationProperties application properties
+     * @return SftpSourceProperties
+     */
+    public static SftpSourceProperties of(ApplicationProperties applicationProperties) {
+        SftpSourceProperties source = new SftpSourceProperties();
+        source.username = applicationProperties.getSftpUsername();
+        source.host = applicationProperties.getSftpHost();
+        source.port = applicationProperties.getSftpPort();
+        source.privateKeyFile = applicationProperties.getSftpPrivateKeyFile();
+        source.knownHostsFile = applicationProperties.getSftpKnownHostsFile();
+        source.remoteDir = applicationProperties.getSftpRemoteDir();
+        source.localDir = applicationProperties.getSftpLocalDir();
+        source.archiveDir = applicationProperties.getSftpRemoteArchiveDir();
+        source.poolSize = applicationProperties.getSftpPoolSize();
+        source.pollerDelay = applicationProperties.getSftpPollerDelay();
+        source.maxFetchSize = applicationProperties.getSftpMaxFetchSize();
+        source.maxMessagesPerPoll = applicationProperties.getSftpMaxMessagesPerPoll();
+        return source;
+    }
+
+    /**
+     * Copy of these properties where the properties not set are taken from the defaults.
+     *
+     * @param defaults properties of the main SFTP source
+     * @param name     source name
+     * @return SftpSourceProperties
+     */
+    public SftpSourceProperties withDefaults(SftpSourceProperties defaults, String name) {
+        SftpSourceProperties source = new SftpSourceProperties();
+        source.username = username != null ? username : defaults.username;
+        source.host = host != null ? host : defaults.host;
+        source.port = port != null ? port : defaults.port;
+        source.privateKeyFile = privateKeyFile != null ? privateKeyFile : defaults.privateKeyFile;
+        source.knownHostsFile = knownHostsFile != null ? knownHostsFile : defaults.knownHostsFile;
+        source.remoteDir = remoteDir != null ? remoteDir : defaults.remoteDir;
+        source.localDir = localDir != null ? localDir : defaults.localDir + "-" + name;
+        source.archiveDir = archiveDir != null ? archiveDir : defaults.archiveDir + "-" + name;
+        source.poolSize = poolSize != null ? poolSize : defaults.poolSize;
+        source.pollerDelay = pollerDelay != null ? pollerDelay : defaults.pollerDelay;
+        source.maxFetchSize = maxFetchSize != null ? maxFetchSize : defaults.maxFetchSize;
+        source.maxMessagesPerPoll = maxMessagesPerPoll != null ? maxMessagesPerPoll : defaults.maxMessagesPerPoll;
+        return source;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public Integer getPort() {
+        return port;
+    }
+
+    public void setPort(Integer port) {
+        this.port = port;
+    }
+
+    public FileSystemResource getPrivateKeyFile() {
+        return privateKeyFile;
+    }
+
+    public void setPrivateKeyFile(FileSystemResource privateKeyFile) {
+        this.privateKeyFile = privateKeyFile;
+    }
+
+    public FileSystemResource getKnownHostsFile() {
+        return knownHostsFile;
+    }
+
+    public void setKnownHostsFile(FileSystemResource knownHostsFile) {
+        this.knownHostsFile = knownHostsFile;
+    }
+
+    public String getRemoteDir() {
+        return remoteDir;
+    }
+
+    public void setRemoteDir(String remoteDir) {
+        this.remoteDir = remoteDir;
+    }
+
+    public String getLocalDir() {
+        return localDir;
+    }
+
+    public void setLocalDir(String localDir) {
+        this.localDir = localDir;
+    }
+
+    public String getArchiveDir() {
+        return archiveDir;
+    }
+
+    public void setArchiveDir(String archiveDir) {
+        this.archiveDir = archiveDir;
+    }
+
+    public Integer getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(Integer poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public Integer getPollerDelay() {
+        return pollerDelay;
+    }
+
+    public void setPollerDelay(Integer pollerDelay) {
+        this.pollerDelay = pollerDelay;
+    }
+
+    public Integer getMaxFetchSize() {
+        return maxFetchSize;
+    }
+
+    public void setMaxFetchSize(Integer maxFetchSize) {
+        this.maxFetchSize = maxFetchSize;
+    }
+
+    public Integer getMaxMessagesPerPoll() {
+        return maxMessagesPerPoll;
+    }
+
+    public void setMaxMessagesPerPoll(Integer maxMessagesPerPoll) {
+        this.maxMessagesPerPoll = maxMessagesPerPoll;
+    }
+}
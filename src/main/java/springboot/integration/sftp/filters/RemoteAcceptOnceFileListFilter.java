@@ -0,0 +1,41 @@
+package springboot.integration.sftp.filters;
+
+import org.springframework.integration.metadata.ConcurrentMetadataStore;
+import org.springframework.integration.sftp.filters.SftpPersistentAcceptOnceFileListFilter;
+
+/**
+ * Remote accept-once filter which can also forget a file by its name.
+ * Needed by the transaction manager when only the remote file name is known.
+ */
+public class RemoteAcceptOnceFileListFilter extends SftpPersistentAcceptOnceFileListFilter {
+    /**
+     * Store holding the accepted files.
+     */
+    private final ConcurrentMetadataStore metadataStore;
+    /**
+     * Key prefix used by the filter inside the store.
+     */
+    private final String keyPrefix;
+
+    /**
+     * Constructor.
+     *
+     * @param metadataStore store holding the accepted files
+     * @param keyPrefix     key prefix used inside the store
+     */
+    public RemoteAcceptOnceFileListFilter(ConcurrentMetadataStore metadataStore, String keyPrefix) {
+        super(metadataStore, keyPrefix);
+        this.metadataStore = metadataStore;
+        this.keyPrefix = keyPrefix;
+    }
+
+    /**
+     * Forget a remote file so it will be accepted again on the next poll.
+     *
+     * @param fileName remote file name
+     * @return true if the file was known by the filter
+     */
+    public boolean forget(String fileName) {
+        return metadataStore.remove(keyPrefix + fileName) != null;
+    }
+}
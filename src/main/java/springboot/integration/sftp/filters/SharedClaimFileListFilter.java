@@ -0,0 +1,405 @@
+package springboot.integration.sftp.filters;
+
+import org.apache.sshd.sftp.client.SftpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.integration.file.filters.ResettableFileListFilter;
+import org.springframework.integration.file.filters.ReversibleFileListFilter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Remote filter claiming each file for one service instance through a directory shared by the cluster.
+ * A claim is a file created exclusively in the shared directory, named after the remote file path and holding
+ * the id of the owning instance, the remote modification time and a lease, so only the first instance listing
+ * a remote file accepts it while its owner keeps accepting it on retries, renewing the lease.
+ * A lease not renewed in time, e.g. after its owner crashed, can be taken over by another instance.
+ * Once committed the claim is kept without lease so no other instance processes the file again, until the
+ * remote file is archived or the retention expires. Rolled back and archived files are released.
+ * A new version of a remote file is claimed again.
+ * Expired claims are swept from the shared directory at most once per lease.
+ * The shared directory must support exclusive file creation and atomic renames across hosts,
+ * e.g. a local disk or NFSv3+.
+ */
+public class SharedClaimFileListFilter implements ReversibleFileListFilter<SftpClient.DirEntry>,
+        ResettableFileListFilter<SftpClient.DirEntry> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SharedClaimFileListFilter.class);
+
+    private static final char SEPARATOR = '\t';
+
+    /**
+     * Suffix of the claim files being replaced or removed by an instance.
+     */
+    private static final String MOVING_SUFFIX = ".moving";
+
+    /**
+     * State of a claim.
+     */
+    private enum State {
+        /**
+         * Claimed for processing until the lease expires.
+         */
+        LEASED,
+        /**
+         * Processed and committed by its owner.
+         */
+        DONE
+    }
+
+    /**
+     * Directory shared by all the instances of the cluster.
+     */
+    private final Path claimDir;
+    /**
+     * Prefix identifying the remote directory, the same on every instance.
+     */
+    private final String keyPrefix;
+    /**
+     * Id of this instance written into its claims.
+     */
+    private final String instanceId;
+    /**
+     * Time in ms after which a claim still leased can be taken over.
+     */
+    private final long leaseMillis;
+    /**
+     * Time in ms the committed claims are kept.
+     */
+    private final long retentionMillis;
+    /**
+     * Current time of the leases.
+     */
+    private final Clock clock;
+    /**
+     * Time in ms of the next sweep of the expired claims.
+     */
+    private volatile long nextSweep;
+
+    /**
+     * Constructor.
+     *
+     * @param claimDir   directory shared by all the instances of the cluster
+     * @param keyPrefix  prefix identifying the remote directory
+     * @param instanceId id of this instance, stable across restarts
+     * @param lease      time after which a claim still leased can be taken over
+     * @param retention  time the committed claims are kept
+     */
+    public SharedClaimFileListFilter(Path claimDir, String keyPrefix, String instanceId, Duration lease,
+                                     Duration retention) {
+        this(claimDir, keyPrefix, instanceId, lease, retention, Clock.systemUTC());
+    }
+
+    SharedClaimFileListFilter(Path claimDir, String keyPrefix, String instanceId, Duration lease,
+                              Duration retention, Clock clock) {
+        this.claimDir = claimDir;
+        this.keyPrefix = keyPrefix;
+        this.instanceId = instanceId;
+        this.leaseMillis = lease.toMillis();
+        this.retentionMillis = retention.toMillis();
+        this.clock = clock;
+        try {
+            Files.createDirectories(claimDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create claim directory " + claimDir, e);
+        }
+    }
+
+    @Override
+    public List<SftpClient.DirEntry> filterFiles(SftpClient.DirEntry[] files) {
+        if (clock.millis() >= nextSweep) {
+            nextSweep = clock.millis() + leaseMillis;
+            sweep();
+        }
+        List<SftpClient.DirEntry> accepted = new ArrayList<>();
+        for (SftpClient.DirEntry file : files) {
+            if (accept(file)) {
+                accepted.add(file);
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Claim a remote file for this instance.
+     *
+     * @param file remote file
+     * @return true if the file was claimed now, taken over or already leased by this instance
+     */
+    @Override
+    public boolean accept(SftpClient.DirEntry file) {
+        Path path = claimPath(file.getFilename());
+        long modified = file.getAttributes().getModifyTime().toMillis();
+        Claim leased = new Claim(instanceId, modified, State.LEASED, clock.millis());
+        try {
+            for (int attempt = 0; attempt < 3; attempt++) {
+                try {
+                    Files.writeString(path, leased.format(), StandardCharsets.UTF_8, StandardOpenOption.CREATE_NEW);
+                    return true;
+                } catch (FileAlreadyExistsException e) {
+                    // claimed already, check its owner and lease
+                }
+                String content = read(path);
+                if (content == null) {
+                    continue;
+                }
+                Claim claim = Claim.parse(content);
+                if (claim == null) {
+                    //being written, or left over by an older version once expired
+                    if (!isOlderThanLease(path)) {
+                        return false;
+                    }
+                } else if (claim.modified() == modified) {
+                    if (claim.state() == State.DONE) {
+                        return false;
+                    }
+                    if (claim.owner().equals(instanceId)) {
+                        replace(path, leased);
+                        return true;
+                    }
+                    if (!isExpired(claim)) {
+                        return false;
+                    }
+                    LOG.warn("Taking over remote file {} whose lease by {} expired", file.getFilename(),
+                            claim.owner());
+                }
+                if (!removeIfUnchanged(path, content)) {
+                    return false;
+                }
+            }
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not claim remote file " + file.getFilename(), e);
+        }
+    }
+
+    @Override
+    public boolean supportsSingleFileFiltering() {
+        return true;
+    }
+
+    /**
+     * Release the claims of a file and of the files following it, so any instance can claim them.
+     *
+     * @param file  first file to release
+     * @param files files accepted by the last filtering
+     */
+    @Override
+    public void rollback(SftpClient.DirEntry file, List<SftpClient.DirEntry> files) {
+        boolean rollingBack = false;
+        for (SftpClient.DirEntry fileToRollback : files) {
+            if (fileToRollback.equals(file)) {
+                rollingBack = true;
+            }
+            if (rollingBack) {
+                remove(fileToRollback);
+            }
+        }
+    }
+
+    /**
+     * Release the claim of a file if owned by this instance.
+     *
+     * @param file remote file
+     * @return true if the claim was released
+     */
+    @Override
+    public boolean remove(SftpClient.DirEntry file) {
+        return release(file.getFilename());
+    }
+
+    /**
+     * Keep the claim of a processed file without lease, so no other instance processes it again.
+     *
+     * @param fileName remote file name, relative to the remote directory
+     * @return true if the claim was owned by this instance
+     */
+    public boolean commit(String fileName) {
+        Path path = claimPath(fileName);
+        try {
+            String content = read(path);
+            Claim claim = content == null ? null : Claim.parse(content);
+            if (claim == null || !claim.owner().equals(instanceId)) {
+                return false;
+            }
+            replace(path, new Claim(instanceId, claim.modified(), State.DONE, clock.millis()));
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not commit remote file " + fileName, e);
+        }
+    }
+
+    /**
+     * Release the claim of a rolled back or archived file if owned by this instance.
+     *
+     * @param fileName remote file name, relative to the remote directory
+     * @return true if the claim was released
+     */
+    public boolean release(String fileName) {
+        Path path = claimPath(fileName);
+        try {
+            String content = read(path);
+            Claim claim = content == null ? null : Claim.parse(content);
+            if (claim == null || !claim.owner().equals(instanceId)) {
+                return false;
+            }
+            return removeIfUnchanged(path, content);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not release remote file " + fileName, e);
+        }
+    }
+
+    /**
+     * Remove the expired leases, the committed claims past their retention and the left over files.
+     */
+    private void sweep() {
+        int removed = 0;
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(claimDir)) {
+            for (Path path : paths) {
+                try {
+                    if (path.getFileName().toString().endsWith(MOVING_SUFFIX)) {
+                        if (isOlderThanLease(path) && Files.deleteIfExists(path)) {
+                            removed++;
+                        }
+                        continue;
+                    }
+                    String content = read(path);
+                    if (content != null && isStale(path, Claim.parse(content)) && removeIfUnchanged(path, content)) {
+                        removed++;
+                    }
+                } catch (IOException e) {
+                    LOG.warn("Could not sweep claim {}: {}", path, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            LOG.warn("Could not sweep claim directory {}: {}", claimDir, e.getMessage());
+        }
+        if (removed > 0) {
+            LOG.info("Swept {} expired claims from {}", removed, claimDir);
+        }
+    }
+
+    private boolean isStale(Path path, Claim claim) throws IOException {
+        if (claim == null) {
+            return isOlderThanLease(path);
+        }
+        if (claim.state() == State.DONE) {
+            return clock.millis() - claim.timestamp() > retentionMillis;
+        }
+        return isExpired(claim);
+    }
+
+    private boolean isExpired(Claim claim) {
+        return clock.millis() - claim.timestamp() > leaseMillis;
+    }
+
+    private boolean isOlderThanLease(Path path) throws IOException {
+        try {
+            return clock.millis() - Files.getLastModifiedTime(path).toMillis() > leaseMillis;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Replace a claim owned by this instance at once, so other instances never read it partially written.
+     */
+    private void replace(Path path, Claim claim) throws IOException {
+        Path moving = path.resolveSibling(path.getFileName() + "." + instanceId + MOVING_SUFFIX);
+        Files.writeString(moving, claim.format(), StandardCharsets.UTF_8);
+        Files.move(moving, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Remove a claim unless it changed since it was read, e.g. taken over or renewed by another instance.
+     * The claim is first renamed, which only one instance can do, then checked and deleted or put back.
+     *
+     * @param path    claim file
+     * @param content claim content as read
+     * @return true if the claim no longer exists
+     */
+    private boolean removeIfUnchanged(Path path, String content) throws IOException {
+        Path moving = path.resolveSibling(path.getFileName() + "." + instanceId + MOVING_SUFFIX);
+        try {
+            Files.move(path, moving, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return true;
+        }
+        if (content.equals(Files.readString(moving, StandardCharsets.UTF_8))) {
+            Files.delete(moving);
+            return true;
+        }
+        try {
+            Files.move(moving, path);
+        } catch (FileAlreadyExistsException e) {
+            Files.delete(moving);
+        }
+        return false;
+    }
+
+    private static String read(Path path) throws IOException {
+        try {
+            return Files.readString(path, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Claim file location, named by a digest of the remote path so any remote name maps to a valid
+     * local file name.
+     */
+    private Path claimPath(String fileName) {
+        String key = keyPrefix + fileName;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return claimDir.resolve(HexFormat.of().formatHex(digest));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Content of a claim file.
+     *
+     * @param owner     id of the owning instance
+     * @param modified  remote modification time in ms of the claimed version
+     * @param state     leased or committed
+     * @param timestamp time in ms the lease started or the file was committed
+     */
+    private record Claim(String owner, long modified, State state, long timestamp) {
+
+        private String format() {
+            return owner + SEPARATOR + modified + SEPARATOR + state + SEPARATOR + timestamp;
+        }
+
+        private static Claim parse(String content) {
+            String[] fields = content.split(String.valueOf(SEPARATOR), -1);
+            if (fields.length != 4) {
+                return null;
+            }
+            try {
+                return new Claim(fields[0], Long.parseLong(fields[1]), State.valueOf(fields[2]),
+                        Long.parseLong(fields[3]));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+}
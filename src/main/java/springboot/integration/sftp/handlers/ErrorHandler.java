@@ -8,9 +8,12 @@ import org.springframework.messaging.MessageHandler;
 import org.springframework.messaging.MessagingException;
 import org.springframework.messaging.support.ErrorMessage;
 import springboot.integration.sftp.ApplicationHealthIndicator;
+import springboot.integration.sftp.pollers.Backpressure;
 
 /**
  * Handle processing errors and send them to health check.
+ * The failed file is released from the files in flight, as a file failing before its handler,
+ * e.g. rejected by the worker executor, has no transaction to release it.
  */
 public class ErrorHandler implements MessageHandler {
 
@@ -21,6 +24,11 @@ public class ErrorHandler implements MessageHandler {
      */
     @Autowired
     private ApplicationHealthIndicator healthIndicator;
+    /**
+     * Backpressure counting the files in flight.
+     */
+    @Autowired
+    private Backpressure backpressure;
 
     /**
      * Handle incoming error message.
@@ -30,6 +38,10 @@ public class ErrorHandler implements MessageHandler {
     @Override
     public void handleMessage(Message<?> message) throws MessagingException {
         if (message instanceof ErrorMessage errorMessage) {
+            if (errorMessage.getPayload() instanceof MessagingException failure
+                    && failure.getFailedMessage() != null) {
+                backpressure.release(failure.getFailedMessage());
+            }
             healthIndicator.error(errorMessage.getPayload().getMessage());
         } else if (message instanceof MessagingException messagingException) {
             healthIndicator.error(messagingException.getMostSpecificCause().getMessage());
@@ -0,0 +1,484 @@
+package springboot.integration.sftp.handlers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.integration.file.FileHeaders;
+import org.springframework.integration.file.filters.ResettableFileListFilter;
+import org.springframework.integration.transaction.IntegrationResourceHolder;
+import org.springframework.integration.transaction.TransactionSynchronizationProcessor;
+import org.springframework.messaging.Message;
+import springboot.integration.sftp.filters.RemoteAcceptOnceFileListFilter;
+import springboot.integration.sftp.filters.SharedClaimFileListFilter;
+import springboot.integration.sftp.pollers.Backpressure;
+import springboot.integration.sftp.synchronizers.RemoteArchiver;
+import springboot.integration.sftp.utils.TransactionManagerOps;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Commit and rollback actions of the received files.
+ * A committed file first publishes the deferred side effects of its processing, such as its results,
+ * then it is deleted locally, released by the local accept-once filter and recorded as a success.
+ * A file whose side effects can not be published is rolled back instead.
+ * A rolled back file is released by the accept-once filter to be retried on the next poll and recorded
+ * as an error. In streaming mode there is no local file, the remote file is forgotten instead.
+ * In batch mode the files of a poll form one unit of work: the commit actions are deferred and applied
+ * together once the batch size is reached or the poll ends, by its empty receive or by an exception
+ * thrown while handling a file.
+ * A failed file is always rolled back at once, the failure policy decides whether the other files of its
+ * batch are still committed or rolled back with it.
+ * Committed remote files can be archived or deleted, the files of a poll together once it ends.
+ * They are queued and archived outside the batch lock by a single draining thread at a time, so the
+ * concurrent workers do not wait for the SFTP round trips of each other.
+ * In cluster mode the claim of a committed file is kept as processed until the file is archived,
+ * the claim of a rolled back file is released so any instance can retry it: its staged copy is dropped
+ * and the remote file forgotten. Either way the remote file is then settled, so the listing watermark
+ * never moves over a file which may still be rolled back.
+ * The outcomes are recorded under the source name, as the handler does.
+ * Each committed or rolled back file is released from the backpressure files in flight.
+ */
+public class FileTransactionCallbacks implements TransactionSynchronizationProcessor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileTransactionCallbacks.class);
+
+    /**
+     * Handling of the other files of a batch when one of them fails.
+     */
+    public enum FailurePolicy {
+        /**
+         * Only the failed file is rolled back, the other files are committed.
+         */
+        FILE,
+        /**
+         * The whole batch is rolled back and retried, including the files processed successfully.
+         */
+        BATCH
+    }
+
+    /**
+     * Source name qualifying the recorded files.
+     */
+    private final String source;
+    /**
+     * Local accept-once filter.
+     */
+    private final ResettableFileListFilter<File> localFilter;
+    /**
+     * Remote accept-once filter.
+     */
+    private final RemoteAcceptOnceFileListFilter remoteFilter;
+    /**
+     * Recorder of the file outcomes.
+     */
+    private final TransactionManagerOps managerOps;
+    /**
+     * Streaming mode, the files are not staged locally.
+     */
+    private final boolean streaming;
+    /**
+     * Maximum files of a batch, 1 to commit each file on its own.
+     */
+    private int batchSize = 1;
+    /**
+     * Handling of the other files of a batch when one of them fails.
+     */
+    private FailurePolicy failurePolicy = FailurePolicy.FILE;
+    /**
+     * Committed files waiting for the end of the batch.
+     */
+    private final List<Message<?>> pending = new ArrayList<>();
+    /**
+     * Files received by the current batch, committed or rolled back.
+     */
+    private int received;
+    /**
+     * A file of the current batch was rolled back.
+     */
+    private boolean failed;
+    /**
+     * Archiver of the committed remote files, null to leave them in place.
+     */
+    private RemoteArchiver archiver;
+    /**
+     * Backpressure counting the files in flight, null if not counted.
+     */
+    private Backpressure backpressure;
+    /**
+     * Cluster claims of the remote files, null outside cluster mode.
+     */
+    private SharedClaimFileListFilter claims;
+    /**
+     * Remote name of a local file.
+     */
+    private UnaryOperator<String> remoteNames = UnaryOperator.identity();
+    /**
+     * Settles the committed and rolled back remote files in cluster mode.
+     */
+    private Consumer<String> settled = fileName -> {
+    };
+    /**
+     * Maximum committed remote files archived together.
+     */
+    private int archiveBatchSize = 1;
+    /**
+     * Committed remote files waiting to be archived.
+     */
+    private final BlockingQueue<String> archiving = new LinkedBlockingQueue<>();
+    /**
+     * A thread is archiving the queued remote files.
+     */
+    private final AtomicBoolean draining = new AtomicBoolean();
+    /**
+     * Guards the batch state, only held to add a file or take the files of a batch: the files are
+     * published, deleted and archived outside it.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Constructor.
+     *
+     * @param source       source name qualifying the recorded files
+     * @param localFilter  local accept-once filter
+     * @param remoteFilter remote accept-once filter
+     * @param managerOps   recorder of the file outcomes
+     * @param streaming    streaming mode
+     */
+    public FileTransactionCallbacks(String source, ResettableFileListFilter<File> localFilter,
+                                    RemoteAcceptOnceFileListFilter remoteFilter,
+                                    TransactionManagerOps managerOps, boolean streaming) {
+        this.source = source;
+        this.localFilter = localFilter;
+        this.remoteFilter = remoteFilter;
+        this.managerOps = managerOps;
+        this.streaming = streaming;
+    }
+
+    /**
+     * Enable the batch mode.
+     *
+     * @param batchSize     maximum files of a batch, usually the maximum messages per poll
+     * @param failurePolicy handling of the other files of a batch when one of them fails
+     * @throws IllegalArgumentException if the batch size is not positive, an unbounded poll has no batch end
+     */
+    public void setBatch(int batchSize, FailurePolicy failurePolicy) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive, got " + batchSize
+                    + ": set sftp-max-messages-per-poll or disable sftp-transaction-batch-enabled");
+        }
+        this.batchSize = batchSize;
+        this.failurePolicy = failurePolicy;
+    }
+
+    /**
+     * Archive or delete the committed remote files.
+     *
+     * @param archiver         archiver of the committed remote files
+     * @param remoteNames      remote name of a local file, unused in streaming mode
+     * @param archiveBatchSize queued files starting an archive before the poll ends, usually the maximum
+     *                         messages per poll
+     */
+    public void setArchiver(RemoteArchiver archiver, UnaryOperator<String> remoteNames, int archiveBatchSize) {
+        this.archiver = archiver;
+        this.remoteNames = remoteNames;
+        this.archiveBatchSize = Math.max(1, archiveBatchSize);
+    }
+
+    /**
+     * Release the committed and rolled back files from the files in flight.
+     *
+     * @param backpressure backpressure counting the files in flight
+     */
+    public void setBackpressure(Backpressure backpressure) {
+        this.backpressure = backpressure;
+    }
+
+    /**
+     * Commit and release the cluster claims of the remote files.
+     *
+     * @param claims      cluster claims of the remote files
+     * @param remoteNames remote name of a local file, unused in streaming mode
+     * @param settled     settles a remote file once its claim is committed or released
+     */
+    public void setClaims(SharedClaimFileListFilter claims, UnaryOperator<String> remoteNames,
+                          Consumer<String> settled) {
+        this.claims = claims;
+        this.remoteNames = remoteNames;
+        this.settled = settled;
+    }
+
+    @Override
+    public void processBeforeCommit(IntegrationResourceHolder holder) {
+    }
+
+    /**
+     * Commit a file, or defer it to the end of the batch.
+     *
+     * @param holder transaction resources, without message for the receive ending a poll
+     */
+    @Override
+    public void processAfterCommit(IntegrationResourceHolder holder) {
+        Message<?> message = holder.getMessage();
+        if (message == null) {
+            flush();
+            return;
+        }
+        release(message);
+        if (batchSize == 1) {
+            commit(List.of(message));
+        } else {
+            apply(add(message, false));
+        }
+        drainArchiving(false);
+    }
+
+    /**
+     * Roll back a file, and its batch according to the failure policy.
+     *
+     * @param holder transaction resources, without message for the receive ending a poll
+     */
+    @Override
+    public void processAfterRollback(IntegrationResourceHolder holder) {
+        Message<?> message = holder.getMessage();
+        if (message == null) {
+            flush();
+            return;
+        }
+        release(message);
+        rollback(message);
+        if (batchSize > 1) {
+            apply(add(message, true));
+        }
+        drainArchiving(false);
+    }
+
+    /**
+     * Apply the deferred actions of the current batch, then archive the committed remote files.
+     * Called by the empty receive ending a poll and once the poll ends whatever its outcome.
+     */
+    public void flush() {
+        if (batchSize > 1) {
+            Batch batch;
+            lock.lock();
+            try {
+                batch = drain();
+            } finally {
+                lock.unlock();
+            }
+            apply(batch);
+        }
+        drainArchiving(true);
+    }
+
+    /**
+     * Add a file to the current batch.
+     *
+     * @param message committed or rolled back file
+     * @param failed  true if the file was rolled back
+     * @return the batch to apply once it reached the batch size, null otherwise
+     */
+    private Batch add(Message<?> message, boolean failed) {
+        lock.lock();
+        try {
+            if (failed) {
+                this.failed = true;
+            } else {
+                pending.add(message);
+            }
+            return ++received >= batchSize ? drain() : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Take the files of the current batch and start the next one, called with the lock held.
+     */
+    private Batch drain() {
+        Batch batch = new Batch(List.copyOf(pending), failed);
+        pending.clear();
+        received = 0;
+        failed = false;
+        return batch;
+    }
+
+    /**
+     * Commit or roll back the files of a batch, outside the lock.
+     */
+    private void apply(Batch batch) {
+        if (batch == null) {
+            return;
+        }
+        if (batch.failed() && failurePolicy == FailurePolicy.BATCH) {
+            if (!batch.pending().isEmpty()) {
+                LOG.warn("Rolling back {} processed files of a failed batch", batch.pending().size());
+            }
+            batch.pending().forEach(this::rollback);
+        } else if (!batch.pending().isEmpty()) {
+            commit(batch.pending());
+        }
+    }
+
+    /**
+     * Publish the side effects of the files, delete the local files and record their success,
+     * then queue their remote files for archiving.
+     */
+    private void commit(List<Message<?>> messages) {
+        List<String> names = new ArrayList<>(messages.size());
+        List<String> keys = new ArrayList<>(messages.size());
+        for (Message<?> message : messages) {
+            if (!publish(message)) {
+                continue;
+            }
+            keys.add(key(message));
+            //resolved before the delete, the synchronizer forgets the remote names of deleted files
+            if (claims != null || archiver != null) {
+                names.add(remoteName(message));
+            }
+            if (!streaming) {
+                File file = (File) message.getPayload();
+                try {
+                    Files.deleteIfExists(file.toPath());
+                } catch (IOException e) {
+                    LOG.warn("Could not delete processed file {}: {}", file, e.getMessage());
+                }
+                localFilter.remove(file);
+            }
+        }
+        managerOps.success(keys);
+        if (claims != null) {
+            names.forEach(claims::commit);
+            names.forEach(settled);
+        }
+        if (archiver != null) {
+            archiving.addAll(names);
+        }
+    }
+
+    /**
+     * Archive the queued remote files outside the lock, once the archive batch size is reached or
+     * all of them. A single thread drains the queue at a time, the others only queue their files:
+     * the files committed meanwhile by the concurrent workers are archived together by its next round.
+     *
+     * @param all archive all the queued files, at the end of a poll
+     */
+    private void drainArchiving(boolean all) {
+        while (archiver != null && (all ? !archiving.isEmpty() : archiving.size() >= archiveBatchSize)
+                && draining.compareAndSet(false, true)) {
+            try {
+                List<String> batch = new ArrayList<>();
+                while (archiving.drainTo(batch) > 0) {
+                    archive(batch);
+                    batch.clear();
+                }
+            } finally {
+                draining.set(false);
+            }
+        }
+    }
+
+    /**
+     * Archive remote files over one session.
+     * The archived files are forgotten by the remote filter and their claims released,
+     * as they are no longer listed.
+     */
+    private void archive(List<String> fileNames) {
+        List<String> archived = archiver.archive(List.copyOf(fileNames));
+        archived.forEach(remoteFilter::forget);
+        if (claims != null) {
+            archived.forEach(claims::release);
+        }
+    }
+
+    /**
+     * Publish the deferred side effects of a file, rolled back if they fail.
+     *
+     * @return true if published
+     */
+    private boolean publish(Message<?> message) {
+        String key = key(message);
+        try {
+            managerOps.publish(key);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Could not publish the processing of {}, rolling it back: {}", key, e.getMessage());
+            rollback(message);
+            return false;
+        }
+    }
+
+    /**
+     * Release a file to retry it on the next poll and record its error.
+     * In cluster mode the remote file is released for any instance, its staged copy is dropped.
+     */
+    private void rollback(Message<?> message) {
+        if (streaming) {
+            String remoteFile = message.getHeaders().get(FileHeaders.REMOTE_FILE, String.class);
+            remoteFilter.forget(remoteFile);
+            if (claims != null) {
+                claims.release(remoteFile);
+                settled.accept(remoteFile);
+            }
+            managerOps.error(key(message));
+            return;
+        }
+        File file = (File) message.getPayload();
+        if (claims != null) {
+            String remoteFile = remoteName(message);
+            try {
+                Files.deleteIfExists(file.toPath());
+            } catch (IOException e) {
+                LOG.warn("Could not delete rolled back file {}: {}", file, e.getMessage());
+            }
+            remoteFilter.forget(remoteFile);
+            claims.release(remoteFile);
+            settled.accept(remoteFile);
+        }
+        localFilter.remove(file);
+        managerOps.error(key(message));
+    }
+
+    /**
+     * Release a file from the files in flight, once it is no longer processed.
+     */
+    private void release(Message<?> message) {
+        if (backpressure != null) {
+            backpressure.release(message);
+        }
+    }
+
+    /**
+     * Remote name of a file, relative to the remote directory.
+     */
+    private String remoteName(Message<?> message) {
+        return streaming ? message.getHeaders().get(FileHeaders.REMOTE_FILE, String.class)
+                : remoteNames.apply(((File) message.getPayload()).getName());
+    }
+
+    /**
+     * Key of a file recorded by the transaction manager, the remote file name in streaming mode.
+     */
+    private String key(Message<?> message) {
+        String name = streaming ? message.getHeaders().get(FileHeaders.REMOTE_FILE, String.class)
+                : ((File) message.getPayload()).getName();
+        return TransactionManagerOps.key(source, name);
+    }
+
+    /**
+     * Files of a batch taken from the batch state.
+     *
+     * @param pending committed files waiting for the end of the batch
+     * @param failed  a file of the batch was rolled back
+     */
+    private record Batch(List<Message<?>> pending, boolean failed) {
+    }
+}
@@ -1,20 +1,50 @@
 package springboot.integration.sftp.handlers;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.integration.file.FileHeaders;
+import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageHandler;
 import org.springframework.messaging.MessagingException;
 import org.springframework.stereotype.Component;
 import springboot.integration.sftp.ApplicationHealthIndicator;
-import springboot.integration.sftp.processors.PrimeNumberProcessor;
-import springboot.integration.sftp.processors.Processor;
+import springboot.integration.sftp.ApplicationProperties;
+import springboot.integration.sftp.metadata.ContentDigestIndex;
+import springboot.integration.sftp.metrics.PipelineMetrics;
+import springboot.integration.sftp.parsers.Decompression;
+import springboot.integration.sftp.parsers.NumberParser;
+import springboot.integration.sftp.parsers.ParallelNumberParser;
+import springboot.integration.sftp.processors.ProcessorPipeline;
+import springboot.integration.sftp.processors.ProcessorRegistry;
+import springboot.integration.sftp.sinks.FileSummary;
+import springboot.integration.sftp.sinks.NoopResultSink;
+import springboot.integration.sftp.sinks.ResultSink;
+import springboot.integration.sftp.sinks.ResultSinkProcessor;
+import springboot.integration.sftp.sinks.ResultWriter;
+import springboot.integration.sftp.utils.FileCompletion;
+import springboot.integration.sftp.utils.TransactionManagerOps;
 
+import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 /**
@@ -30,26 +60,328 @@ public class ReceivedFilesHandler implements MessageHandler {
      */
     @Autowired
     private ApplicationHealthIndicator healthIndicator;
+    /**
+     * Transaction manager helper recording the file outcomes.
+     */
+    @Autowired
+    private TransactionManagerOps managerOps;
+    /**
+     * ApplicationProperties for the processing options.
+     */
+    @Autowired
+    private ApplicationProperties applicationProperties;
+    /**
+     * Meters of each pipeline stage.
+     */
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+    /**
+     * Destination of the per-file results, resolved lazily since it may need the SFTP sessions.
+     */
+    @Autowired
+    private ObjectProvider<ResultSink> resultSinks;
+    /**
+     * Processor pipelines selected by file name or source.
+     */
+    @Autowired
+    private ProcessorRegistry processors;
+    /**
+     * Digests of the already processed contents.
+     */
+    @Autowired
+    private ContentDigestIndex digestIndex;
+    /**
+     * Idle byte parsers, shared by the processing threads so that virtual threads do not each
+     * allocate a buffer. The pool grows up to the number of files processed at once.
+     */
+    private final Queue<NumberParser> parsers = new ConcurrentLinkedQueue<>();
+    /**
+     * Parser splitting a file into ranges processed in parallel, only in parallel mode.
+     */
+    private ParallelNumberParser parallelParser;
+
+    /**
+     * Start the parallel parser pool if needed.
+     */
+    @PostConstruct
+    public void init() {
+        if ("parallel".equals(applicationProperties.getSftpParser())) {
+            parallelParser = new ParallelNumberParser(applicationProperties.getSftpParallelThreads(),
+                    applicationProperties.getSftpParallelRangeSize());
+        }
+    }
+
+    /**
+     * Stop the parallel parser pool.
+     */
+    @PreDestroy
+    public void destroy() {
+        if (parallelParser != null) {
+            parallelParser.close();
+        }
+    }
 
     /**
      * Handle incoming file message.
+     * The payload is either a local file or a remote file stream in streaming mode.
      *
      * @param message file message
      * @throws MessagingException Exception thrown in case of any problems
      */
     @Override
     public void handleMessage(Message<?> message) throws MessagingException {
+        if (message.getPayload() instanceof InputStream inputStream) {
+            handleStream(message, inputStream);
+            return;
+        }
         File inFile = new File(String.valueOf(message.getPayload()));
         LOG.info("Received file: {}", inFile.getName());
-        Processor<String, Boolean> processor = new PrimeNumberProcessor();
-        try (Stream<String> filesStream = Files.lines(
-                Paths.get(inFile.getAbsolutePath()), StandardCharsets.UTF_8)) {
+        Path file = Paths.get(inFile.getAbsolutePath());
+        process(message, inFile.getName(), file, processor -> processFile(file, processor));
+    }
 
-            filesStream.forEach(processor::process);
-            healthIndicator.success();
+    /**
+     * Handle a remote file stream, decompressed while being read if gzip compressed.
+     * The remote session is released back to the pool once the stream is consumed.
+     *
+     * @param message     stream message
+     * @param inputStream remote file stream
+     */
+    private void handleStream(Message<?> message, InputStream inputStream) {
+        String fileName = message.getHeaders().get(FileHeaders.REMOTE_FILE, String.class);
+        LOG.info("Received remote file: {}", fileName);
+        Closeable session = message.getHeaders()
+                .get(IntegrationMessageHeaderAccessor.CLOSEABLE_RESOURCE, Closeable.class);
+        try {
+            process(message, fileName, null, processor -> {
+                try (inputStream; InputStream in = Decompression.decompressing(inputStream, fileName)) {
+                    return processStream(in, processor);
+                }
+            });
+        } finally {
+            closeSession(session);
+        }
+    }
 
+    /**
+     * Process a file through the pipeline selected for it and stage its results and summary.
+     * The results are published once the file commits, and dropped if the processing fails
+     * or the file is rolled back.
+     * A local file whose content was already processed by the same pipeline is skipped when
+     * the deduplication is enabled, and committed as already processed. The content digest is taken
+     * from the download when present, and recorded once the file commits.
+     * The processing meters and the health success are also recorded once the file commits, so a file
+     * rolled back with its batch is not counted as processed.
+     * The outcome of the file is recorded under its source name, so the same file name
+     * received from two sources is tracked separately.
+     *
+     * @param message  file message
+     * @param fileName file name
+     * @param file     local file, null in streaming mode
+     * @param reader   reads the file content into the processor
+     */
+    private void process(Message<?> message, String fileName, @Nullable Path file, FileReader reader) {
+        String source = message.getHeaders().get(ProcessorRegistry.SOURCE_HEADER, String.class);
+        if (source == null) {
+            source = ProcessorRegistry.DEFAULT_SOURCE;
+        }
+        String key = TransactionManagerOps.key(source, fileName);
+        managerOps.begin(key);
+        ResultWriter writer = null;
+        try {
+            ProcessorPipeline pipeline = processors.select(source, fileName);
+            String digest = file != null && digestIndex.isEnabled()
+                    ? pipeline.getName() + '/' + contentDigest(message, file) : null;
+            if (digest != null && skipDuplicate(key, file, digest)) {
+                return;
+            }
+            long started = System.nanoTime();
+            writer = resultSinks.getIfAvailable(NoopResultSink::new).open(source, fileName);
+            ResultSinkProcessor processor = new ResultSinkProcessor(pipeline, writer);
+            long lines = reader.read(processor);
+            long elapsed = System.nanoTime() - started;
+            managerOps.onCompletion(key, publishing(writer, new FileSummary(fileName, lines,
+                    processor.getMatches(), TimeUnit.NANOSECONDS.toMillis(elapsed))));
+            writer = null;
+            managerOps.lines(key, lines);
+            if (digest != null) {
+                ContentDigestIndex.Entry entry = new ContentDigestIndex.Entry(lines, elapsed);
+                managerOps.onCompletion(key, () -> digestIndex.putIfAbsent(digest, entry));
+            }
+            String meterSource = source;
+            long matches = processor.getMatches();
+            managerOps.onCompletion(key, () -> {
+                pipelineMetrics.processed(meterSource, lines, matches, elapsed);
+                healthIndicator.success();
+            });
         } catch (Exception e) {
+            if (writer != null) {
+                writer.abort();
+            }
             throw new MessagingException(message, "Got processing error: " + e.getMessage());
         }
     }
+
+    /**
+     * Publish the staged results once the file commits.
+     *
+     * @param writer  staged results
+     * @param summary file summary
+     * @return FileCompletion
+     */
+    private static FileCompletion publishing(ResultWriter writer, FileSummary summary) {
+        return new FileCompletion() {
+            @Override
+            public void commit() throws IOException {
+                writer.commit(summary);
+            }
+
+            @Override
+            public void rollback() {
+                writer.abort();
+            }
+        };
+    }
+
+    /**
+     * Content digest of a local file, computed by its download or read from the file if staged otherwise.
+     *
+     * @param message file message
+     * @param file    local file
+     * @return digest in hex
+     * @throws IOException in case of read errors
+     */
+    private static String contentDigest(Message<?> message, Path file) throws IOException {
+        String digest = message.getHeaders().get(ContentDigestIndex.DIGEST_HEADER, String.class);
+        return digest != null ? digest : ContentDigestIndex.digest(file);
+    }
+
+    /**
+     * Skip a file whose content was already processed.
+     *
+     * @param key    file key, qualified by its source
+     * @param file   local file
+     * @param digest content digest keyed by pipeline
+     * @return true if skipped
+     * @throws IOException in case of read errors
+     */
+    private boolean skipDuplicate(String key, Path file, String digest) throws IOException {
+        ContentDigestIndex.Entry processed = digestIndex.get(digest);
+        if (processed == null) {
+            return false;
+        }
+        LOG.info("Skipping file {}: same content already processed", key);
+        long bytes = Files.size(file);
+        managerOps.lines(key, processed.lines());
+        managerOps.onCompletion(key, () -> {
+            pipelineMetrics.deduplicated(bytes, processed.nanos());
+            healthIndicator.success();
+        });
+        return true;
+    }
+
+    /**
+     * Process a local file, memory mapped when parsing bytes or in parallel mode.
+     * Gzip files are decompressed while being read.
+     *
+     * @param file      local file
+     * @param processor line processor
+     * @return number of processed lines
+     * @throws IOException in case of read errors
+     */
+    private long processFile(Path file, ResultSinkProcessor processor) throws IOException {
+        if (Decompression.isCompressed(file)) {
+            try (InputStream in = Decompression.open(file)) {
+                return processStream(in, processor);
+            }
+        }
+        if (parallelParser != null) {
+            return parallelParser.parse(file, processor).lines();
+        }
+        if (isBytesParser()) {
+            NumberParser parser = borrowParser();
+            try {
+                return parser.parse(file, processor::processNumber);
+            } finally {
+                parsers.offer(parser);
+            }
+        }
+        try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            return process(lines, processor);
+        }
+    }
+
+    /**
+     * Process a file stream, the parallel mode falls back to parsing bytes.
+     *
+     * @param inputStream file stream, already decompressed
+     * @param processor   line processor
+     * @return number of processed lines
+     * @throws IOException in case of read errors
+     */
+    private long processStream(InputStream inputStream, ResultSinkProcessor processor) throws IOException {
+        if (isBytesParser()) {
+            NumberParser parser = borrowParser();
+            try {
+                return parser.parse(Channels.newChannel(inputStream), processor::processNumber);
+            } finally {
+                parsers.offer(parser);
+            }
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        return process(reader.lines(), processor);
+    }
+
+    /**
+     * Idle byte parser, a new one if all are in use. Return it to the pool once the file is parsed.
+     */
+    private NumberParser borrowParser() {
+        NumberParser parser = parsers.poll();
+        return parser != null ? parser : new NumberParser();
+    }
+
+    private boolean isBytesParser() {
+        return !"lines".equals(applicationProperties.getSftpParser());
+    }
+
+    /**
+     * Apply the processor to each line.
+     *
+     * @param lines     file lines
+     * @param processor line processor
+     * @return number of processed lines
+     */
+    private long process(Stream<String> lines, ResultSinkProcessor processor) {
+        long count = 0;
+        Iterator<String> iterator = lines.iterator();
+        while (iterator.hasNext()) {
+            processor.process(iterator.next());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Release the remote session.
+     *
+     * @param session remote session, null if not present
+     */
+    private void closeSession(Closeable session) {
+        if (session == null) {
+            return;
+        }
+        try {
+            session.close();
+        } catch (IOException e) {
+            LOG.warn("Could not release remote session: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a file content into a processor.
+     */
+    @FunctionalInterface
+    private interface FileReader {
+        long read(ResultSinkProcessor processor) throws IOException;
+    }
 }
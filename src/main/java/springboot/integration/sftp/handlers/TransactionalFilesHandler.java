@@ -0,0 +1,74 @@
+package springboot.integration.sftp.handlers;
+
+import org.springframework.integration.transaction.IntegrationResourceHolder;
+import org.springframework.integration.transaction.TransactionSynchronizationProcessor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessagingException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Run a handler inside its own logical transaction on the current thread.
+ * When files are handed off to worker threads the poller transaction ends at hand-off,
+ * so the commit and rollback logic is applied here per file once processing is done.
+ */
+public class TransactionalFilesHandler implements MessageHandler {
+    /**
+     * Handler doing the actual processing.
+     */
+    private final MessageHandler delegate;
+    /**
+     * Template bound to the logical transaction manager.
+     */
+    private final TransactionTemplate transactionTemplate;
+    /**
+     * Same commit and rollback logic used by the poller.
+     */
+    private final TransactionSynchronizationProcessor syncProcessor;
+
+    /**
+     * Constructor.
+     *
+     * @param delegate           handler doing the actual processing
+     * @param transactionManager logical transaction manager
+     * @param syncProcessor      commit and rollback logic
+     */
+    public TransactionalFilesHandler(MessageHandler delegate,
+                                     PlatformTransactionManager transactionManager,
+                                     TransactionSynchronizationProcessor syncProcessor) {
+        this.delegate = delegate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.syncProcessor = syncProcessor;
+    }
+
+    /**
+     * Handle incoming file message inside a transaction.
+     *
+     * @param message file message
+     * @throws MessagingException Exception thrown in case of any problems
+     */
+    @Override
+    public void handleMessage(Message<?> message) throws MessagingException {
+        IntegrationResourceHolder holder = new IntegrationResourceHolder();
+        holder.setMessage(message);
+        transactionTemplate.executeWithoutResult(transactionStatus -> {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    syncProcessor.processAfterCommit(holder);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        syncProcessor.processAfterRollback(holder);
+                    }
+                }
+            });
+            delegate.handleMessage(message);
+        });
+    }
+}
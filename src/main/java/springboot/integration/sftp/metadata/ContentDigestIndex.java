@@ -0,0 +1,225 @@
+package springboot.integration.sftp.metadata;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import springboot.integration.sftp.ApplicationProperties;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded index of the content digests of the processed files, persisted into an append-only log.
+ * A file re-uploaded under another name has the same digest, so its processing can be skipped.
+ * The oldest digests are evicted once the capacity is reached, also across restarts.
+ * The digest of a staged file is computed by its download and passed in the {@link #DIGEST_HEADER} header,
+ * a processed content is recorded once its file commits.
+ */
+@Component
+public class ContentDigestIndex {
+    /**
+     * Message header holding the content digest computed by the download of a staged file.
+     */
+    public static final String DIGEST_HEADER = "sftpContentDigest";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final char SEPARATOR = ':';
+
+    /**
+     * Maximum number of digests kept.
+     */
+    private final int capacity;
+    /**
+     * Persisted digests, null if disabled.
+     */
+    private final FileMetadataStore store;
+    /**
+     * Digests in insertion order, oldest first.
+     */
+    private final LinkedHashMap<String, Entry> digests = new LinkedHashMap<>();
+    /**
+     * Insertion sequence persisted with each digest to restore the eviction order.
+     */
+    private long sequence;
+    /**
+     * Guards the digests and the log, held across the log writes without pinning a virtual thread.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Constructor.
+     *
+     * @param applicationProperties deduplication options
+     */
+    @Autowired
+    public ContentDigestIndex(ApplicationProperties applicationProperties) {
+        this(applicationProperties.getSftpDedupEnabled() ? Paths.get(applicationProperties.getSftpDedupFile()) : null,
+                applicationProperties.getSftpDedupCapacity());
+    }
+
+    /**
+     * Constructor, loads the existing digests if present.
+     *
+     * @param file     log file location, null to disable the deduplication
+     * @param capacity maximum number of digests kept
+     */
+    public ContentDigestIndex(@Nullable Path file, int capacity) {
+        this.capacity = capacity;
+        this.store = file != null ? new FileMetadataStore(file) : null;
+        if (store != null) {
+            load();
+        }
+    }
+
+    /**
+     * Compute the content digest of a local file, for the files staged without a download digest.
+     *
+     * @param file local file
+     * @return SHA-256 digest in hex
+     * @throws IOException in case of read errors
+     */
+    public static String digest(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Check whether the deduplication is enabled.
+     *
+     * @return true if enabled
+     */
+    public boolean isEnabled() {
+        return store != null;
+    }
+
+    /**
+     * Retrieve the processing of an already processed content.
+     *
+     * @param digest content digest
+     * @return processing of the content, null if unknown
+     */
+    public Entry get(String digest) {
+        lock.lock();
+        try {
+            return digests.get(digest);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record a processed content unless already recorded, evicting the oldest digest once the capacity
+     * is reached. The first of several files with the same content to commit keeps its entry.
+     *
+     * @param digest content digest
+     * @param entry  processing of the content
+     * @return true if recorded
+     */
+    public boolean putIfAbsent(String digest, Entry entry) {
+        if (store == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            if (digests.putIfAbsent(digest, entry) != null) {
+                return false;
+            }
+            store.put(digest, ++sequence + String.valueOf(SEPARATOR) + entry.lines() + SEPARATOR + entry.nanos());
+            evict();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of digests kept.
+     *
+     * @return digests count
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return digests.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Close the log file.
+     */
+    @PreDestroy
+    public void close() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    /**
+     * Restore the persisted digests in insertion order and evict those beyond the capacity.
+     */
+    private void load() {
+        store.entries().entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().split(String.valueOf(SEPARATOR))))
+                .filter(entry -> entry.getValue().length == 3)
+                .sorted(Comparator.comparingLong(entry -> Long.parseLong(entry.getValue()[0])))
+                .forEach(entry -> {
+                    sequence = Long.parseLong(entry.getValue()[0]);
+                    digests.put(entry.getKey(), new Entry(Long.parseLong(entry.getValue()[1]),
+                            Long.parseLong(entry.getValue()[2])));
+                });
+        evict();
+    }
+
+    /**
+     * Evict the oldest digests beyond the capacity.
+     */
+    private void evict() {
+        while (digests.size() > capacity) {
+            String eldest = digests.keySet().iterator().next();
+            digests.remove(eldest);
+            store.remove(eldest);
+        }
+    }
+
+    /**
+     * Create a content digest.
+     *
+     * @return SHA-256 digest
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Processing of a content.
+     *
+     * @param lines processed lines
+     * @param nanos processing duration
+     */
+    public record Entry(long lines, long nanos) {
+    }
+}
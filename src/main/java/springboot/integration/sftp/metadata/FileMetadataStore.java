@@ -0,0 +1,334 @@
+package springboot.integration.sftp.metadata;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.integration.metadata.ConcurrentMetadataStore;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Metadata store persisted into a local append-only log file.
+ * Each update is appended as one line, so writes never rewrite the whole store.
+ * The log is compacted into a snapshot of the live entries once it holds too many
+ * stale records, which keeps the load time on restart proportional to the live entries.
+ */
+public class FileMetadataStore implements ConcurrentMetadataStore, Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileMetadataStore.class);
+
+    private static final char PUT = 'P';
+    private static final char REMOVE = 'R';
+    private static final char SEPARATOR = '\t';
+
+    /**
+     * Minimum number of log records before a compaction is considered.
+     */
+    private static final int MIN_COMPACTION_RECORDS = 10_000;
+
+    /**
+     * Log file location.
+     */
+    private final Path file;
+    /**
+     * Live entries.
+     */
+    private final Map<String, String> entries = new ConcurrentHashMap<>();
+    /**
+     * Guards the log writer and keeps log order in line with updates, held across the log writes
+     * without pinning a virtual thread.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * Log writer in append mode.
+     */
+    private Writer writer;
+    /**
+     * Number of records currently in the log file.
+     */
+    private long records;
+
+    /**
+     * Constructor, loads the existing log file if present.
+     *
+     * @param file log file location
+     */
+    public FileMetadataStore(Path file) {
+        this.file = file;
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            load();
+            compact();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open metadata store " + file, e);
+        }
+    }
+
+    @Override
+    public void put(String key, String value) {
+        lock.lock();
+        try {
+            entries.put(key, value);
+            append(PUT, key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String get(String key) {
+        return entries.get(key);
+    }
+
+    @Override
+    public String remove(String key) {
+        lock.lock();
+        try {
+            String removed = entries.remove(key);
+            if (removed != null) {
+                append(REMOVE, key, null);
+            }
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String putIfAbsent(String key, String value) {
+        lock.lock();
+        try {
+            String existing = entries.putIfAbsent(key, value);
+            if (existing == null) {
+                append(PUT, key, value);
+            }
+            return existing;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean replace(String key, String oldValue, String newValue) {
+        lock.lock();
+        try {
+            boolean replaced = entries.replace(key, oldValue, newValue);
+            if (replaced) {
+                append(PUT, key, newValue);
+            }
+            return replaced;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of live entries.
+     *
+     * @return entries count
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Live entries.
+     *
+     * @return read-only view of the entries
+     */
+    public Map<String, String> entries() {
+        return Collections.unmodifiableMap(entries);
+    }
+
+    /**
+     * Rewrite the log with the live entries only.
+     */
+    public void compact() {
+        lock.lock();
+        try {
+            closeWriter();
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, String> entry : entries.entrySet()) {
+                    writeRecord(out, PUT, entry.getKey(), entry.getValue());
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            records = entries.size();
+            openWriter();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compact metadata store " + file, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Close the log file.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closeWriter();
+        } catch (IOException e) {
+            LOG.warn("Could not close metadata store {}: {}", file, e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replay the log file into memory.
+     * A last line without its newline was torn by a crash in the middle of an append,
+     * it is ignored even when it parses and dropped by the compaction following the load.
+     */
+    private void load() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        boolean terminated = endsWithNewline();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            while (line != null) {
+                String next = reader.readLine();
+                if (next == null && !terminated) {
+                    LOG.warn("Ignored an incomplete last record in {}", file);
+                    break;
+                }
+                records++;
+                replay(line);
+                line = next;
+            }
+        }
+        LOG.info("Loaded {} metadata entries from {} records in {}", entries.size(), records, file);
+    }
+
+    private boolean endsWithNewline() throws IOException {
+        try (SeekableByteChannel channel = Files.newByteChannel(file)) {
+            long size = channel.size();
+            if (size == 0) {
+                return true;
+            }
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.position(size - 1).read(last);
+            return last.get(0) == '\n';
+        }
+    }
+
+    private void replay(String line) {
+        if (line.length() < 2 || line.charAt(1) != SEPARATOR) {
+            return;
+        }
+        int separator = line.indexOf(SEPARATOR, 2);
+        if (line.charAt(0) == PUT && separator > 0) {
+            entries.put(unescape(line.substring(2, separator)), unescape(line.substring(separator + 1)));
+        } else if (line.charAt(0) == REMOVE && separator < 0) {
+            entries.remove(unescape(line.substring(2)));
+        }
+    }
+
+    /**
+     * Append one record and compact when the log holds mostly stale records.
+     */
+    private void append(char type, String key, String value) {
+        try {
+            writeRecord(writer, type, key, value);
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write metadata store " + file, e);
+        }
+        records++;
+        if (records > MIN_COMPACTION_RECORDS && records > 2L * entries.size()) {
+            compact();
+        }
+    }
+
+    private void openWriter() throws IOException {
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private void closeWriter() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private static void writeRecord(Writer out, char type, String key, String value) throws IOException {
+        out.write(type);
+        out.write(SEPARATOR);
+        out.write(escape(key));
+        if (value != null) {
+            out.write(SEPARATOR);
+            out.write(escape(value));
+        }
+        out.write('\n');
+    }
+
+    private static String escape(String text) {
+        StringBuilder sb = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String replacement = switch (c) {
+                case '\\' -> "\\\\";
+                case '\t' -> "\\t";
+                case '\n' -> "\\n";
+                case '\r' -> "\\r";
+                default -> null;
+            };
+            if (replacement != null && sb == null) {
+                sb = new StringBuilder(text.length() + 8).append(text, 0, i);
+            }
+            if (sb != null) {
+                if (replacement != null) {
+                    sb.append(replacement);
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        return sb == null ? text : sb.toString();
+    }
+
+    private static String unescape(String text) {
+        if (text.indexOf('\\') < 0) {
+            return text;
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char next = text.charAt(++i);
+                switch (next) {
+                    case 't' -> sb.append('\t');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    default -> sb.append(next);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
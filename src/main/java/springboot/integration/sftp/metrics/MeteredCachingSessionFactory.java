@@ -0,0 +1,121 @@
+package springboot.integration.sftp.metrics;
+
+import org.springframework.integration.file.remote.session.CachingSessionFactory;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caching session factory recording the time waited for a pooled session and the pool occupancy.
+ * The sessions opened by the target factory and the sessions checked out of the pool are counted
+ * until they are closed, without reading the private state of the pool.
+ *
+ * @param <F> remote file type
+ */
+public class MeteredCachingSessionFactory<F> extends CachingSessionFactory<F> {
+    /**
+     * Pipeline meters.
+     */
+    private final PipelineMetrics metrics;
+    /**
+     * Sessions open, idle or checked out.
+     */
+    private final AtomicInteger allocated;
+    /**
+     * Sessions checked out.
+     */
+    private final AtomicInteger active = new AtomicInteger();
+    /**
+     * Maximum number of sessions.
+     */
+    private volatile int poolSize = Integer.MAX_VALUE;
+
+    /**
+     * Constructor.
+     *
+     * @param sessionFactory target session factory
+     * @param metrics        pipeline meters
+     */
+    public MeteredCachingSessionFactory(SessionFactory<F> sessionFactory, PipelineMetrics metrics) {
+        this(sessionFactory, metrics, new AtomicInteger());
+    }
+
+    private MeteredCachingSessionFactory(SessionFactory<F> sessionFactory, PipelineMetrics metrics,
+                                         AtomicInteger allocated) {
+        super(() -> counted(sessionFactory.getSession(), allocated));
+        this.metrics = metrics;
+        this.allocated = allocated;
+    }
+
+    @Override
+    public Session<F> getSession() {
+        long started = System.nanoTime();
+        try {
+            return counted(super.getSession(), active);
+        } finally {
+            metrics.sessionCheckout(System.nanoTime() - started);
+        }
+    }
+
+    @Override
+    public void setPoolSize(int poolSize) {
+        super.setPoolSize(poolSize);
+        this.poolSize = poolSize > 0 ? poolSize : Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return sessions checked out
+     */
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    /**
+     * @return sessions open and available
+     */
+    public int getIdleCount() {
+        return Math.max(0, allocated.get() - active.get());
+    }
+
+    /**
+     * @return sessions open
+     */
+    public int getAllocatedCount() {
+        return allocated.get();
+    }
+
+    /**
+     * @return maximum number of sessions
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Count a session until it is closed, the first close only is counted.
+     */
+    @SuppressWarnings("unchecked")
+    private static <F> Session<F> counted(Session<F> session, AtomicInteger counter) {
+        counter.incrementAndGet();
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Session<F>) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[]{Session.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> {
+                        if (method.getName().equals("close") && closed.compareAndSet(false, true)) {
+                            counter.decrementAndGet();
+                        }
+                        try {
+                            yield method.invoke(session, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+    }
+}
@@ -0,0 +1,52 @@
+package springboot.integration.sftp.metrics;
+
+import org.springframework.integration.transaction.IntegrationResourceHolder;
+import org.springframework.integration.transaction.TransactionSynchronizationProcessor;
+
+/**
+ * Transaction synchronization processor counting the commits and rollbacks.
+ * Transactions of polls which received no message are not counted.
+ */
+public class MeteredTransactionSynchronizationProcessor implements TransactionSynchronizationProcessor {
+    /**
+     * Actual commit and rollback logic.
+     */
+    private final TransactionSynchronizationProcessor delegate;
+    /**
+     * Pipeline meters.
+     */
+    private final PipelineMetrics metrics;
+
+    /**
+     * Constructor.
+     *
+     * @param delegate actual commit and rollback logic
+     * @param metrics  pipeline meters
+     */
+    public MeteredTransactionSynchronizationProcessor(TransactionSynchronizationProcessor delegate,
+                                                      PipelineMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void processBeforeCommit(IntegrationResourceHolder holder) {
+        delegate.processBeforeCommit(holder);
+    }
+
+    @Override
+    public void processAfterCommit(IntegrationResourceHolder holder) {
+        if (holder.getMessage() != null) {
+            metrics.commit();
+        }
+        delegate.processAfterCommit(holder);
+    }
+
+    @Override
+    public void processAfterRollback(IntegrationResourceHolder holder) {
+        if (holder.getMessage() != null) {
+            metrics.rollback();
+        }
+        delegate.processAfterRollback(holder);
+    }
+}
@@ -0,0 +1,293 @@
+package springboot.integration.sftp.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import springboot.integration.sftp.pollers.Backpressure;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Micrometer meters for each stage of the pipeline: remote listing, download,
+ * processing, deduplication, transaction outcome, remote archiving, session pool and backpressure.
+ * The listing, download and processing meters are tagged with the source of the files.
+ */
+@Component
+public class PipelineMetrics {
+    /**
+     * Registry where the meters are published.
+     */
+    private final MeterRegistry registry;
+    /**
+     * Listing, download and processing meters of each source.
+     */
+    private final Map<String, SourceMeters> sources = new ConcurrentHashMap<>();
+    /**
+     * Committed files.
+     */
+    private final Counter commits;
+    /**
+     * Rolled back files.
+     */
+    private final Counter rollbacks;
+    /**
+     * Time waited for a pooled session.
+     */
+    private final Timer sessionCheckout;
+    /**
+     * Files skipped since their content was already processed.
+     */
+    private final Counter dedupFiles;
+    /**
+     * Bytes of the skipped files.
+     */
+    private final Counter dedupBytes;
+    /**
+     * Processing time of the skipped files, as measured on their first processing.
+     */
+    private final Counter dedupSavedTime;
+    /**
+     * Duration of each batch of remote files archived or deleted.
+     */
+    private final Timer remoteArchive;
+    /**
+     * Remote files archived or deleted.
+     */
+    private final Counter remoteArchived;
+
+    /**
+     * Constructor.
+     *
+     * @param registry registry where the meters are published
+     */
+    @Autowired
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.commits = Counter.builder("sftp.transactions")
+                .description("Files committed or rolled back")
+                .tag("outcome", "commit")
+                .register(registry);
+        this.rollbacks = Counter.builder("sftp.transactions")
+                .description("Files committed or rolled back")
+                .tag("outcome", "rollback")
+                .register(registry);
+        this.sessionCheckout = Timer.builder("sftp.session.checkout")
+                .description("Time waited for a pooled session")
+                .register(registry);
+        this.dedupFiles = Counter.builder("sftp.dedup.files")
+                .description("Files skipped since their content was already processed")
+                .register(registry);
+        this.dedupBytes = Counter.builder("sftp.dedup.bytes")
+                .description("Bytes of the skipped files")
+                .baseUnit("bytes")
+                .register(registry);
+        this.dedupSavedTime = Counter.builder("sftp.dedup.saved.time")
+                .description("Processing time saved by the skipped files")
+                .baseUnit("seconds")
+                .register(registry);
+        this.remoteArchive = Timer.builder("sftp.remote.archive")
+                .description("Duration of each batch of remote files archived or deleted")
+                .register(registry);
+        this.remoteArchived = Counter.builder("sftp.remote.archived")
+                .description("Remote files archived or deleted")
+                .register(registry);
+    }
+
+    /**
+     * Record a remote directory listing.
+     *
+     * @param source source name
+     * @param nanos  listing duration
+     */
+    public void remoteList(String source, long nanos) {
+        meters(source).remoteList().record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record a file download.
+     *
+     * @param source source name
+     * @param bytes  downloaded bytes
+     * @param nanos  download duration
+     */
+    public void download(String source, long bytes, long nanos) {
+        SourceMeters meters = meters(source);
+        meters.download().record(nanos, TimeUnit.NANOSECONDS);
+        meters.downloadSize().record(bytes);
+    }
+
+    /**
+     * Record a processed file.
+     *
+     * @param source source name
+     * @param lines  processed lines
+     * @param primes primes found
+     * @param nanos  processing duration
+     */
+    public void processed(String source, long lines, long primes, long nanos) {
+        SourceMeters meters = meters(source);
+        meters.processing().record(nanos, TimeUnit.NANOSECONDS);
+        meters.lines().increment(lines);
+        meters.primes().increment(primes);
+        if (nanos > 0) {
+            meters.throughput().record(lines * 1e9 / nanos);
+        }
+    }
+
+    /**
+     * Record a file skipped since its content was already processed.
+     *
+     * @param bytes file size
+     * @param nanos processing duration of the same content
+     */
+    public void deduplicated(long bytes, long nanos) {
+        dedupFiles.increment();
+        dedupBytes.increment(bytes);
+        dedupSavedTime.increment(nanos / 1e9);
+    }
+
+    /**
+     * Record a batch of remote files archived or deleted.
+     *
+     * @param files files archived or deleted
+     * @param nanos batch duration
+     */
+    public void remoteArchive(int files, long nanos) {
+        remoteArchive.record(nanos, TimeUnit.NANOSECONDS);
+        remoteArchived.increment(files);
+    }
+
+    /**
+     * Record a committed file.
+     */
+    public void commit() {
+        commits.increment();
+    }
+
+    /**
+     * Record a rolled back file.
+     */
+    public void rollback() {
+        rollbacks.increment();
+    }
+
+    /**
+     * Record the time waited for a pooled session.
+     *
+     * @param nanos wait duration
+     */
+    public void sessionCheckout(long nanos) {
+        sessionCheckout.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Publish the current poller delay of a source.
+     *
+     * @param source source name
+     * @param delay  current delay in milliseconds
+     */
+    public void bindPollerDelay(String source, LongSupplier delay) {
+        Gauge.builder("sftp.poller.delay", () -> delay.getAsLong())
+                .description("Delay before the next poll")
+                .tag("source", source)
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    /**
+     * Publish the occupancy of the session pool of a source.
+     *
+     * @param source         source name
+     * @param sessionFactory metered caching session factory owning the pool
+     */
+    public void bindSessionPool(String source, MeteredCachingSessionFactory<?> sessionFactory) {
+        Gauge.builder("sftp.session.pool.active", sessionFactory, MeteredCachingSessionFactory::getActiveCount)
+                .description("Sessions checked out")
+                .tag("source", source)
+                .register(registry);
+        Gauge.builder("sftp.session.pool.idle", sessionFactory, MeteredCachingSessionFactory::getIdleCount)
+                .description("Sessions open and available")
+                .tag("source", source)
+                .register(registry);
+        Gauge.builder("sftp.session.pool.allocated", sessionFactory, MeteredCachingSessionFactory::getAllocatedCount)
+                .description("Sessions open")
+                .tag("source", source)
+                .register(registry);
+        Gauge.builder("sftp.session.pool.size", sessionFactory, MeteredCachingSessionFactory::getPoolSize)
+                .description("Maximum number of sessions")
+                .tag("source", source)
+                .register(registry);
+    }
+
+    /**
+     * Publish the backpressure state.
+     *
+     * @param backpressure backpressure from the staging and the processing
+     */
+    public void bindBackpressure(Backpressure backpressure) {
+        Gauge.builder("sftp.backpressure.paused", backpressure, state -> state.getPaused() ? 1 : 0)
+                .description("Remote polling paused by the backpressure")
+                .register(registry);
+        Gauge.builder("sftp.staged.bytes", backpressure, Backpressure::getStagedBytes)
+                .description("Bytes staged in the local directories")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("sftp.staged.files", backpressure, Backpressure::getStagedFiles)
+                .description("Files staged in the local directories")
+                .register(registry);
+        Gauge.builder("sftp.inflight", backpressure, Backpressure::getInFlight)
+                .description("Files received and not yet processed")
+                .register(registry);
+    }
+
+    /**
+     * Meters of a source, registered on its first use.
+     */
+    private SourceMeters meters(String source) {
+        return sources.computeIfAbsent(source, name -> new SourceMeters(
+                Timer.builder("sftp.remote.list")
+                        .description("Remote directory listing duration")
+                        .tag("source", name)
+                        .register(registry),
+                Timer.builder("sftp.download")
+                        .description("Download duration of each file")
+                        .tag("source", name)
+                        .register(registry),
+                DistributionSummary.builder("sftp.download.size")
+                        .description("Downloaded bytes of each file")
+                        .baseUnit("bytes")
+                        .tag("source", name)
+                        .register(registry),
+                Timer.builder("sftp.processing")
+                        .description("Processing duration of each file")
+                        .tag("source", name)
+                        .register(registry),
+                Counter.builder("sftp.processing.lines")
+                        .description("Processed lines")
+                        .tag("source", name)
+                        .register(registry),
+                Counter.builder("sftp.processing.primes")
+                        .description("Primes found")
+                        .tag("source", name)
+                        .register(registry),
+                DistributionSummary.builder("sftp.processing.throughput")
+                        .description("Processed lines per second of each file")
+                        .baseUnit("lines/s")
+                        .tag("source", name)
+                        .register(registry)));
+    }
+
+    /**
+     * Listing, download and processing meters of a source.
+     */
+    private record SourceMeters(Timer remoteList, Timer download, DistributionSummary downloadSize,
+                                Timer processing, Counter lines, Counter primes, DistributionSummary throughput) {
+    }
+}
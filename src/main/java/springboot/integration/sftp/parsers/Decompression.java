@@ -0,0 +1,75 @@
+package springboot.integration.sftp.parsers;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Transparent gzip decompression of input files, detected by the .gz extension or the gzip magic bytes.
+ * Files are decompressed while being read, never to disk.
+ */
+public final class Decompression {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String GZIP_EXTENSION = ".gz";
+    private static final int GZIP_MAGIC_1 = 0x1f;
+    private static final int GZIP_MAGIC_2 = 0x8b;
+
+    private Decompression() {
+    }
+
+    /**
+     * Check whether a local file is gzip compressed.
+     *
+     * @param file local file
+     * @return true if the file name ends with .gz or the file starts with the gzip magic bytes
+     * @throws IOException in case of read errors
+     */
+    public static boolean isCompressed(Path file) throws IOException {
+        if (hasCompressedExtension(file.getFileName().toString())) {
+            return true;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.read() == GZIP_MAGIC_1 && in.read() == GZIP_MAGIC_2;
+        }
+    }
+
+    /**
+     * Open a local gzip file as a decompressed stream.
+     *
+     * @param file local gzip file
+     * @return decompressed stream
+     * @throws IOException in case of read errors
+     */
+    public static InputStream open(Path file) throws IOException {
+        return new GZIPInputStream(Files.newInputStream(file), BUFFER_SIZE);
+    }
+
+    /**
+     * Wrap a stream into a decompressed stream if it is gzip compressed.
+     * The magic bytes are peeked without consuming them when the name does not tell.
+     *
+     * @param in       input stream
+     * @param fileName file name, may be null
+     * @return decompressed stream, or a stream returning the original content
+     * @throws IOException in case of read errors
+     */
+    public static InputStream decompressing(InputStream in, String fileName) throws IOException {
+        if (fileName != null && hasCompressedExtension(fileName)) {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        }
+        InputStream buffered = in.markSupported() ? in : new BufferedInputStream(in, BUFFER_SIZE);
+        buffered.mark(2);
+        boolean compressed = buffered.read() == GZIP_MAGIC_1 && buffered.read() == GZIP_MAGIC_2;
+        buffered.reset();
+        return compressed ? new GZIPInputStream(buffered, BUFFER_SIZE) : buffered;
+    }
+
+    private static boolean hasCompressedExtension(String fileName) {
+        return fileName.regionMatches(true, fileName.length() - GZIP_EXTENSION.length(),
+                GZIP_EXTENSION, 0, GZIP_EXTENSION.length());
+    }
+}
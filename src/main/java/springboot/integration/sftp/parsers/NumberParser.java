@@ -0,0 +1,225 @@
+package springboot.integration.sftp.parsers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
+
+/**
+ * Parse number lines straight from bytes without creating a String per line.
+ * Each line is read like Integer.parseInt(line.trim()) would read it: surrounding
+ * whitespace and control characters are ignored, an optional sign is accepted and
+ * empty or invalid lines fail with a NumberFormatException. Only ASCII digits are accepted.
+ * Lines end with \n, \r or \r\n.
+ * Instances keep the parsing state and are not thread safe.
+ */
+public class NumberParser {
+    /**
+     * Size of the reused buffer for channel input.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * Size of each memory mapped region of a file.
+     */
+    private static final long MAP_REGION_SIZE = 256L * 1024 * 1024;
+    /**
+     * Maximum number of bytes of an invalid line kept for the error message.
+     */
+    private static final int MAX_CAPTURE = 128;
+
+    private static final int LINE_START = 0;
+    private static final int SIGN = 1;
+    private static final int DIGITS = 2;
+    private static final int TRAILING = 3;
+    private static final int INVALID = 4;
+
+    /**
+     * Reused buffer for channel input, allocated on first use.
+     */
+    private ByteBuffer buffer;
+    /**
+     * Current line bytes kept for the error message.
+     */
+    private final byte[] capture = new byte[MAX_CAPTURE];
+    private int captured;
+    private int state;
+    private boolean lineOpen;
+    private boolean afterCarriageReturn;
+    private boolean negative;
+    /**
+     * Accumulated negatively like Integer.parseInt to cover Integer.MIN_VALUE.
+     */
+    private int value;
+    private long count;
+
+    /**
+     * Parse a local file through memory mapped regions.
+     *
+     * @param file     local file
+     * @param consumer receives each parsed number
+     * @return number of parsed lines
+     * @throws IOException in case of read errors
+     */
+    public long parse(Path file, IntConsumer consumer) throws IOException {
+        reset();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += MAP_REGION_SIZE) {
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(MAP_REGION_SIZE, size - position));
+                scan(region, consumer);
+            }
+        }
+        finish(consumer);
+        return count;
+    }
+
+    /**
+     * Parse a channel through a reused direct buffer.
+     *
+     * @param channel  input channel
+     * @param consumer receives each parsed number
+     * @return number of parsed lines
+     * @throws IOException in case of read errors
+     */
+    public long parse(ReadableByteChannel channel, IntConsumer consumer) throws IOException {
+        reset();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+        buffer.clear();
+        while (channel.read(buffer) >= 0) {
+            buffer.flip();
+            scan(buffer, consumer);
+            buffer.clear();
+        }
+        finish(consumer);
+        return count;
+    }
+
+    /**
+     * Parse bytes already in memory, from position to limit.
+     *
+     * @param bytes    input bytes
+     * @param consumer receives each parsed number
+     * @return number of parsed lines
+     */
+    public long parse(ByteBuffer bytes, IntConsumer consumer) {
+        reset();
+        scan(bytes, consumer);
+        finish(consumer);
+        return count;
+    }
+
+    private void reset() {
+        state = LINE_START;
+        lineOpen = false;
+        afterCarriageReturn = false;
+        negative = false;
+        value = 0;
+        captured = 0;
+        count = 0;
+    }
+
+    private void scan(ByteBuffer bytes, IntConsumer consumer) {
+        int end = bytes.limit();
+        for (int i = bytes.position(); i < end; i++) {
+            int b = bytes.get(i) & 0xFF;
+            if (afterCarriageReturn) {
+                afterCarriageReturn = false;
+                if (b == '\n') {
+                    continue;
+                }
+            }
+            if (b == '\n' || b == '\r') {
+                afterCarriageReturn = b == '\r';
+                endLine(consumer);
+                continue;
+            }
+            lineOpen = true;
+            if (state == LINE_START && b <= ' ') {
+                continue;
+            }
+            if (captured < MAX_CAPTURE) {
+                capture[captured++] = (byte) b;
+            }
+            next(b);
+        }
+        bytes.position(end);
+    }
+
+    private void next(int b) {
+        int digit = b - '0';
+        boolean isDigit = digit >= 0 && digit <= 9;
+        switch (state) {
+            case LINE_START -> {
+                if (isDigit) {
+                    value = -digit;
+                    state = DIGITS;
+                } else if (b == '-' || b == '+') {
+                    negative = b == '-';
+                    state = SIGN;
+                } else {
+                    state = INVALID;
+                }
+            }
+            case SIGN -> {
+                value = -digit;
+                state = isDigit ? DIGITS : INVALID;
+            }
+            case DIGITS -> {
+                if (isDigit) {
+                    int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+                    if (value < limit / 10 || value * 10 < limit + digit) {
+                        state = INVALID;
+                    } else {
+                        value = value * 10 - digit;
+                    }
+                } else {
+                    state = b <= ' ' ? TRAILING : INVALID;
+                }
+            }
+            case TRAILING -> {
+                if (b > ' ') {
+                    state = INVALID;
+                }
+            }
+            default -> {
+                // invalid line, kept until its end for the error message
+            }
+        }
+    }
+
+    private void endLine(IntConsumer consumer) {
+        if (state != DIGITS && state != TRAILING) {
+            throw invalidLine();
+        }
+        count++;
+        consumer.accept(negative ? value : -value);
+        state = LINE_START;
+        lineOpen = false;
+        negative = false;
+        value = 0;
+        captured = 0;
+    }
+
+    private void finish(IntConsumer consumer) {
+        if (lineOpen) {
+            endLine(consumer);
+        }
+    }
+
+    private NumberFormatException invalidLine() {
+        int length = captured;
+        while (length > 0 && (capture[length - 1] & 0xFF) <= ' ') {
+            length--;
+        }
+        return new NumberFormatException("For input string: \""
+                + new String(capture, 0, length, StandardCharsets.UTF_8) + "\"");
+    }
+}
@@ -0,0 +1,222 @@
+package springboot.integration.sftp.parsers;
+
+import springboot.integration.sftp.processors.BatchProcessor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Parse a single file in parallel.
+ * The file is split into line aligned byte ranges which are memory mapped and parsed on a
+ * fork-join pool, the parsed numbers are handed to the processor in chunks.
+ * Lines end with LF, CRLF or CR like for the sequential parser.
+ * A range is mapped at once, so it can not exceed 2GB.
+ * The first failure of any range fails the whole file.
+ * Chunks are handed over in order within a range, but the ranges run concurrently, so the
+ * processor sees the chunks of different ranges interleaved and not in file order.
+ */
+public class ParallelNumberParser implements AutoCloseable {
+    /**
+     * Number of parsed numbers handed to the processor at once.
+     */
+    private static final int BATCH_SIZE = 4096;
+    /**
+     * Largest range a memory mapped buffer can hold.
+     */
+    private static final long MAX_RANGE_SIZE = Integer.MAX_VALUE;
+
+    /**
+     * Pool running the ranges.
+     */
+    private final ForkJoinPool pool;
+    /**
+     * Target size of each range in bytes.
+     */
+    private final long rangeSize;
+
+    /**
+     * Constructor.
+     *
+     * @param parallelism number of threads, 0 to use all available processors
+     * @param rangeSize   target size of each range in bytes, up to 2GB
+     * @throws IllegalArgumentException if the range size is not positive or above 2GB
+     */
+    public ParallelNumberParser(int parallelism, long rangeSize) {
+        if (rangeSize <= 0 || rangeSize > MAX_RANGE_SIZE) {
+            throw new IllegalArgumentException("Range size must be between 1 and " + MAX_RANGE_SIZE
+                    + " bytes: " + rangeSize);
+        }
+        this.pool = parallelism > 0 ? new ForkJoinPool(parallelism) : new ForkJoinPool();
+        this.rangeSize = rangeSize;
+    }
+
+    /**
+     * Parse and process a local file.
+     *
+     * @param file      local file
+     * @param processor thread safe processor
+     * @return number of parsed lines and of true results
+     * @throws IOException in case of read errors or of a line longer than 2GB
+     */
+    public Result parse(Path file, BatchProcessor processor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<long[]> ranges = split(channel);
+            if (ranges.isEmpty()) {
+                return new Result(0, 0);
+            }
+            AtomicReference<RuntimeException> failure = new AtomicReference<>();
+            LongAdder matches = new LongAdder();
+            long lines = pool.invoke(new RangesTask(channel, ranges, 0, ranges.size(), processor, matches, failure));
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+            return new Result(lines, matches.sum());
+        }
+    }
+
+    /**
+     * Shutdown the pool.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Split the file into ranges ending right after a line break.
+     */
+    private List<long[]> split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<long[]> ranges = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long start = 0;
+        while (start < size) {
+            long end = start + rangeSize >= size ? size : nextLineStart(channel, start + rangeSize, size, probe);
+            if (end - start > MAX_RANGE_SIZE) {
+                throw new IOException("Line longer than " + MAX_RANGE_SIZE + " bytes at offset " + start);
+            }
+            ranges.add(new long[]{start, end});
+            start = end;
+        }
+        return ranges;
+    }
+
+    /**
+     * Position right after the next line break, a CR followed by a LF is a single line break.
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size, ByteBuffer probe)
+            throws IOException {
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = probe.get(i);
+                if (b == '\n') {
+                    return position + i + 1;
+                }
+                if (b == '\r') {
+                    long next = position + i + 1;
+                    return next < size && byteAt(channel, next, probe, i + 1, read) == '\n' ? next + 1 : next;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Byte following a carriage return, from the probe if already read.
+     */
+    private static byte byteAt(FileChannel channel, long position, ByteBuffer probe, int index, int read)
+            throws IOException {
+        if (index < read) {
+            return probe.get(index);
+        }
+        ByteBuffer single = ByteBuffer.allocate(1);
+        return channel.read(single, position) == 1 ? single.get(0) : 0;
+    }
+
+    /**
+     * Outcome of a parsed file.
+     *
+     * @param lines   number of parsed lines
+     * @param matches number of true results
+     */
+    public record Result(long lines, long matches) {
+    }
+
+    /**
+     * Process a slice of the ranges, split in halves until a single range is left.
+     */
+    private static final class RangesTask extends RecursiveTask<Long> {
+        private final FileChannel channel;
+        private final List<long[]> ranges;
+        private final int from;
+        private final int to;
+        private final BatchProcessor processor;
+        private final LongAdder matches;
+        private final AtomicReference<RuntimeException> failure;
+
+        private RangesTask(FileChannel channel, List<long[]> ranges, int from, int to, BatchProcessor processor,
+                           LongAdder matches, AtomicReference<RuntimeException> failure) {
+            this.channel = channel;
+            this.ranges = ranges;
+            this.from = from;
+            this.to = to;
+            this.processor = processor;
+            this.matches = matches;
+            this.failure = failure;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                RangesTask left = new RangesTask(channel, ranges, from, middle, processor, matches, failure);
+                RangesTask right = new RangesTask(channel, ranges, middle, to, processor, matches, failure);
+                left.fork();
+                long rightLines = right.compute();
+                return left.join() + rightLines;
+            }
+            if (failure.get() != null) {
+                return 0L;
+            }
+            try {
+                return parseRange(ranges.get(from));
+            } catch (IOException e) {
+                failure.compareAndSet(null, new UncheckedIOException(e));
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            }
+            return 0L;
+        }
+
+        private long parseRange(long[] range) throws IOException {
+            ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, range[0], range[1] - range[0]);
+            int[] batch = new int[BATCH_SIZE];
+            int[] length = {0};
+            long lines = new NumberParser().parse(bytes, n -> {
+                batch[length[0]++] = n;
+                if (length[0] == BATCH_SIZE) {
+                    matches.add(processor.processBatch(batch, BATCH_SIZE));
+                    length[0] = 0;
+                }
+            });
+            matches.add(processor.processBatch(batch, length[0]));
+            return lines;
+        }
+    }
+}
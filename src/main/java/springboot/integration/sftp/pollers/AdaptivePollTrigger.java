@@ -0,0 +1,101 @@
+package springboot.integration.sftp.pollers;
+
+import org.springframework.integration.aop.ReceiveMessageAdvice;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.TriggerContext;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Poll trigger adapting the delay to the number of messages received by the last poll.
+ * A poll which reached the maximum number of messages is followed immediately by the next one,
+ * a poll which received some messages is followed after the base delay and an empty poll
+ * doubles the delay up to the maximum delay.
+ * Applied also as a receive advice to count the messages received by each poll.
+ */
+public class AdaptivePollTrigger implements Trigger, ReceiveMessageAdvice {
+    /**
+     * Delay after a poll which received some messages.
+     */
+    private final long baseDelay;
+    /**
+     * Maximum delay after consecutive empty polls.
+     */
+    private final long maxDelay;
+    /**
+     * Maximum number of messages per poll.
+     */
+    private final int maxMessagesPerPoll;
+    /**
+     * Messages received by the current poll.
+     */
+    private final AtomicInteger received = new AtomicInteger();
+    /**
+     * Delay before the next poll in milliseconds.
+     */
+    private volatile long currentDelay;
+
+    /**
+     * Constructor.
+     *
+     * @param baseDelay          delay after a poll which received some messages
+     * @param maxDelay           maximum delay after consecutive empty polls
+     * @param maxMessagesPerPoll maximum number of messages per poll
+     */
+    public AdaptivePollTrigger(long baseDelay, long maxDelay, int maxMessagesPerPoll) {
+        this.baseDelay = baseDelay;
+        this.maxDelay = Math.max(baseDelay, maxDelay);
+        this.maxMessagesPerPoll = maxMessagesPerPoll;
+        this.currentDelay = baseDelay;
+    }
+
+    /**
+     * Count the messages received by the current poll.
+     *
+     * @param result received message, null if none
+     * @param source message source
+     * @return received message
+     */
+    @Override
+    public Message<?> afterReceive(@Nullable Message<?> result, Object source) {
+        if (result != null) {
+            received.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Next poll time, the first poll starts immediately.
+     *
+     * @param triggerContext last poll times
+     * @return next poll time
+     */
+    @Override
+    public Instant nextExecution(TriggerContext triggerContext) {
+        Instant lastCompletion = triggerContext.lastCompletion();
+        if (lastCompletion == null) {
+            return Instant.now();
+        }
+        int messages = received.getAndSet(0);
+        if (maxMessagesPerPoll > 0 && messages >= maxMessagesPerPoll) {
+            currentDelay = 0;
+        } else if (messages > 0) {
+            currentDelay = baseDelay;
+        } else {
+            currentDelay = Math.min(maxDelay, Math.max(baseDelay, currentDelay * 2));
+        }
+        return lastCompletion.plusMillis(currentDelay);
+    }
+
+    /**
+     * Delay before the next poll.
+     *
+     * @return delay in milliseconds
+     */
+    public long getCurrentDelay() {
+        return currentDelay;
+    }
+}
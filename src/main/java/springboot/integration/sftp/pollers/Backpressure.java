@@ -0,0 +1,308 @@
+package springboot.integration.sftp.pollers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.integration.aop.ReceiveMessageAdvice;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Component;
+import springboot.integration.sftp.ApplicationProperties;
+import springboot.integration.sftp.SftpSourceProperties;
+import springboot.integration.sftp.metrics.PipelineMetrics;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Backpressure from the local staging and the processing back to the remote polling.
+ * Remote polling pauses once the staged bytes, the staged files or the files in flight
+ * reach their high mark, and resumes once all of them are back at their low mark.
+ * Staged files are still drained while paused: the synchronizer skips the remote listing
+ * and in streaming mode the poller skips the receive.
+ * Applied as a receive advice to count the files in flight, from their receipt to their commit
+ * or rollback, or to their error when they never reach the handler. A file is released once
+ * however many of these ends it goes through.
+ * Partial downloads take staging space but are not files waiting to be processed, their bytes
+ * are counted but not their files.
+ */
+@Component
+public class Backpressure implements ReceiveMessageAdvice {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Backpressure.class);
+
+    /**
+     * Suffixes of the partial downloads and of their resume state.
+     */
+    private static final List<String> PARTIAL_SUFFIXES = List.of(".writing", ".resume");
+
+    /**
+     * Age in ns after which the backlog is measured again.
+     */
+    private static final long BACKLOG_MAX_AGE = 1_000_000_000L;
+
+    /**
+     * Local directories where files are staged.
+     */
+    private final List<Path> stagingDirs = new ArrayList<>();
+    /**
+     * Staged bytes pausing the polling, disabled if not positive.
+     */
+    private final long highBytes;
+    /**
+     * Staged bytes resuming the polling.
+     */
+    private final long lowBytes;
+    /**
+     * Staged files pausing the polling, disabled if not positive.
+     */
+    private final long highFiles;
+    /**
+     * Staged files resuming the polling.
+     */
+    private final long lowFiles;
+    /**
+     * Files in flight pausing the polling, disabled if not positive.
+     */
+    private final long highInFlight;
+    /**
+     * Files in flight resuming the polling.
+     */
+    private final long lowInFlight;
+    /**
+     * Receipts are gated only in streaming mode, the synchronizer gates the staging otherwise.
+     */
+    private final boolean streaming;
+    /**
+     * Payloads of the files received and not yet committed or rolled back.
+     */
+    private final Set<Object> inFlight = ConcurrentHashMap.newKeySet();
+    /**
+     * Guards the evaluation and the measure, a lock rather than a monitor so that a virtual thread
+     * measuring the staging directories does not pin its carrier thread.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * Staged bytes at the last evaluation.
+     */
+    private volatile long stagedBytes;
+    /**
+     * Staged files at the last evaluation.
+     */
+    private volatile long stagedFiles;
+    /**
+     * Time in ns after which the staging directories are measured again for the backlog.
+     */
+    private volatile long nextMeasure = System.nanoTime();
+    /**
+     * Remote polling is paused.
+     */
+    private volatile boolean paused;
+
+    /**
+     * Constructor.
+     *
+     * @param applicationProperties marks and local directories
+     * @param metrics               pipeline meters
+     */
+    @Autowired
+    public Backpressure(ApplicationProperties applicationProperties, PipelineMetrics metrics) {
+        this.highBytes = applicationProperties.getSftpBackpressureHighBytes();
+        this.lowBytes = applicationProperties.getSftpBackpressureLowBytes();
+        this.highFiles = applicationProperties.getSftpBackpressureHighFiles();
+        this.lowFiles = applicationProperties.getSftpBackpressureLowFiles();
+        this.highInFlight = applicationProperties.getSftpBackpressureHighInFlight();
+        this.lowInFlight = applicationProperties.getSftpBackpressureLowInFlight();
+        this.streaming = applicationProperties.getSftpStreamingEnabled();
+        SftpSourceProperties defaults = SftpSourceProperties.of(applicationProperties);
+        stagingDirs.add(Paths.get(defaults.getLocalDir()));
+        applicationProperties.getSftpSources().forEach((name, source) ->
+                stagingDirs.add(Paths.get(source.withDefaults(defaults, name).getLocalDir())));
+        metrics.bindBackpressure(this);
+    }
+
+    /**
+     * Evaluate the pressure and tell whether the remote polling is paused.
+     *
+     * @return true if paused
+     */
+    public boolean isPaused() {
+        if (highBytes <= 0 && highFiles <= 0 && highInFlight <= 0) {
+            return false;
+        }
+        lock.lock();
+        try {
+            return evaluate();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean evaluate() {
+        measure();
+        long files = inFlight.size();
+        if (paused) {
+            if (isBelow(stagedBytes, highBytes, lowBytes) && isBelow(stagedFiles, highFiles, lowFiles)
+                    && isBelow(files, highInFlight, lowInFlight)) {
+                paused = false;
+                LOG.info("Resuming remote polling: {} bytes and {} files staged, {} files in flight",
+                        stagedBytes, stagedFiles, files);
+            }
+        } else if (isAbove(stagedBytes, highBytes) || isAbove(stagedFiles, highFiles)
+                || isAbove(files, highInFlight)) {
+            paused = true;
+            LOG.warn("Pausing remote polling: {} bytes and {} files staged, {} files in flight",
+                    stagedBytes, stagedFiles, files);
+        }
+        return paused;
+    }
+
+    /**
+     * Skip the receive while paused in streaming mode.
+     *
+     * @param source message source
+     * @return true to receive
+     */
+    @Override
+    public boolean beforeReceive(Object source) {
+        return !streaming || !isPaused();
+    }
+
+    /**
+     * Count the received file in flight.
+     *
+     * @param result received message, null if none
+     * @param source message source
+     * @return received message
+     */
+    @Override
+    public Message<?> afterReceive(@Nullable Message<?> result, Object source) {
+        if (result != null) {
+            inFlight.add(result.getPayload());
+        }
+        return result;
+    }
+
+    /**
+     * Count the end of a file in flight, keyed by its payload which is kept by the header enrichment.
+     * Releasing a file already released does nothing.
+     *
+     * @param message file message
+     */
+    public void release(Message<?> message) {
+        inFlight.remove(message.getPayload());
+    }
+
+    /**
+     * Remote polling state at the last evaluation.
+     *
+     * @return true if paused
+     */
+    public boolean getPaused() {
+        return paused;
+    }
+
+    /**
+     * Staged bytes at the last evaluation.
+     *
+     * @return staged bytes
+     */
+    public long getStagedBytes() {
+        return stagedBytes;
+    }
+
+    /**
+     * Staged files at the last evaluation.
+     *
+     * @return staged files
+     */
+    public long getStagedFiles() {
+        return stagedFiles;
+    }
+
+    /**
+     * Files received and not yet committed or rolled back.
+     *
+     * @return files in flight
+     */
+    public long getInFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * Files waiting to be processed, staged or in flight.
+     * The staging directories are measured again only once the last measure is older than a second,
+     * frequent callers such as the health probes share it.
+     *
+     * @return backlog files
+     */
+    public long getBacklog() {
+        if (System.nanoTime() - nextMeasure >= 0) {
+            lock.lock();
+            try {
+                if (System.nanoTime() - nextMeasure >= 0) {
+                    measure();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return stagedFiles + inFlight.size();
+    }
+
+    /**
+     * Sum the regular files of the staging directories, the partial downloads only in bytes.
+     */
+    private void measure() {
+        long bytes = 0;
+        long files = 0;
+        for (Path dir : stagingDirs) {
+            if (!Files.isDirectory(dir)) {
+                continue;
+            }
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    try {
+                        BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+                        if (attributes.isRegularFile()) {
+                            bytes += attributes.size();
+                            if (!isPartial(entry)) {
+                                files++;
+                            }
+                        }
+                    } catch (NoSuchFileException e) {
+                        // processed meanwhile
+                    }
+                }
+            } catch (IOException e) {
+                LOG.warn("Could not measure staging directory {}: {}", dir, e.getMessage());
+            }
+        }
+        stagedBytes = bytes;
+        stagedFiles = files;
+        nextMeasure = System.nanoTime() + BACKLOG_MAX_AGE;
+    }
+
+    private static boolean isPartial(Path entry) {
+        String name = entry.getFileName().toString();
+        return PARTIAL_SUFFIXES.stream().anyMatch(name::endsWith);
+    }
+
+    private static boolean isAbove(long value, long high) {
+        return high > 0 && value >= high;
+    }
+
+    private static boolean isBelow(long value, long high, long low) {
+        return high <= 0 || value <= low;
+    }
+}
@@ -0,0 +1,45 @@
+package springboot.integration.sftp.pollers;
+
+import org.springframework.core.task.SyncTaskExecutor;
+
+import java.io.Serial;
+
+/**
+ * Poller executor running each poll on the calling scheduler thread, as the default poller executor does,
+ * then a callback once the poll ends whatever its outcome.
+ * A poll ended by an exception thrown while handling a file has no empty receive, the callback still
+ * runs once the error is handled.
+ */
+public class PollEndExecutor extends SyncTaskExecutor {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Callback run once each poll ends.
+     */
+    private final transient Runnable pollEnd;
+
+    /**
+     * Constructor.
+     *
+     * @param pollEnd callback run once each poll ends
+     */
+    public PollEndExecutor(Runnable pollEnd) {
+        this.pollEnd = pollEnd;
+    }
+
+    /**
+     * Run a poll then the callback.
+     *
+     * @param task poll
+     */
+    @Override
+    public void execute(Runnable task) {
+        try {
+            super.execute(task);
+        } finally {
+            pollEnd.run();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package springboot.integration.sftp.processors;
+
+/**
+ * Processor type for chunks of already parsed numbers.
+ * Implementations must be thread safe, chunks of the same file can be processed in parallel.
+ */
+public interface BatchProcessor extends NumberProcessor {
+
+    /**
+     * Process a chunk of numbers.
+     *
+     * @param numbers chunk of numbers
+     * @param length  number of valid entries in the chunk
+     * @return number of entries with a true result
+     */
+    default int processBatch(int[] numbers, int length) {
+        int matches = 0;
+        for (int i = 0; i < length; i++) {
+            if (processNumber(numbers[i])) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
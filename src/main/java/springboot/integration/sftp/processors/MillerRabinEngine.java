@@ -0,0 +1,124 @@
+package springboot.integration.sftp.processors;
+
+/**
+ * Small primes pre-check followed by a deterministic Miller-Rabin test.
+ * The bases used are proven to give exact results for the whole int and long ranges.
+ */
+public class MillerRabinEngine implements PrimalityEngine {
+    /**
+     * Primes used by the pre-check.
+     */
+    private static final int[] SMALL_PRIMES = {3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41, 43, 47};
+    /**
+     * Numbers below this limit without a small prime factor are prime.
+     */
+    private static final int SMALL_PRIMES_LIMIT = 53 * 53;
+    /**
+     * Deterministic bases for n < 4,759,123,141.
+     */
+    private static final int[] INT_BASES = {2, 7, 61};
+    /**
+     * Deterministic bases for n < 2^64.
+     */
+    private static final long[] LONG_BASES = {2, 325, 9375, 28178, 450775, 9780504, 1795265022};
+    /**
+     * Products of two numbers below this limit do not overflow a long.
+     */
+    private static final long MUL_LIMIT = 3_037_000_499L;
+
+    @Override
+    public boolean isPrime(int n) {
+        if (n < 2) return false;
+        int check = smallPrimesCheck(n);
+        if (check >= 0) return check == 1;
+        int d = n - 1;
+        int s = Integer.numberOfTrailingZeros(d);
+        d >>= s;
+        for (int base : INT_BASES) {
+            if (base % n != 0 && !witness(base, d, s, n)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isPrime(long n) {
+        if (n <= Integer.MAX_VALUE) return isPrime((int) Math.max(n, -1));
+        int check = smallPrimesCheck(n);
+        if (check >= 0) return check == 1;
+        long d = n - 1;
+        int s = Long.numberOfTrailingZeros(d);
+        d >>= s;
+        for (long base : LONG_BASES) {
+            long a = base % n;
+            if (a != 0 && !witness(a, d, s, n)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Trial division by the small primes.
+     *
+     * @return 1 if prime, 0 if composite, -1 if undecided
+     */
+    private static int smallPrimesCheck(long n) {
+        if ((n & 1) == 0) return n == 2 ? 1 : 0;
+        for (int p : SMALL_PRIMES) {
+            if (n % p == 0) return n == p ? 1 : 0;
+        }
+        return n < SMALL_PRIMES_LIMIT ? 1 : -1;
+    }
+
+    /**
+     * Miller-Rabin round for int numbers, products fit into a long.
+     */
+    private static boolean witness(int a, int d, int s, int n) {
+        long x = 1;
+        long base = a;
+        for (int e = d; e > 0; e >>= 1) {
+            if ((e & 1) == 1) x = x * base % n;
+            base = base * base % n;
+        }
+        if (x == 1 || x == n - 1) return true;
+        for (int r = 1; r < s; r++) {
+            x = x * x % n;
+            if (x == n - 1) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Miller-Rabin round for long numbers.
+     */
+    private static boolean witness(long a, long d, int s, long n) {
+        long x = 1;
+        long base = a;
+        for (long e = d; e > 0; e >>= 1) {
+            if ((e & 1) == 1) x = mulMod(x, base, n);
+            base = mulMod(base, base, n);
+        }
+        if (x == 1 || x == n - 1) return true;
+        for (int r = 1; r < s; r++) {
+            x = mulMod(x, x, n);
+            if (x == n - 1) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Overflow safe (a * b) mod n for 0 <= a, b < n.
+     */
+    private static long mulMod(long a, long b, long n) {
+        if (n < MUL_LIMIT) return a * b % n;
+        long result = 0;
+        while (b > 0) {
+            if ((b & 1) == 1) {
+                result += a;
+                if (Long.compareUnsigned(result, n) >= 0) result -= n;
+            }
+            a += a;
+            if (Long.compareUnsigned(a, n) >= 0) a -= n;
+            b >>= 1;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,8 @@
+package springboot.integration.sftp.processors;
+
+/**
+ * Processor type for already parsed numbers.
+ */
+public interface NumberProcessor {
+    boolean processNumber(int n);
+}
@@ -0,0 +1,37 @@
+package springboot.integration.sftp.processors;
+
+/**
+ * Primality check algorithm.
+ */
+public interface PrimalityEngine {
+
+    /**
+     * Check if a number is prime.
+     *
+     * @param n input number
+     * @return true if the number is prime, numbers lower than 2 are not prime
+     */
+    boolean isPrime(int n);
+
+    /**
+     * Check if a number is prime.
+     *
+     * @param n input number
+     * @return true if the number is prime, numbers lower than 2 are not prime
+     */
+    boolean isPrime(long n);
+
+    /**
+     * Resolve an engine by its configuration name.
+     *
+     * @param name miller-rabin or trial-division
+     * @return PrimalityEngine
+     */
+    static PrimalityEngine forName(String name) {
+        return switch (name) {
+            case "miller-rabin" -> new MillerRabinEngine();
+            case "trial-division" -> new TrialDivisionEngine();
+            default -> throw new IllegalArgumentException("Unknown primality engine: " + name);
+        };
+    }
+}
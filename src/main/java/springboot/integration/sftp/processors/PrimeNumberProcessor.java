@@ -6,9 +6,36 @@ import org.slf4j.LoggerFactory;
 /**
  * Prime number processor applied to an incoming file lines.
  */
-public class PrimeNumberProcessor implements Processor<String, Boolean> {
+public class PrimeNumberProcessor implements Processor<String, Boolean>, BatchProcessor {
     private static final Logger LOG = LoggerFactory.getLogger(PrimeNumberProcessor.class);
 
+    /**
+     * Prime number check algorithm.
+     */
+    private final PrimalityEngine engine;
+    /**
+     * Log the result of each number.
+     */
+    private final boolean logEachLine;
+
+    /**
+     * Constructor using the Miller-Rabin engine and logging each number.
+     */
+    public PrimeNumberProcessor() {
+        this(new MillerRabinEngine(), true);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param engine      prime number check algorithm
+     * @param logEachLine log the result of each number
+     */
+    public PrimeNumberProcessor(PrimalityEngine engine, boolean logEachLine) {
+        this.engine = engine;
+        this.logEachLine = logEachLine;
+    }
+
     /**
      * Process logic.
      *
@@ -16,25 +43,21 @@ public class PrimeNumberProcessor implements Processor<String, Boolean> {
      */
     @Override
     public Boolean process(String line) {
-        int n = Integer.parseInt(line.trim());
-        boolean prime = isPrime(n);
-        LOG.info("Number {} is prime: {}", n, prime);
-        return prime;
+        return processNumber(Integer.parseInt(line.trim()));
     }
 
     /**
-     * Prime number check algorithm.
+     * Process logic for an already parsed number.
      *
      * @param n input number
-     * @return true if a number is prime
      */
-    private boolean isPrime(int n) {
-        if (n < 2) return false;
-        int sqrt = (int) Math.sqrt(n);
-        for (int i = 2; i <= sqrt; i++) {
-            if (n % i == 0) return false;
+    @Override
+    public boolean processNumber(int n) {
+        boolean prime = engine.isPrime(n);
+        if (logEachLine) {
+            LOG.info("Number {} is prime: {}", n, prime);
         }
-        return true;
+        return prime;
     }
 
 }
@@ -0,0 +1,51 @@
+package springboot.integration.sftp.processors;
+
+import java.util.List;
+
+/**
+ * Pipeline of processor stages a number must all pass to match.
+ * Built once at startup and shared by all the files routed to it, the stages must be thread safe.
+ */
+public class ProcessorPipeline implements Processor<String, Boolean>, BatchProcessor {
+    /**
+     * Pipeline name.
+     */
+    private final String name;
+    /**
+     * Stages applied in order, the first failing stage ends the evaluation.
+     */
+    private final BatchProcessor[] stages;
+
+    /**
+     * Constructor.
+     *
+     * @param name   pipeline name
+     * @param stages stages applied in order
+     */
+    public ProcessorPipeline(String name, List<BatchProcessor> stages) {
+        if (stages.isEmpty()) {
+            throw new IllegalArgumentException("Processor pipeline " + name + " has no stage");
+        }
+        this.name = name;
+        this.stages = stages.toArray(new BatchProcessor[0]);
+    }
+
+    @Override
+    public Boolean process(String line) {
+        return processNumber(Integer.parseInt(line.trim()));
+    }
+
+    @Override
+    public boolean processNumber(int n) {
+        for (BatchProcessor stage : stages) {
+            if (!stage.processNumber(n)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
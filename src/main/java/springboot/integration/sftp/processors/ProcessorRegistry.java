@@ -0,0 +1,120 @@
+package springboot.integration.sftp.processors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.PatternMatchUtils;
+import org.springframework.util.StringUtils;
+import springboot.integration.sftp.ApplicationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry selecting the processor pipeline of a file by its name or its source.
+ * Pipelines are built once from the configuration, so selecting one on the hot path
+ * only matches the file name against the routes.
+ * Stages are resolved by name among the processor stage beans, see {@link ProcessorStages}.
+ */
+@Component
+public class ProcessorRegistry {
+    /**
+     * Message header holding the name of the SFTP source a file comes from.
+     */
+    public static final String SOURCE_HEADER = "sftpSource";
+    /**
+     * Source name of the main SFTP source.
+     */
+    public static final String DEFAULT_SOURCE = "default";
+
+    /**
+     * Named pipelines in declaration order.
+     */
+    private final List<Route> routes = new ArrayList<>();
+    /**
+     * Pipeline of the files no route matches.
+     */
+    private final ProcessorPipeline defaultPipeline;
+
+    /**
+     * Constructor.
+     *
+     * @param applicationProperties pipelines
+     * @param stages                processor stages by bean name
+     */
+    @Autowired
+    public ProcessorRegistry(ApplicationProperties applicationProperties, Map<String, BatchProcessor> stages) {
+        this.defaultPipeline = createPipeline(DEFAULT_SOURCE, applicationProperties.getSftpProcessorStages(), stages);
+        applicationProperties.getSftpPipelines().forEach((name, pipeline) ->
+                routes.add(new Route(pipeline.getPattern(), pipeline.getSource(),
+                        createPipeline(name, pipeline.getStages(), stages))));
+    }
+
+    /**
+     * Select the pipeline of a file.
+     *
+     * @param source   source name, null for the main source
+     * @param fileName file name
+     * @return first matching pipeline, or the default one
+     */
+    public ProcessorPipeline select(@Nullable String source, String fileName) {
+        String sourceName = source != null ? source : DEFAULT_SOURCE;
+        for (Route route : routes) {
+            if (route.matches(sourceName, fileName)) {
+                return route.pipeline();
+            }
+        }
+        return defaultPipeline;
+    }
+
+    /**
+     * Build a pipeline from its comma separated stages.
+     *
+     * @param name       pipeline name
+     * @param stageNames comma separated stage names
+     * @param stages     processor stages by bean name
+     * @return ProcessorPipeline
+     */
+    private static ProcessorPipeline createPipeline(String name, @Nullable String stageNames,
+                                                    Map<String, BatchProcessor> stages) {
+        List<BatchProcessor> processors = new ArrayList<>();
+        for (String stage : StringUtils.commaDelimitedListToStringArray(stageNames)) {
+            if (StringUtils.hasText(stage)) {
+                processors.add(resolveStage(stage.trim(), stages));
+            }
+        }
+        return new ProcessorPipeline(name, processors);
+    }
+
+    /**
+     * Resolve a stage by its configuration name.
+     *
+     * @param name   stage name, e.g. prime, odd, even or positive
+     * @param stages processor stages by bean name
+     * @return BatchProcessor
+     */
+    private static BatchProcessor resolveStage(String name, Map<String, BatchProcessor> stages) {
+        BatchProcessor stage = stages.get(name + ProcessorStages.SUFFIX);
+        if (stage == null) {
+            throw new IllegalArgumentException("Unknown processor stage: " + name + ", no BatchProcessor bean named "
+                    + name + ProcessorStages.SUFFIX);
+        }
+        return stage;
+    }
+
+    /**
+     * Pipeline selected by a file name pattern and a source name, null criteria match any file.
+     *
+     * @param pattern  file name pattern
+     * @param source   source name
+     * @param pipeline selected pipeline
+     */
+    private record Route(@Nullable String pattern, @Nullable String source, ProcessorPipeline pipeline) {
+
+        boolean matches(String sourceName, String fileName) {
+            return (!StringUtils.hasText(source) || source.equals(sourceName))
+                    && (!StringUtils.hasText(pattern) || PatternMatchUtils.simpleMatch(pattern, fileName));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package springboot.integration.sftp.processors;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import springboot.integration.sftp.ApplicationProperties;
+
+/**
+ * Built-in processor stages.
+ * A stage is any {@link BatchProcessor} bean named after its configuration name with the
+ * {@link #SUFFIX} suffix, so further stages are added by declaring more beans.
+ */
+@Configuration
+public class ProcessorStages {
+    /**
+     * Suffix of the stage bean names.
+     */
+    public static final String SUFFIX = "Stage";
+
+    /**
+     * Prime number stage, shared by all the pipelines.
+     *
+     * @param applicationProperties primality options
+     * @return PrimeNumberProcessor
+     */
+    @Bean
+    public PrimeNumberProcessor primeStage(ApplicationProperties applicationProperties) {
+        return new PrimeNumberProcessor(PrimalityEngine.forName(applicationProperties.getSftpPrimalityEngine()),
+                applicationProperties.getSftpLogEachLine());
+    }
+
+    /**
+     * Odd number stage.
+     *
+     * @return BatchProcessor
+     */
+    @Bean
+    public BatchProcessor oddStage() {
+        return n -> (n & 1) != 0;
+    }
+
+    /**
+     * Even number stage.
+     *
+     * @return BatchProcessor
+     */
+    @Bean
+    public BatchProcessor evenStage() {
+        return n -> (n & 1) == 0;
+    }
+
+    /**
+     * Positive number stage.
+     *
+     * @return BatchProcessor
+     */
+    @Bean
+    public BatchProcessor positiveStage() {
+        return n -> n > 0;
+    }
+}
@@ -0,0 +1,27 @@
+package springboot.integration.sftp.processors;
+
+/**
+ * Trial division by every integer up to the square root.
+ */
+public class TrialDivisionEngine implements PrimalityEngine {
+
+    @Override
+    public boolean isPrime(int n) {
+        if (n < 2) return false;
+        int sqrt = (int) Math.sqrt(n);
+        for (int i = 2; i <= sqrt; i++) {
+            if (n % i == 0) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isPrime(long n) {
+        if (n < 2) return false;
+        long sqrt = (long) Math.sqrt(n);
+        for (long i = 2; i <= sqrt; i++) {
+            if (n % i == 0) return false;
+        }
+        return true;
+    }
+}
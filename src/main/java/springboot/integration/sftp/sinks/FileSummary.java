@@ -0,0 +1,21 @@
+package springboot.integration.sftp.sinks;
+
+/**
+ * Summary of a processed file.
+ *
+ * @param file           file name
+ * @param lines          number of processed lines
+ * @param matches        number of lines with a true result
+ * @param durationMillis processing time
+ */
+public record FileSummary(String file, long lines, long matches, long durationMillis) {
+
+    /**
+     * Summary as key=value lines.
+     *
+     * @return summary text
+     */
+    public String format() {
+        return "file=" + file + "\nlines=" + lines + "\nmatches=" + matches + "\nduration-ms=" + durationMillis + "\n";
+    }
+}
@@ -0,0 +1,187 @@
+package springboot.integration.sftp.sinks;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sink writing the results of each file into a local results file and a summary file.
+ * Each result is written as one "number 1|0" line through a buffered file channel.
+ * The results file is written under a temporary name and renamed once committed.
+ * The results and summary files are removed if their publication fails.
+ * Files of a named source are written into a subdirectory of the source name.
+ */
+public class LocalResultSink implements ResultSink {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LocalResultSink.class);
+
+    public static final String RESULTS_SUFFIX = ".results";
+    public static final String SUMMARY_SUFFIX = ".summary";
+    private static final String WRITING_SUFFIX = ".writing";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Directory where results are written.
+     */
+    private final Path directory;
+
+    /**
+     * Constructor.
+     *
+     * @param directory directory where results are written
+     */
+    public LocalResultSink(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public ResultWriter open(String source, String fileName) throws IOException {
+        Path sourceDirectory = directory.resolve(ResultSink.subdirectory(source));
+        Files.createDirectories(sourceDirectory);
+        return new LocalResultWriter(source, sourceDirectory.resolve(fileName + RESULTS_SUFFIX),
+                sourceDirectory.resolve(fileName + SUMMARY_SUFFIX));
+    }
+
+    /**
+     * Hook called once the results and summary files are in place.
+     *
+     * @param source  source name of the file
+     * @param results results file
+     * @param summary summary file
+     * @throws IOException in case of errors
+     */
+    protected void published(String source, Path results, Path summary) throws IOException {
+        LOG.info("Results written to {}", results);
+    }
+
+    /**
+     * Buffered results file writer.
+     */
+    private class LocalResultWriter implements ResultWriter {
+        private final String source;
+        private final Path results;
+        private final Path summary;
+        private final Path temporary;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final byte[] digits = new byte[11];
+        /**
+         * Guards the buffer and the channel, held across the file writes without pinning a virtual thread.
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private LocalResultWriter(String source, Path results, Path summary) throws IOException {
+            this.source = source;
+            this.results = results;
+            this.summary = summary;
+            this.temporary = results.resolveSibling(results.getFileName() + WRITING_SUFFIX);
+            this.channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        }
+
+        @Override
+        public void write(int number, boolean result) throws IOException {
+            lock.lock();
+            try {
+                put(number, result);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void write(int[] numbers, boolean[] results, int length) throws IOException {
+            lock.lock();
+            try {
+                for (int i = 0; i < length; i++) {
+                    put(numbers[i], results[i]);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Format one result into the buffer, called with the lock held.
+         */
+        private void put(int number, boolean result) throws IOException {
+            if (buffer.remaining() < digits.length + 3) {
+                drain();
+            }
+            long value = number;
+            if (value < 0) {
+                buffer.put((byte) '-');
+                value = -value;
+            }
+            int position = digits.length;
+            do {
+                digits[--position] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value > 0);
+            buffer.put(digits, position, digits.length - position);
+            buffer.put((byte) ' ');
+            buffer.put((byte) (result ? '1' : '0'));
+            buffer.put((byte) '\n');
+        }
+
+        @Override
+        public void commit(FileSummary fileSummary) throws IOException {
+            lock.lock();
+            try {
+                drain();
+                channel.close();
+                Files.move(temporary, results, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Files.writeString(summary, fileSummary.format(), StandardCharsets.UTF_8);
+                published(source, results, summary);
+            } catch (IOException | RuntimeException e) {
+                discard();
+                throw e;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Remove the files of a failed publication.
+         */
+        private void discard() {
+            abort();
+            try {
+                Files.deleteIfExists(results);
+                Files.deleteIfExists(summary);
+            } catch (IOException e) {
+                LOG.warn("Could not drop results {}: {}", results, e.getMessage());
+            }
+        }
+
+        @Override
+        public void abort() {
+            lock.lock();
+            try {
+                channel.close();
+                Files.deleteIfExists(temporary);
+            } catch (IOException e) {
+                LOG.warn("Could not drop results {}: {}", temporary, e.getMessage());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
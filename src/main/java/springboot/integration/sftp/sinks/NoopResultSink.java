@@ -0,0 +1,30 @@
+package springboot.integration.sftp.sinks;
+
+/**
+ * Sink discarding all results.
+ */
+public class NoopResultSink implements ResultSink {
+
+    private static final ResultWriter WRITER = new ResultWriter() {
+        @Override
+        public void write(int number, boolean result) {
+        }
+
+        @Override
+        public void write(int[] numbers, boolean[] results, int length) {
+        }
+
+        @Override
+        public void commit(FileSummary summary) {
+        }
+
+        @Override
+        public void abort() {
+        }
+    };
+
+    @Override
+    public ResultWriter open(String source, String fileName) {
+        return WRITER;
+    }
+}
@@ -0,0 +1,91 @@
+package springboot.integration.sftp.sinks;
+
+import org.apache.sshd.sftp.client.SftpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.integration.file.remote.RemoteFileTemplate;
+import org.springframework.integration.file.remote.SessionCallback;
+import org.springframework.integration.file.remote.session.Session;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Sink uploading the results of each file into a remote outbound directory.
+ * Results are staged locally first, then uploaded under a temporary name and renamed.
+ * Results of a named source are uploaded into a subdirectory of the source name.
+ * Local staged files are removed once uploaded, or when the upload fails together with
+ * the partial remote file.
+ */
+public class RemoteResultSink extends LocalResultSink {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RemoteResultSink.class);
+
+    private static final String WRITING_SUFFIX = ".writing";
+
+    /**
+     * Template used to access the remote server through the cached sessions.
+     */
+    private final RemoteFileTemplate<SftpClient.DirEntry> template;
+    /**
+     * Remote outbound directory.
+     */
+    private final String remoteDirectory;
+
+    /**
+     * Constructor.
+     *
+     * @param template         template used to access the remote server
+     * @param remoteDirectory  remote outbound directory
+     * @param stagingDirectory local directory where results are staged before upload
+     */
+    public RemoteResultSink(RemoteFileTemplate<SftpClient.DirEntry> template, String remoteDirectory,
+                            Path stagingDirectory) {
+        super(stagingDirectory);
+        this.template = template;
+        this.remoteDirectory = remoteDirectory;
+    }
+
+    @Override
+    protected void published(String source, Path results, Path summary) throws IOException {
+        String subdirectory = ResultSink.subdirectory(source);
+        String sourceDirectory = subdirectory.isEmpty() ? remoteDirectory : remoteDirectory + "/" + subdirectory;
+        template.execute((SessionCallback<SftpClient.DirEntry, Void>) session -> {
+            if (!session.exists(remoteDirectory)) {
+                session.mkdir(remoteDirectory);
+            }
+            if (!session.exists(sourceDirectory)) {
+                session.mkdir(sourceDirectory);
+            }
+            for (Path file : new Path[]{results, summary}) {
+                String remotePath = sourceDirectory + "/" + file.getFileName();
+                try (InputStream inputStream = Files.newInputStream(file)) {
+                    session.write(inputStream, remotePath + WRITING_SUFFIX);
+                } catch (IOException | RuntimeException e) {
+                    removePartial(session, remotePath + WRITING_SUFFIX);
+                    throw e;
+                }
+                if (session.exists(remotePath)) {
+                    session.remove(remotePath);
+                }
+                session.rename(remotePath + WRITING_SUFFIX, remotePath);
+            }
+            return null;
+        });
+        Files.delete(results);
+        Files.delete(summary);
+        LOG.info("Results uploaded to {}", sourceDirectory);
+    }
+
+    private static void removePartial(Session<SftpClient.DirEntry> session, String remotePath) {
+        try {
+            if (session.exists(remotePath)) {
+                session.remove(remotePath);
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Could not remove partial upload {}: {}", remotePath, e.getMessage());
+        }
+    }
+}
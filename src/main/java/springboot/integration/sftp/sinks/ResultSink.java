@@ -0,0 +1,33 @@
+package springboot.integration.sftp.sinks;
+
+import springboot.integration.sftp.processors.ProcessorRegistry;
+
+import java.io.IOException;
+
+/**
+ * Destination of the per-file processing results.
+ * Results of the main source are written under the file name, those of a named source under
+ * a subdirectory of the source name, so the same file name from two sources does not collide.
+ */
+public interface ResultSink {
+
+    /**
+     * Open a writer for the results of a file.
+     *
+     * @param source   source name of the file
+     * @param fileName processed file name
+     * @return ResultWriter
+     * @throws IOException in case the results can not be opened
+     */
+    ResultWriter open(String source, String fileName) throws IOException;
+
+    /**
+     * Subdirectory of the results of a source.
+     *
+     * @param source source name
+     * @return empty for the main source, the source name otherwise
+     */
+    static String subdirectory(String source) {
+        return ProcessorRegistry.DEFAULT_SOURCE.equals(source) ? "" : source;
+    }
+}
@@ -0,0 +1,79 @@
+package springboot.integration.sftp.sinks;
+
+import springboot.integration.sftp.processors.BatchProcessor;
+import springboot.integration.sftp.processors.Processor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Processor decorator sending each result to a result writer and counting the matches.
+ */
+public class ResultSinkProcessor implements Processor<String, Boolean>, BatchProcessor {
+    /**
+     * Actual processor.
+     */
+    private final BatchProcessor delegate;
+    /**
+     * Writer of the file results.
+     */
+    private final ResultWriter writer;
+    /**
+     * Number of true results.
+     */
+    private final LongAdder matches = new LongAdder();
+
+    /**
+     * Constructor.
+     *
+     * @param delegate actual processor
+     * @param writer   writer of the file results
+     */
+    public ResultSinkProcessor(BatchProcessor delegate, ResultWriter writer) {
+        this.delegate = delegate;
+        this.writer = writer;
+    }
+
+    @Override
+    public Boolean process(String line) {
+        return processNumber(Integer.parseInt(line.trim()));
+    }
+
+    @Override
+    public boolean processNumber(int n) {
+        boolean result = delegate.processNumber(n);
+        if (result) {
+            matches.increment();
+        }
+        try {
+            writer.write(n, result);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    @Override
+    public int processBatch(int[] numbers, int length) {
+        boolean[] results = new boolean[length];
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            results[i] = delegate.processNumber(numbers[i]);
+            if (results[i]) {
+                count++;
+            }
+        }
+        matches.add(count);
+        try {
+            writer.write(numbers, results, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count;
+    }
+
+    public long getMatches() {
+        return matches.sum();
+    }
+}
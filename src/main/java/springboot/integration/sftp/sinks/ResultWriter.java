@@ -0,0 +1,49 @@
+package springboot.integration.sftp.sinks;
+
+import java.io.IOException;
+
+/**
+ * Writer of the results of a single file.
+ * Results are only published once the writer is committed.
+ * In parallel parsing mode chunks are written concurrently by the ranges of the file: each chunk
+ * is written in one piece, so results keep their order within a range, but the ranges are
+ * interleaved and the results file is not in input order.
+ */
+public interface ResultWriter {
+
+    /**
+     * Write the result of one number.
+     *
+     * @param number processed number
+     * @param result processing result
+     * @throws IOException in case of write errors
+     */
+    void write(int number, boolean result) throws IOException;
+
+    /**
+     * Write the results of a chunk of numbers at once.
+     *
+     * @param numbers processed numbers
+     * @param results processing results
+     * @param length  number of valid entries
+     * @throws IOException in case of write errors
+     */
+    default void write(int[] numbers, boolean[] results, int length) throws IOException {
+        for (int i = 0; i < length; i++) {
+            write(numbers[i], results[i]);
+        }
+    }
+
+    /**
+     * Publish the results and the file summary.
+     *
+     * @param summary file summary
+     * @throws IOException in case of write errors
+     */
+    void commit(FileSummary summary) throws IOException;
+
+    /**
+     * Drop the results written so far.
+     */
+    void abort();
+}
@@ -0,0 +1,136 @@
+package springboot.integration.sftp.synchronizers;
+
+import org.springframework.integration.metadata.MetadataStore;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Modification time and name of the newest remote file known to be seen by the remote filter,
+ * persisted in a metadata store.
+ * Remote files at or below the watermark are skipped without being evaluated by the filter.
+ * The watermark stays behind the newest listed file by a lag, so files moved into the remote
+ * directory with an older modification time are still evaluated.
+ */
+public class ListingWatermark {
+
+    private static final char SEPARATOR = '\t';
+
+    /**
+     * Store where the watermark is persisted.
+     */
+    private final MetadataStore metadataStore;
+    /**
+     * Key of the watermark inside the store.
+     */
+    private final String key;
+    /**
+     * Minimum distance in ms between the watermark and the newest listed file.
+     */
+    private final long lagMillis;
+    /**
+     * Watermark modification time in ms.
+     */
+    private long modified = Long.MIN_VALUE;
+    /**
+     * Watermark file name.
+     */
+    private String name = "";
+    /**
+     * Guards the watermark, held across the store update without pinning a virtual thread.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Constructor, loads the persisted watermark if present.
+     *
+     * @param metadataStore store where the watermark is persisted
+     * @param key           key of the watermark inside the store
+     * @param lagMillis     minimum distance in ms between the watermark and the newest listed file
+     */
+    public ListingWatermark(MetadataStore metadataStore, String key, long lagMillis) {
+        this.metadataStore = metadataStore;
+        this.key = key;
+        this.lagMillis = lagMillis;
+        String value = metadataStore.get(key);
+        int separator = value == null ? -1 : value.indexOf(SEPARATOR);
+        if (separator > 0) {
+            this.modified = Long.parseLong(value.substring(0, separator));
+            this.name = value.substring(separator + 1);
+        }
+    }
+
+    /**
+     * Check if a remote file is above the watermark.
+     *
+     * @param fileModified remote file modification time in ms
+     * @param fileName     remote file name
+     * @return true if the file must be evaluated
+     */
+    public boolean isAbove(long fileModified, String fileName) {
+        lock.lock();
+        try {
+            return compare(fileModified, fileName, modified, name) > 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Check if a remote file is far enough behind the newest listed file to be below the watermark.
+     *
+     * @param fileModified remote file modification time in ms
+     * @param newest       modification time in ms of the newest listed file
+     * @return true if the watermark can move over the file
+     */
+    public boolean isSettled(long fileModified, long newest) {
+        return fileModified <= newest - lagMillis;
+    }
+
+    /**
+     * Move the watermark forward.
+     *
+     * @param fileModified modification time in ms of the newest file seen in order
+     * @param fileName     name of the newest file seen in order
+     */
+    public void advance(long fileModified, String fileName) {
+        lock.lock();
+        try {
+            if (compare(fileModified, fileName, modified, name) <= 0) {
+                return;
+            }
+            modified = fileModified;
+            name = fileName;
+            metadataStore.put(key, modified + String.valueOf(SEPARATOR) + name);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Watermark modification time.
+     *
+     * @return modification time in ms, Long.MIN_VALUE if none
+     */
+    public long getModified() {
+        lock.lock();
+        try {
+            return modified;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Order remote files by modification time then name.
+     *
+     * @param modified1 first file modification time
+     * @param name1     first file name
+     * @param modified2 second file modification time
+     * @param name2     second file name
+     * @return comparison result
+     */
+    static int compare(long modified1, String name1, long modified2, String name2) {
+        int result = Long.compare(modified1, modified2);
+        return result != 0 ? result : name1.compareTo(name2);
+    }
+}
@@ -0,0 +1,218 @@
+package springboot.integration.sftp.synchronizers;
+
+import org.apache.sshd.sftp.client.SftpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.integration.file.remote.RemoteFileTemplate;
+import org.springframework.integration.file.remote.SessionCallback;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.lang.Nullable;
+import springboot.integration.sftp.metrics.PipelineMetrics;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Post-commit action on the processed remote files, keeping the remote directory small so the
+ * listings and the filter passes do not slow down over time.
+ * Processed files are moved into an archive directory, optionally partitioned by the archiving date,
+ * or deleted. The files of a poll are handled together over a single pooled session.
+ * Files which could not be handled are left in place and logged, they are not processed again.
+ */
+public class RemoteArchiver {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RemoteArchiver.class);
+
+    /**
+     * Action on the processed remote files.
+     */
+    public enum Action {
+        /**
+         * Move the files into the archive directory.
+         */
+        MOVE,
+        /**
+         * Delete the files.
+         */
+        DELETE
+    }
+
+    /**
+     * Template used to access the remote server through the cached sessions.
+     */
+    private final RemoteFileTemplate<SftpClient.DirEntry> template;
+    /**
+     * Remote directory of the processed files.
+     */
+    private final String remoteDirectory;
+    /**
+     * Action on the processed remote files.
+     */
+    private final Action action;
+    /**
+     * Remote archive directory, used by the move action.
+     */
+    private final String archiveDirectory;
+    /**
+     * Date partition directory format inside the archive directory, null to archive directly into it.
+     */
+    private final DateTimeFormatter partitionFormat;
+    /**
+     * Pipeline meters.
+     */
+    private final PipelineMetrics metrics;
+    /**
+     * Current date of the partitions.
+     */
+    private final Clock clock;
+    /**
+     * Last archive directory known to exist, saving its lookup on each batch.
+     */
+    private String createdDirectory;
+    /**
+     * Serializes the batches, held across the SFTP round trips without pinning a virtual thread.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Constructor.
+     *
+     * @param template         template used to access the remote server
+     * @param remoteDirectory  remote directory of the processed files
+     * @param action           action on the processed remote files
+     * @param archiveDirectory remote archive directory, used by the move action
+     * @param partitionFormat  date partition directory format, e.g. yyyy/MM/dd, null for none
+     * @param metrics          pipeline meters
+     */
+    public RemoteArchiver(RemoteFileTemplate<SftpClient.DirEntry> template, String remoteDirectory, Action action,
+                          String archiveDirectory, @Nullable DateTimeFormatter partitionFormat,
+                          PipelineMetrics metrics) {
+        this(template, remoteDirectory, action, archiveDirectory, partitionFormat, metrics, Clock.systemUTC());
+    }
+
+    RemoteArchiver(RemoteFileTemplate<SftpClient.DirEntry> template, String remoteDirectory, Action action,
+                   String archiveDirectory, @Nullable DateTimeFormatter partitionFormat, PipelineMetrics metrics,
+                   Clock clock) {
+        this.template = template;
+        this.remoteDirectory = remoteDirectory;
+        this.action = action;
+        this.archiveDirectory = archiveDirectory;
+        this.partitionFormat = partitionFormat;
+        this.metrics = metrics;
+        this.clock = clock;
+    }
+
+    /**
+     * Move or delete processed remote files over a single session.
+     *
+     * @param fileNames remote file names, relative to the remote directory
+     * @return files moved or deleted
+     */
+    public List<String> archive(List<String> fileNames) {
+        if (fileNames.isEmpty()) {
+            return List.of();
+        }
+        lock.lock();
+        try {
+            return archiveBatch(fileNames);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<String> archiveBatch(List<String> fileNames) {
+        long started = System.nanoTime();
+        List<String> archived = new ArrayList<>(fileNames.size());
+        try {
+            template.execute((SessionCallback<SftpClient.DirEntry, Void>) session -> {
+                String directory = action == Action.MOVE ? archiveDirectory(session) : null;
+                for (String fileName : fileNames) {
+                    try {
+                        if (directory != null) {
+                            move(session, fileName, directory);
+                        } else {
+                            session.remove(remotePath(remoteDirectory, fileName));
+                        }
+                        archived.add(fileName);
+                    } catch (IOException | RuntimeException e) {
+                        createdDirectory = null;
+                        LOG.warn("Could not {} remote file {}: {}", action == Action.MOVE ? "archive" : "delete",
+                                fileName, e.getMessage());
+                    }
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            createdDirectory = null;
+            LOG.warn("Could not archive {} remote files: {}", fileNames.size(), e.getMessage());
+        }
+        metrics.remoteArchive(archived.size(), System.nanoTime() - started);
+        return archived;
+    }
+
+    /**
+     * Rename a remote file into the archive directory.
+     * Partitioned remote files are flattened into the archive directory as they are locally.
+     * A file re-uploaded under an already archived name keeps both: the new one is archived with
+     * its modification time in milliseconds before the extension, e.g. numbers1.1760781600000.txt.
+     * Any other rename failure, such as a remote file already gone, is reported as is.
+     */
+    private void move(Session<SftpClient.DirEntry> session, String fileName, String directory) throws IOException {
+        String remotePath = remotePath(remoteDirectory, fileName);
+        String archiveName = fileName.replace('/', '_');
+        try {
+            session.rename(remotePath, remotePath(directory, archiveName));
+        } catch (IOException e) {
+            if (!session.exists(remotePath) || !session.exists(remotePath(directory, archiveName))) {
+                throw e;
+            }
+            long modified = ((SftpClient) session.getClientInstance()).stat(remotePath).getModifyTime().toMillis();
+            session.rename(remotePath, remotePath(directory, uniqueName(archiveName, modified)));
+        }
+    }
+
+    /**
+     * Archive name suffixed with the modification time of the file, before its extension.
+     */
+    private static String uniqueName(String archiveName, long modified) {
+        int extension = archiveName.indexOf('.');
+        return extension > 0
+                ? archiveName.substring(0, extension) + '.' + modified + archiveName.substring(extension)
+                : archiveName + '.' + modified;
+    }
+
+    /**
+     * Archive directory of the current date, created level by level if missing.
+     */
+    private String archiveDirectory(Session<SftpClient.DirEntry> session) throws IOException {
+        String directory = partitionFormat == null ? archiveDirectory
+                : remotePath(archiveDirectory, partitionFormat.format(LocalDate.now(clock)));
+        if (directory.equals(createdDirectory)) {
+            return directory;
+        }
+        String path = directory.startsWith("/") ? "/" : "";
+        for (String segment : directory.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            path = path.isEmpty() || path.endsWith("/") ? path + segment : path + "/" + segment;
+            if (!session.exists(path)) {
+                session.mkdir(path);
+            }
+        }
+        createdDirectory = directory;
+        return directory;
+    }
+
+    private static String remotePath(String directory, String fileName) {
+        if (directory == null || directory.isEmpty()) {
+            return fileName;
+        }
+        return directory.endsWith("/") ? directory + fileName : directory + "/" + fileName;
+    }
+}
@@ -0,0 +1,912 @@
+package springboot.integration.sftp.synchronizers;
+
+import org.apache.sshd.sftp.client.SftpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.integration.file.filters.FileListFilter;
+import org.springframework.integration.file.filters.ReversibleFileListFilter;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.integration.sftp.inbound.SftpInboundFileSynchronizer;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.MessagingException;
+import springboot.integration.sftp.filters.RemoteAcceptOnceFileListFilter;
+import springboot.integration.sftp.metadata.ContentDigestIndex;
+import springboot.integration.sftp.metrics.PipelineMetrics;
+import springboot.integration.sftp.processors.ProcessorRegistry;
+import springboot.integration.sftp.pollers.Backpressure;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Synchronizer staging remote files into the local directory.
+ * Lists, filters and downloads the remote files explicitly so each stage can be measured,
+ * with the same semantics as the standard synchronizer: files are downloaded under a
+ * temporary name then renamed, and the remote filter is rolled back for the files not
+ * downloaded because of a failure.
+ * Files can be downloaded concurrently, each on its own session from the pool, and large
+ * files can be downloaded in byte ranges read in parallel over several pooled sessions.
+ * The listing can be limited to the files above a persisted watermark and to date partitions.
+ * Interrupted downloads can be resumed from the partial local file if the remote file is unchanged.
+ * The content digest of a staged file can be computed while it is downloaded, so the deduplication
+ * does not read the file again.
+ */
+public class StagingFileSynchronizer extends SftpInboundFileSynchronizer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StagingFileSynchronizer.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int SEGMENT_BUFFER_SIZE = 256 * 1024;
+    private static final String RESUME_SUFFIX = ".resume";
+
+    /**
+     * Pooled sessions.
+     */
+    private final SessionFactory<SftpClient.DirEntry> sessionFactory;
+    /**
+     * Pipeline meters.
+     */
+    private final PipelineMetrics metrics;
+    /**
+     * Remote directory.
+     */
+    private String remoteDirectory;
+    /**
+     * Remote files filter.
+     */
+    private FileListFilter<SftpClient.DirEntry> filter;
+    /**
+     * Keep the remote modification time on the local file.
+     */
+    private boolean preserveTimestamp;
+    /**
+     * Executor downloading files concurrently, null to download one file at a time.
+     */
+    private AsyncTaskExecutor downloadExecutor;
+    /**
+     * Executor downloading the byte ranges of large files, null to download files in one piece.
+     */
+    private AsyncTaskExecutor segmentExecutor;
+    /**
+     * Number of byte ranges of a large file.
+     */
+    private int segmentCount = 1;
+    /**
+     * Minimum size in bytes of a file downloaded in byte ranges.
+     */
+    private long segmentThreshold = Long.MAX_VALUE;
+    /**
+     * Source name tagging the listing and download meters.
+     */
+    private String sourceName = ProcessorRegistry.DEFAULT_SOURCE;
+    /**
+     * Persisted listing watermark, null to evaluate every remote file.
+     */
+    private ListingWatermark watermark;
+    /**
+     * Accept-once filter forgetting the files the watermark moved over, null to keep them.
+     */
+    private RemoteAcceptOnceFileListFilter acceptOnceFilter;
+    /**
+     * Date partition directory format, null when files are directly in the remote directory.
+     */
+    private DateTimeFormatter partitionFormat;
+    /**
+     * Number of past days listed when there is no watermark.
+     */
+    private int partitionLookbackDays;
+    /**
+     * Keep partial downloads to resume them on the next attempt.
+     */
+    private boolean resumable;
+    /**
+     * Backpressure pausing the remote listing, null to always list.
+     */
+    private Backpressure backpressure;
+    /**
+     * Record the remote names of the staged partitioned files.
+     */
+    private boolean recordRemoteNames;
+    /**
+     * Remote names of the staged partitioned files by local name, forgotten once a local file is gone.
+     */
+    private final Map<String, String> remoteNames = new ConcurrentHashMap<>();
+    /**
+     * Compute the content digest of the downloaded files.
+     */
+    private boolean contentDigest;
+    /**
+     * Content digest of the staged local files, forgotten once a local file is gone.
+     */
+    private final Map<String, String> contentDigests = new ConcurrentHashMap<>();
+    /**
+     * Remote names of the accepted files not settled yet, null if not tracked.
+     */
+    private Set<String> inFlight;
+    /**
+     * Local directory of the last synchronization, where the files in flight are staged.
+     */
+    private volatile Path stagingDirectory;
+
+    /**
+     * Constructor.
+     *
+     * @param sessionFactory pooled sessions
+     * @param metrics        pipeline meters
+     */
+    public StagingFileSynchronizer(SessionFactory<SftpClient.DirEntry> sessionFactory, PipelineMetrics metrics) {
+        super(sessionFactory);
+        this.sessionFactory = sessionFactory;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void setRemoteDirectory(String remoteDirectory) {
+        super.setRemoteDirectory(remoteDirectory);
+        this.remoteDirectory = remoteDirectory;
+    }
+
+    @Override
+    public void setFilter(@Nullable FileListFilter<SftpClient.DirEntry> filter) {
+        super.setFilter(filter);
+        this.filter = filter;
+    }
+
+    @Override
+    public void setPreserveTimestamp(boolean preserveTimestamp) {
+        super.setPreserveTimestamp(preserveTimestamp);
+        this.preserveTimestamp = preserveTimestamp;
+    }
+
+    /**
+     * Executor downloading files concurrently, each on its own session.
+     * Files are downloaded one at a time on the listing session when not set.
+     *
+     * @param downloadExecutor download executor
+     */
+    public void setDownloadExecutor(@Nullable AsyncTaskExecutor downloadExecutor) {
+        this.downloadExecutor = downloadExecutor;
+    }
+
+    /**
+     * Download files at least as large as the threshold in parallel byte ranges.
+     *
+     * @param segmentExecutor  executor of the ranges other than the first one
+     * @param segmentCount     number of ranges
+     * @param segmentThreshold minimum file size in bytes
+     */
+    public void setSegmentedDownload(AsyncTaskExecutor segmentExecutor, int segmentCount, long segmentThreshold) {
+        this.segmentExecutor = segmentExecutor;
+        this.segmentCount = segmentCount;
+        this.segmentThreshold = segmentThreshold;
+    }
+
+    /**
+     * Name of the source tagging the listing and download meters.
+     *
+     * @param sourceName source name
+     */
+    public void setSourceName(String sourceName) {
+        this.sourceName = sourceName;
+    }
+
+    /**
+     * Evaluate only the remote files above a persisted watermark.
+     *
+     * @param watermark listing watermark
+     */
+    public void setWatermark(@Nullable ListingWatermark watermark) {
+        setWatermark(watermark, null);
+    }
+
+    /**
+     * Evaluate only the remote files above a persisted watermark, and prune the accept-once filter
+     * keys of the files the watermark moves over since these files are no longer evaluated.
+     *
+     * @param watermark        listing watermark
+     * @param acceptOnceFilter accept-once filter of the remote files, null to keep its keys
+     */
+    public void setWatermark(@Nullable ListingWatermark watermark,
+                             @Nullable RemoteAcceptOnceFileListFilter acceptOnceFilter) {
+        this.watermark = watermark;
+        this.acceptOnceFilter = acceptOnceFilter;
+    }
+
+    /**
+     * List date partitions of the remote directory instead of the remote directory itself.
+     *
+     * @param partitionFormat       partition directory format, e.g. yyyy-MM-dd or yyyy/MM/dd
+     * @param partitionLookbackDays number of past days listed when there is no watermark
+     */
+    public void setPartitions(DateTimeFormatter partitionFormat, int partitionLookbackDays) {
+        this.partitionFormat = partitionFormat;
+        this.partitionLookbackDays = partitionLookbackDays;
+    }
+
+    /**
+     * Keep the partial local file of a failed download along with the remote size and modification time,
+     * the next attempt continues from the local offset if the remote file is unchanged.
+     * Downloads in byte ranges are not resumed.
+     *
+     * @param resumable resume partial downloads
+     */
+    public void setResumable(boolean resumable) {
+        this.resumable = resumable;
+    }
+
+    /**
+     * Record the remote name of each staged partitioned file, only needed to archive or claim
+     * the remote file of a processed local file.
+     *
+     * @param recordRemoteNames record the remote names
+     */
+    public void setRecordRemoteNames(boolean recordRemoteNames) {
+        this.recordRemoteNames = recordRemoteNames;
+    }
+
+    /**
+     * Skip the remote listing while the backpressure is paused, staged files are still processed.
+     *
+     * @param backpressure backpressure from the staging and the processing
+     */
+    public void setBackpressure(@Nullable Backpressure backpressure) {
+        this.backpressure = backpressure;
+    }
+
+    /**
+     * Keep the watermark behind the accepted files until they are settled, only needed when a rolled back
+     * remote file is forgotten to be listed again rather than retried from its staged copy.
+     * The files staged before a restart are in flight as long as their staged copy exists.
+     *
+     * @param trackInFlight track the files in flight
+     */
+    public void setTrackInFlight(boolean trackInFlight) {
+        this.inFlight = trackInFlight ? ConcurrentHashMap.newKeySet() : null;
+    }
+
+    /**
+     * Settle a committed or rolled back file, the watermark can then move over it.
+     *
+     * @param fileName remote file name, relative to the remote directory
+     */
+    public void settle(String fileName) {
+        if (inFlight != null) {
+            inFlight.remove(fileName);
+        }
+    }
+
+    /**
+     * Compute the SHA-256 digest of each file while it is downloaded.
+     * A file downloaded in byte ranges is digested as the SHA-256 of its range digests, prefixed with the
+     * range size, so the same content downloaded the same way always has the same digest.
+     *
+     * @param contentDigest compute the content digests
+     */
+    public void setContentDigest(boolean contentDigest) {
+        this.contentDigest = contentDigest;
+    }
+
+    /**
+     * Content digest of a staged local file computed by its download.
+     *
+     * @param localFileName local file name
+     * @return digest in hex, null if not downloaded by this synchronizer since its start
+     */
+    @Nullable
+    public String contentDigest(String localFileName) {
+        return contentDigests.get(localFileName);
+    }
+
+    /**
+     * Download the accepted remote files into the local directory.
+     *
+     * @param localDirectory local directory
+     * @param maxFetchSize   maximum number of files to download, negative for no limit
+     */
+    @Override
+    public void synchronizeToLocalDirectory(File localDirectory, int maxFetchSize) {
+        Path directory = localDirectory.toPath();
+        contentDigests.keySet().removeIf(name -> !Files.exists(directory.resolve(name)));
+        remoteNames.keySet().removeIf(name -> !Files.exists(directory.resolve(name)));
+        stagingDirectory = directory;
+        if (maxFetchSize == 0 || backpressure != null && backpressure.isPaused()) {
+            return;
+        }
+        List<SftpClient.DirEntry> files;
+        try (Session<SftpClient.DirEntry> session = sessionFactory.getSession()) {
+            files = listFiles(session, maxFetchSize);
+            if (downloadExecutor == null || files.size() < 2) {
+                downloadSequentially(session, files, localDirectory);
+                return;
+            }
+        } catch (IOException e) {
+            throw synchronizationError(e);
+        }
+        downloadConcurrently(files, localDirectory);
+    }
+
+    /**
+     * List the remote directory and apply the filter, up to the maximum number of files.
+     * With a watermark only the files above it are evaluated, oldest first, and the watermark
+     * moves forward over the files already seen by the filter, which are then pruned from the
+     * accept-once filter. It stays behind the first file still in flight when they are tracked.
+     *
+     * @param session      remote session
+     * @param maxFetchSize maximum number of files, negative for no limit
+     * @return accepted remote files
+     * @throws IOException in case of remote errors
+     */
+    protected List<SftpClient.DirEntry> listFiles(Session<SftpClient.DirEntry> session, int maxFetchSize)
+            throws IOException {
+        long started = System.nanoTime();
+        List<SftpClient.DirEntry> candidates = new ArrayList<>();
+        long newest = Long.MIN_VALUE;
+        for (String partition : listedPartitions(session)) {
+            SftpClient.DirEntry[] entries = session.list(partition.isEmpty() ? remoteDirectory : remotePath(partition));
+            if (entries == null) {
+                continue;
+            }
+            for (SftpClient.DirEntry entry : entries) {
+                if (!isFile(entry)) {
+                    continue;
+                }
+                SftpClient.DirEntry candidate = partition.isEmpty() ? entry : new SftpClient.DirEntry(
+                        partition + "/" + entry.getFilename(), entry.getLongFilename(), entry.getAttributes());
+                long modified = getModified(candidate);
+                newest = Math.max(newest, modified);
+                if (watermark == null || watermark.isAbove(modified, getFilename(candidate))) {
+                    candidates.add(candidate);
+                }
+            }
+        }
+        metrics.remoteList(sourceName, System.nanoTime() - started);
+        if (watermark == null) {
+            return accept(candidates, maxFetchSize).accepted();
+        }
+        candidates.sort(Comparator.<SftpClient.DirEntry>comparingLong(this::getModified)
+                .thenComparing(this::getFilename));
+        Selection selection = accept(candidates, maxFetchSize);
+        if (inFlight != null) {
+            selection.accepted().forEach(file -> inFlight.add(getFilename(file)));
+        }
+        int passed = 0;
+        while (passed < selection.seen() && watermark.isSettled(getModified(candidates.get(passed)), newest)
+                && !isInFlight(getFilename(candidates.get(passed)))) {
+            passed++;
+        }
+        if (passed > 0) {
+            SftpClient.DirEntry last = candidates.get(passed - 1);
+            watermark.advance(getModified(last), getFilename(last));
+            if (acceptOnceFilter != null) {
+                candidates.subList(0, passed).forEach(candidate -> acceptOnceFilter.forget(getFilename(candidate)));
+            }
+        }
+        return selection.accepted();
+    }
+
+    /**
+     * Check if a remote file was accepted and is not settled yet, or is still staged.
+     */
+    private boolean isInFlight(String fileName) {
+        if (inFlight == null) {
+            return false;
+        }
+        Path directory = stagingDirectory;
+        return inFlight.contains(fileName)
+                || directory != null && Files.exists(directory.resolve(localFileName(fileName)));
+    }
+
+    /**
+     * Remote directories to list, relative to the remote directory.
+     * With date partitions these are the existing partitions from the day before the watermark,
+     * or from the lookback days when there is no watermark yet, until tomorrow.
+     *
+     * @param session remote session
+     * @return partitions, a single empty partition for the remote directory itself
+     * @throws IOException in case of remote errors
+     */
+    protected List<String> listedPartitions(Session<SftpClient.DirEntry> session) throws IOException {
+        if (partitionFormat == null) {
+            return List.of("");
+        }
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate from = watermark == null || watermark.getModified() == Long.MIN_VALUE
+                ? today.minusDays(partitionLookbackDays)
+                : Instant.ofEpochMilli(watermark.getModified()).atZone(ZoneOffset.UTC).toLocalDate().minusDays(1);
+        List<String> partitions = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(today.plusDays(1)); day = day.plusDays(1)) {
+            String partition = partitionFormat.format(day);
+            if (session.exists(remotePath(partition))) {
+                partitions.add(partition);
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * Apply the filter to the candidate files in order, up to the maximum number of files.
+     * Files accepted beyond the maximum are rolled back so they are accepted on the next poll.
+     *
+     * @param candidates   candidate remote files
+     * @param maxFetchSize maximum number of files, negative for no limit
+     * @return accepted remote files and number of leading candidates already seen by the filter
+     */
+    protected Selection accept(List<SftpClient.DirEntry> candidates, int maxFetchSize) {
+        List<SftpClient.DirEntry> accepted = new ArrayList<>();
+        int seen = 0;
+        if (filter == null || filter.supportsSingleFileFiltering()) {
+            for (int i = 0; i < candidates.size(); i++) {
+                if (maxFetchSize > 0 && accepted.size() >= maxFetchSize) {
+                    break;
+                }
+                SftpClient.DirEntry candidate = candidates.get(i);
+                if (filter == null || filter.accept(candidate)) {
+                    accepted.add(candidate);
+                } else if (seen == i) {
+                    seen++;
+                }
+            }
+            return new Selection(accepted, seen);
+        }
+        accepted.addAll(filter.filterFiles(candidates.toArray(new SftpClient.DirEntry[0])));
+        Set<SftpClient.DirEntry> acceptedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        acceptedSet.addAll(accepted);
+        while (seen < candidates.size() && !acceptedSet.contains(candidates.get(seen))) {
+            seen++;
+        }
+        if (maxFetchSize > 0 && accepted.size() > maxFetchSize) {
+            rollback(accepted.subList(maxFetchSize, accepted.size()));
+            return new Selection(new ArrayList<>(accepted.subList(0, maxFetchSize)), seen);
+        }
+        return new Selection(accepted, seen);
+    }
+
+    /**
+     * Download the files one at a time on the same session.
+     * On failure the filter is rolled back for the failed file and the following ones.
+     *
+     * @param session        remote session
+     * @param files          remote files
+     * @param localDirectory local directory
+     * @throws IOException in case of transfer errors
+     */
+    protected void downloadSequentially(Session<SftpClient.DirEntry> session, List<SftpClient.DirEntry> files,
+                                        File localDirectory) throws IOException {
+        for (int i = 0; i < files.size(); i++) {
+            try {
+                download(session, files.get(i), localDirectory);
+            } catch (IOException | RuntimeException e) {
+                rollback(files.subList(i, files.size()));
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Download the files concurrently, each on its own pooled session.
+     * All downloads are awaited, the filter is rolled back only for the failed files
+     * and the first failure is thrown once the others are staged.
+     *
+     * @param files          remote files
+     * @param localDirectory local directory
+     */
+    protected void downloadConcurrently(List<SftpClient.DirEntry> files, File localDirectory) {
+        List<Future<?>> downloads = new ArrayList<>(files.size());
+        for (SftpClient.DirEntry file : files) {
+            downloads.add(downloadExecutor.submit(() -> {
+                try (Session<SftpClient.DirEntry> session = sessionFactory.getSession()) {
+                    download(session, file, localDirectory);
+                }
+                return null;
+            }));
+        }
+        Exception failure = null;
+        for (int i = 0; i < files.size(); i++) {
+            try {
+                downloads.get(i).get();
+            } catch (ExecutionException e) {
+                rollback(List.of(files.get(i)));
+                if (failure == null) {
+                    failure = e.getCause() instanceof Exception cause ? cause : e;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rollback(files.subList(i, files.size()));
+                if (failure == null) {
+                    failure = e;
+                }
+                break;
+            }
+        }
+        if (failure != null) {
+            throw synchronizationError(failure);
+        }
+    }
+
+    /**
+     * Download a remote file under a temporary name then rename it.
+     * A file already present in the local directory is not downloaded again.
+     * In resumable mode the temporary file is kept on failure, with the remote version
+     * in a state file next to it, and a later download continues from its size.
+     *
+     * @param session        remote session
+     * @param file           remote file
+     * @param localDirectory local directory
+     * @throws IOException in case of transfer errors
+     */
+    protected void download(Session<SftpClient.DirEntry> session, SftpClient.DirEntry file, File localDirectory)
+            throws IOException {
+        String fileName = getFilename(file);
+        Path localFile = localDirectory.toPath().resolve(localFileName(fileName));
+        if (Files.exists(localFile)) {
+            return;
+        }
+        Path temporary = localDirectory.toPath().resolve(localFileName(fileName) + getTemporaryFileSuffix());
+        Path resumeState = localDirectory.toPath()
+                .resolve(localFileName(fileName) + RESUME_SUFFIX + getTemporaryFileSuffix());
+        long size = file.getAttributes().getSize();
+        boolean segmented = segmentExecutor != null && size >= segmentThreshold;
+        boolean resuming = resumable && !segmented;
+        String version = size + "\t" + getModified(file);
+        long offset = resuming ? resumeOffset(temporary, resumeState, version, size) : 0;
+        MessageDigest digest = contentDigest ? ContentDigestIndex.newDigest() : null;
+        long started = System.nanoTime();
+        try {
+            if (segmented) {
+                downloadSegments(session, remotePath(fileName), size, temporary, digest);
+            } else if (offset > 0) {
+                LOG.info("Resuming download of {} at {} of {} bytes", fileName, offset, size);
+                resume(session, remotePath(fileName), offset, size, temporary, digest);
+            } else {
+                if (resuming) {
+                    Files.writeString(resumeState, version, StandardCharsets.UTF_8);
+                }
+                try (OutputStream out = digesting(
+                        new BufferedOutputStream(Files.newOutputStream(temporary), BUFFER_SIZE), digest)) {
+                    session.read(remotePath(fileName), out);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            if (!resuming) {
+                Files.deleteIfExists(temporary);
+            }
+            throw e;
+        }
+        long bytes = Files.size(temporary) - offset;
+        Files.move(temporary, localFile, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(resumeState);
+        if (recordRemoteNames && !localFileName(fileName).equals(fileName)) {
+            remoteNames.put(localFileName(fileName), fileName);
+        }
+        if (digest != null) {
+            contentDigests.put(localFileName(fileName),
+                    (segmented ? rangeSize(size) + "x" : "") + HexFormat.of().formatHex(digest.digest()));
+        }
+        if (preserveTimestamp) {
+            localFile.toFile().setLastModified(getModified(file));
+        }
+        metrics.download(sourceName, bytes, System.nanoTime() - started);
+    }
+
+    /**
+     * Offset to resume a download from, the partial file is discarded if the remote file changed.
+     *
+     * @param temporary   partial local file
+     * @param resumeState file holding the remote version of the partial file
+     * @param version     current remote size and modification time
+     * @param size        current remote size
+     * @return size of the partial file, 0 to download from the start
+     * @throws IOException in case of local file errors
+     */
+    private long resumeOffset(Path temporary, Path resumeState, String version, long size) throws IOException {
+        if (Files.exists(temporary) && Files.exists(resumeState)
+                && version.equals(Files.readString(resumeState, StandardCharsets.UTF_8))
+                && Files.size(temporary) <= size) {
+            return Files.size(temporary);
+        }
+        Files.deleteIfExists(temporary);
+        Files.deleteIfExists(resumeState);
+        return 0;
+    }
+
+    /**
+     * Append the rest of a remote file to its partial local file.
+     * The remote stream skips to the offset without transferring the skipped bytes.
+     * The digest is first fed with the partial local file, then with the appended bytes.
+     *
+     * @param session    remote session
+     * @param remotePath remote file path
+     * @param offset     size of the partial local file
+     * @param size       remote file size
+     * @param temporary  partial local file
+     * @param digest     content digest, null if not computed
+     * @throws IOException in case of transfer errors or if the file is incomplete
+     */
+    protected void resume(Session<SftpClient.DirEntry> session, String remotePath, long offset, long size,
+                          Path temporary, @Nullable MessageDigest digest) throws IOException {
+        if (digest != null) {
+            try (InputStream partial = Files.newInputStream(temporary)) {
+                partial.transferTo(new DigestOutputStream(OutputStream.nullOutputStream(), digest));
+            }
+        }
+        SftpClient client = (SftpClient) session.getClientInstance();
+        try (InputStream in = client.read(remotePath);
+             OutputStream out = digesting(new BufferedOutputStream(
+                     Files.newOutputStream(temporary, StandardOpenOption.APPEND), BUFFER_SIZE), digest)) {
+            in.skipNBytes(offset);
+            in.transferTo(out);
+        }
+        if (Files.size(temporary) != size) {
+            throw new IOException("Incomplete download of " + remotePath + ": " + Files.size(temporary) +
+                    " of " + size + " bytes");
+        }
+    }
+
+    /**
+     * Wrap a synchronization failure.
+     *
+     * @param cause failure
+     * @return MessagingException
+     */
+    protected MessagingException synchronizationError(Exception cause) {
+        return new MessagingException("Problem occurred while synchronizing '" + remoteDirectory +
+                "' to local directory", cause);
+    }
+
+    /**
+     * Download byte ranges of a large remote file in parallel into a preallocated local file.
+     * The first range is read on the current session, the others each on their own pooled session.
+     * All ranges are awaited and the total size is verified. On failure the other ranges are stopped
+     * and awaited before the local file is closed.
+     * Each range is digested while read, the digest is then fed with the range digests in order.
+     *
+     * @param session    remote session
+     * @param remotePath remote file path
+     * @param size       remote file size
+     * @param temporary  local temporary file
+     * @param digest     content digest, null if not computed
+     * @throws IOException in case of transfer errors or if the file is incomplete
+     */
+    protected void downloadSegments(Session<SftpClient.DirEntry> session, String remotePath, long size,
+                                    Path temporary, @Nullable MessageDigest digest) throws IOException {
+        long segmentSize = rangeSize(size);
+        List<MessageDigest> rangeDigests = new ArrayList<>(segmentCount);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            if (size > 0) {
+                channel.write(ByteBuffer.wrap(new byte[1]), size - 1);
+            }
+            List<Future<Long>> segments = new ArrayList<>(segmentCount - 1);
+            AtomicBoolean stopped = new AtomicBoolean();
+            try {
+                MessageDigest firstDigest = digest != null ? ContentDigestIndex.newDigest() : null;
+                rangeDigests.add(firstDigest);
+                for (long offset = segmentSize; offset < size; offset += segmentSize) {
+                    long segmentOffset = offset;
+                    long length = Math.min(segmentSize, size - offset);
+                    MessageDigest rangeDigest = digest != null ? ContentDigestIndex.newDigest() : null;
+                    rangeDigests.add(rangeDigest);
+                    segments.add(segmentExecutor.submit(() -> {
+                        if (stopped.get()) {
+                            throw new InterruptedIOException("Download of " + remotePath + " stopped");
+                        }
+                        try (Session<SftpClient.DirEntry> segmentSession = sessionFactory.getSession()) {
+                            return readSegment(segmentSession, remotePath, segmentOffset, length, channel, stopped,
+                                    rangeDigest);
+                        }
+                    }));
+                }
+                IOException failure = null;
+                long transferred = 0;
+                try {
+                    transferred += readSegment(session, remotePath, 0, Math.min(segmentSize, size), channel, stopped,
+                            firstDigest);
+                } catch (IOException e) {
+                    failure = e;
+                    stopped.set(true);
+                }
+                for (Future<Long> segment : segments) {
+                    try {
+                        transferred += segment.get();
+                    } catch (ExecutionException e) {
+                        if (failure == null) {
+                            failure = e.getCause() instanceof IOException cause ? cause
+                                    : new IOException(e.getCause());
+                            stopped.set(true);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while downloading " + remotePath);
+                    }
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+                if (transferred != size || channel.size() != size) {
+                    throw new IOException("Incomplete download of " + remotePath + ": " + transferred +
+                            " of " + size + " bytes");
+                }
+            } finally {
+                stopSegments(segments, stopped);
+            }
+        }
+        if (digest != null) {
+            rangeDigests.forEach(rangeDigest -> digest.update(rangeDigest.digest()));
+        }
+    }
+
+    /**
+     * Size of the byte ranges of a file downloaded in ranges.
+     */
+    private long rangeSize(long size) {
+        return (size + segmentCount - 1) / segmentCount;
+    }
+
+    private static OutputStream digesting(OutputStream out, @Nullable MessageDigest digest) {
+        return digest != null ? new DigestOutputStream(out, digest) : out;
+    }
+
+    /**
+     * Stop the ranges still running and wait for them, so none writes to the local file once closed.
+     * The ranges stop at their next read, they are not interrupted since an interrupted write would
+     * close the shared local file.
+     *
+     * @param segments ranges submitted
+     * @param stopped  flag stopping the ranges
+     */
+    private static void stopSegments(List<Future<Long>> segments, AtomicBoolean stopped) {
+        stopped.set(true);
+        boolean interrupted = Thread.interrupted();
+        for (Future<Long> segment : segments) {
+            while (true) {
+                try {
+                    segment.get();
+                    break;
+                } catch (ExecutionException | CancellationException e) {
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Read a byte range of a remote file with offset reads and write it at the same position.
+     *
+     * @param session    remote session
+     * @param remotePath remote file path
+     * @param offset     range start
+     * @param length     range length
+     * @param channel    local file
+     * @param stopped    flag set once the download failed
+     * @param digest     range digest, null if not computed
+     * @return number of bytes transferred
+     * @throws IOException in case of transfer errors, if the remote file returns no data or the download stopped
+     */
+    private long readSegment(Session<SftpClient.DirEntry> session, String remotePath, long offset, long length,
+                             FileChannel channel, AtomicBoolean stopped, @Nullable MessageDigest digest)
+            throws IOException {
+        SftpClient client = (SftpClient) session.getClientInstance();
+        byte[] buffer = new byte[(int) Math.min(SEGMENT_BUFFER_SIZE, length)];
+        long transferred = 0;
+        try (SftpClient.CloseableHandle handle = client.open(remotePath, SftpClient.OpenMode.Read)) {
+            while (transferred < length) {
+                if (stopped.get()) {
+                    throw new InterruptedIOException("Download of " + remotePath + " stopped");
+                }
+                int read = client.read(handle, offset + transferred, buffer, 0,
+                        (int) Math.min(buffer.length, length - transferred));
+                if (read < 0) {
+                    throw new EOFException("Remote file " + remotePath + " ended at " + (offset + transferred));
+                }
+                if (read == 0) {
+                    throw new IOException("Remote file " + remotePath + " returned no data at "
+                            + (offset + transferred));
+                }
+                if (digest != null) {
+                    digest.update(buffer, 0, read);
+                }
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                long position = offset + transferred;
+                while (chunk.hasRemaining()) {
+                    position += channel.write(chunk, position);
+                }
+                transferred += read;
+            }
+        }
+        return transferred;
+    }
+
+    /**
+     * Local name of a remote file, partitioned files are flattened into the local directory.
+     *
+     * @param fileName remote file name, relative to the remote directory
+     * @return local file name
+     */
+    protected String localFileName(String fileName) {
+        return fileName.replace('/', '_');
+    }
+
+    /**
+     * Remote name of a staged local file, kept until the local file is gone.
+     * Partitioned files staged before a restart are not known and keep their local name.
+     *
+     * @param localFileName local file name
+     * @return remote file name, relative to the remote directory
+     */
+    public String remoteFileName(String localFileName) {
+        String remoteName = remoteNames.get(localFileName);
+        return remoteName != null ? remoteName : localFileName;
+    }
+
+    /**
+     * Remote path of a file in the remote directory.
+     *
+     * @param fileName remote file name
+     * @return remote path
+     */
+    protected String remotePath(String fileName) {
+        if (remoteDirectory == null || remoteDirectory.isEmpty()) {
+            return fileName;
+        }
+        return remoteDirectory.endsWith("/") ? remoteDirectory + fileName : remoteDirectory + "/" + fileName;
+    }
+
+    /**
+     * Accepted remote files and number of leading candidates already seen by the filter.
+     *
+     * @param accepted accepted remote files
+     * @param seen     number of leading candidates rejected by the filter
+     */
+    protected record Selection(List<SftpClient.DirEntry> accepted, int seen) {
+    }
+
+    /**
+     * Roll back the filter for files which were accepted but not downloaded.
+     *
+     * @param files remote files to roll back
+     */
+    protected void rollback(List<SftpClient.DirEntry> files) {
+        files.forEach(file -> settle(getFilename(file)));
+        if (!files.isEmpty() && filter instanceof ReversibleFileListFilter<SftpClient.DirEntry> reversible) {
+            reversible.rollback(files.get(0), files);
+        }
+    }
+}
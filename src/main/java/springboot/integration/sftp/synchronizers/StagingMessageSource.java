@@ -0,0 +1,43 @@
+package springboot.integration.sftp.synchronizers;
+
+import org.springframework.integration.sftp.inbound.SftpInboundFileSynchronizingMessageSource;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import springboot.integration.sftp.metadata.ContentDigestIndex;
+
+import java.io.File;
+
+/**
+ * Message source of the files staged by a {@link StagingFileSynchronizer}.
+ * A file whose content digest was computed by its download carries it in the
+ * {@link ContentDigestIndex#DIGEST_HEADER} header.
+ */
+public class StagingMessageSource extends SftpInboundFileSynchronizingMessageSource {
+    /**
+     * Synchronizer staging the files.
+     */
+    private final StagingFileSynchronizer synchronizer;
+
+    /**
+     * Constructor.
+     *
+     * @param synchronizer synchronizer staging the files
+     */
+    public StagingMessageSource(StagingFileSynchronizer synchronizer) {
+        super(synchronizer);
+        this.synchronizer = synchronizer;
+    }
+
+    @Override
+    protected Message<File> buildMessage(Object result) {
+        Message<File> message = super.buildMessage(result);
+        if (message == null) {
+            return null;
+        }
+        String digest = synchronizer.contentDigest(message.getPayload().getName());
+        if (digest == null) {
+            return message;
+        }
+        return MessageBuilder.fromMessage(message).setHeader(ContentDigestIndex.DIGEST_HEADER, digest).build();
+    }
+}
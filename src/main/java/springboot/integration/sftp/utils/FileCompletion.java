@@ -0,0 +1,23 @@
+package springboot.integration.sftp.utils;
+
+import java.io.IOException;
+
+/**
+ * Side effect of a file processing deferred to the end of its transaction,
+ * so a file rolled back and retried does not leave it behind.
+ */
+public interface FileCompletion {
+
+    /**
+     * Apply the side effect once the file is committed.
+     *
+     * @throws IOException in case of errors, the file is then rolled back
+     */
+    void commit() throws IOException;
+
+    /**
+     * Drop the side effect once the file is rolled back or its commit failed.
+     */
+    default void rollback() {
+    }
+}
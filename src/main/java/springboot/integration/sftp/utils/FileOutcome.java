@@ -0,0 +1,15 @@
+package springboot.integration.sftp.utils;
+
+import java.time.Instant;
+
+/**
+ * Outcome of a processed file.
+ *
+ * @param file           file name
+ * @param success        true if the file was committed, false if rolled back
+ * @param durationMillis processing time until commit or rollback
+ * @param lines          number of processed lines
+ * @param completed      commit or rollback time
+ */
+public record FileOutcome(String file, boolean success, long durationMillis, long lines, Instant completed) {
+}
@@ -0,0 +1,116 @@
+package springboot.integration.sftp.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded store of the most recent file outcomes.
+ * Only the last window of files is kept, older outcomes are only visible through the counters.
+ */
+public class FileOutcomeStore {
+    /**
+     * Maximum number of outcomes kept.
+     */
+    private final int capacity;
+    /**
+     * Recent outcomes, oldest first.
+     */
+    private final LinkedHashMap<String, FileOutcome> recent;
+    /**
+     * Total number of successful files.
+     */
+    private final LongAdder successCount = new LongAdder();
+    /**
+     * Total number of failed files.
+     */
+    private final LongAdder errorCount = new LongAdder();
+
+    /**
+     * Constructor.
+     *
+     * @param capacity maximum number of outcomes kept
+     */
+    public FileOutcomeStore(int capacity) {
+        this.capacity = capacity;
+        this.recent = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FileOutcome> eldest) {
+                return size() > FileOutcomeStore.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Record a file outcome, replacing any previous outcome of the same file.
+     *
+     * @param outcome file outcome
+     * @return previous outcome of the same file if still in the window, null otherwise
+     */
+    public FileOutcome record(FileOutcome outcome) {
+        (outcome.success() ? successCount : errorCount).increment();
+        synchronized (recent) {
+            FileOutcome previous = recent.remove(outcome.file());
+            recent.put(outcome.file(), outcome);
+            return previous;
+        }
+    }
+
+    /**
+     * Record the outcomes of a batch of files under a single lock.
+     *
+     * @param batch file outcomes
+     */
+    public void recordAll(List<FileOutcome> batch) {
+        for (FileOutcome outcome : batch) {
+            (outcome.success() ? successCount : errorCount).increment();
+        }
+        synchronized (recent) {
+            for (FileOutcome outcome : batch) {
+                recent.remove(outcome.file());
+                recent.put(outcome.file(), outcome);
+            }
+        }
+    }
+
+    /**
+     * Retrieve the last outcome of a file.
+     *
+     * @param file file name
+     * @return last outcome, null if unknown or out of the window
+     */
+    public FileOutcome get(String file) {
+        synchronized (recent) {
+            return recent.get(file);
+        }
+    }
+
+    /**
+     * Recent outcomes.
+     *
+     * @return outcomes, newest first
+     */
+    public List<FileOutcome> recent() {
+        List<FileOutcome> outcomes;
+        synchronized (recent) {
+            outcomes = new ArrayList<>(recent.values());
+        }
+        Collections.reverse(outcomes);
+        return outcomes;
+    }
+
+    public long getSuccessCount() {
+        return successCount.sum();
+    }
+
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
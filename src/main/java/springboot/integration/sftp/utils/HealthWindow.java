@@ -0,0 +1,205 @@
+package springboot.integration.sftp.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free sliding window of the file outcomes used by the health model.
+ * Outcomes are counted into time buckets recycled once they fall out of the window,
+ * and the last error details are kept in a bounded ring.
+ */
+public class HealthWindow {
+    /**
+     * Duration of each bucket in milliseconds.
+     */
+    private final long bucketMillis;
+    /**
+     * Buckets indexed by their epoch modulo the number of buckets.
+     */
+    private final AtomicReferenceArray<Bucket> buckets;
+    /**
+     * Last error details, indexed by their sequence modulo the capacity.
+     */
+    private final AtomicReferenceArray<String> errors;
+    /**
+     * Sequence of the next error details.
+     */
+    private final AtomicLong errorSequence = new AtomicLong();
+    /**
+     * Time of the last success, or of the start when none yet.
+     */
+    private final AtomicLong lastSuccess;
+    /**
+     * Start time, the window is shorter until it is filled.
+     */
+    private final long started;
+    /**
+     * Current time in milliseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Constructor.
+     *
+     * @param windowMillis  window duration in milliseconds
+     * @param bucketCount   number of buckets of the window
+     * @param errorCapacity number of error details kept
+     * @param clock         current time in milliseconds
+     */
+    public HealthWindow(long windowMillis, int bucketCount, int errorCapacity, LongSupplier clock) {
+        this.bucketMillis = Math.max(1, windowMillis / bucketCount);
+        this.buckets = new AtomicReferenceArray<>(bucketCount);
+        this.errors = new AtomicReferenceArray<>(Math.max(1, errorCapacity));
+        this.clock = clock;
+        this.started = clock.getAsLong();
+        this.lastSuccess = new AtomicLong(started);
+    }
+
+    /**
+     * Record a successful file.
+     */
+    public void success() {
+        long now = clock.getAsLong();
+        bucket(now).successes.increment();
+        lastSuccess.accumulateAndGet(now, Math::max);
+    }
+
+    /**
+     * Record an error.
+     *
+     * @param details error details
+     */
+    public void error(String details) {
+        bucket(clock.getAsLong()).errors.increment();
+        long sequence = errorSequence.getAndIncrement();
+        errors.set((int) (sequence % errors.length()), details);
+    }
+
+    /**
+     * Outcomes counted in the current window.
+     *
+     * @return Snapshot
+     */
+    public Snapshot snapshot() {
+        long now = clock.getAsLong();
+        long epoch = now / bucketMillis;
+        long successes = 0;
+        long failures = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket != null && bucket.epoch > epoch - buckets.length() && bucket.epoch <= epoch) {
+                successes += bucket.successes.sum();
+                failures += bucket.errors.sum();
+            }
+        }
+        long windowMillis = Math.min(bucketMillis * buckets.length(), now - started);
+        return new Snapshot(successes, failures, Math.max(1, windowMillis));
+    }
+
+    /**
+     * Last error details, most recent first.
+     *
+     * @return error details
+     */
+    public List<String> getRecentErrors() {
+        long sequence = errorSequence.get();
+        int count = (int) Math.min(sequence, errors.length());
+        List<String> recent = new ArrayList<>(count);
+        for (long i = sequence - 1; i >= sequence - count; i--) {
+            String details = errors.get((int) (i % errors.length()));
+            if (details != null) {
+                recent.add(details);
+            }
+        }
+        return recent;
+    }
+
+    /**
+     * Time of the last success, or of the start when none yet.
+     *
+     * @return time in milliseconds
+     */
+    public long getLastSuccess() {
+        return lastSuccess.get();
+    }
+
+    /**
+     * Bucket of the given time, replacing the expired bucket occupying the same slot.
+     */
+    private Bucket bucket(long now) {
+        long epoch = now / bucketMillis;
+        int slot = (int) (epoch % buckets.length());
+        while (true) {
+            Bucket bucket = buckets.get(slot);
+            if (bucket != null && bucket.epoch >= epoch) {
+                return bucket;
+            }
+            Bucket fresh = new Bucket(epoch);
+            if (buckets.compareAndSet(slot, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    /**
+     * Outcomes counted in the window.
+     *
+     * @param successes    successful files
+     * @param errors       errors
+     * @param windowMillis window duration in milliseconds
+     */
+    public record Snapshot(long successes, long errors, long windowMillis) {
+        /**
+         * Number of outcomes.
+         *
+         * @return successes and errors
+         */
+        public long total() {
+            return successes + errors;
+        }
+
+        /**
+         * Percentage of errors among the outcomes.
+         *
+         * @return error percentage, 0 without outcomes
+         */
+        public double errorPercent() {
+            return total() == 0 ? 0 : 100.0 * errors / total();
+        }
+
+        /**
+         * Successful files per second over the window.
+         *
+         * @return throughput
+         */
+        public double filesPerSecond() {
+            return successes * 1000.0 / windowMillis;
+        }
+    }
+
+    /**
+     * Outcomes of one time slice.
+     */
+    private static final class Bucket {
+        /**
+         * Time slice index.
+         */
+        private final long epoch;
+        /**
+         * Successful files.
+         */
+        private final LongAdder successes = new LongAdder();
+        /**
+         * Errors.
+         */
+        private final LongAdder errors = new LongAdder();
+
+        private Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+}
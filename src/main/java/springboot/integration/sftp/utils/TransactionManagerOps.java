@@ -1,43 +1,260 @@
 package springboot.integration.sftp.utils;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import springboot.integration.sftp.ApplicationProperties;
+import springboot.integration.sftp.processors.ProcessorRegistry;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Utility class used by transaction manager to record the status for each file.
+ * Only a bounded window of recent files is kept.
+ * The side effects of a file processing are deferred to its commit or rollback.
+ * Files are keyed by their file name, qualified by the source name for the named sources,
+ * see {@link #key(String, String)}.
  */
+@Component("managerOps")
 public class TransactionManagerOps {
-    private Map<String, Boolean> records = new ConcurrentHashMap<>();
+
+    private static final Logger LOG = LoggerFactory.getLogger(TransactionManagerOps.class);
+
+    /**
+     * Recent file outcomes.
+     */
+    private final FileOutcomeStore outcomes;
+    /**
+     * Files currently processed, removed on commit or rollback.
+     */
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    /**
+     * Maximum files kept in flight, the oldest are dropped beyond it.
+     */
+    private final int inFlightCapacity;
+    /**
+     * Serializes the evictions, held across the rollback of the dropped files without pinning a virtual thread.
+     */
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    /**
+     * Constructor.
+     *
+     * @param applicationProperties application properties for the outcome window size
+     */
+    @Autowired
+    public TransactionManagerOps(ApplicationProperties applicationProperties) {
+        this.outcomes = new FileOutcomeStore(applicationProperties.getSftpOutcomeWindow());
+        this.inFlightCapacity = Math.max(1, applicationProperties.getSftpOutcomeWindow());
+    }
+
+    /**
+     * Key of a file, qualified by its source so the same file name from two sources is tracked separately.
+     * Files of the main source keep their plain name.
+     *
+     * @param source   source name
+     * @param fileName file name
+     * @return fileName for the main source, source:fileName otherwise
+     */
+    public static String key(String source, String fileName) {
+        return ProcessorRegistry.DEFAULT_SOURCE.equals(source) ? fileName : source + ':' + fileName;
+    }
 
     /**
-     * Map success operation.
+     * Mark the start of a file processing.
+     * Files never committed nor rolled back are dropped, oldest first, once the capacity is exceeded.
      *
      * @param file received file
-     * @return map result
+     */
+    public void begin(String file) {
+        InFlight previous = inFlight.put(file, new InFlight());
+        if (previous != null) {
+            previous.rollback();
+        }
+        if (inFlight.size() > inFlightCapacity) {
+            evictInFlight();
+        }
+    }
+
+    /**
+     * Record the number of processed lines of a file.
+     *
+     * @param file  received file
+     * @param lines processed lines
+     */
+    public void lines(String file, long lines) {
+        InFlight current = inFlight.get(file);
+        if (current != null) {
+            current.lines = lines;
+        }
+    }
+
+    /**
+     * Defer a side effect of a file processing to the end of its transaction.
+     *
+     * @param file       received file
+     * @param completion side effect applied on commit, dropped on rollback
+     * @throws IllegalStateException if the file is not in flight
+     */
+    public void onCompletion(String file, FileCompletion completion) {
+        InFlight current = inFlight.get(file);
+        if (current == null) {
+            completion.rollback();
+            throw new IllegalStateException("File not in flight: " + file);
+        }
+        current.completions.add(completion);
+    }
+
+    /**
+     * Apply the deferred side effects of a committed file, before its success is recorded.
+     * If one fails, all of them are dropped and the file has to be rolled back.
+     *
+     * @param file received file
+     * @throws IOException in case a side effect failed
+     */
+    public void publish(String file) throws IOException {
+        InFlight current = inFlight.get(file);
+        if (current == null) {
+            return;
+        }
+        try {
+            for (FileCompletion completion : current.completions) {
+                completion.commit();
+            }
+            current.completions.clear();
+        } catch (IOException | RuntimeException e) {
+            current.rollback();
+            throw e;
+        }
+    }
+
+    /**
+     * Record success operation.
+     *
+     * @param file received file
+     * @return true if the previous outcome of this file was also a success
      */
     public Boolean success(String file) {
-        return Boolean.TRUE.equals(records.put(file, true));
+        FileOutcome previous = outcomes.record(complete(file, true));
+        return previous != null && previous.success();
     }
 
     /**
-     * Map error operation
+     * Record success operation of a batch of files.
+     *
+     * @param files received files
+     */
+    public void success(List<String> files) {
+        List<FileOutcome> batch = new ArrayList<>(files.size());
+        for (String file : files) {
+            batch.add(complete(file, true));
+        }
+        outcomes.recordAll(batch);
+    }
+
+    /**
+     * Record error operation
      *
      * @param file received file
-     * @return map result
+     * @return true if the previous outcome of this file was also an error
      */
     public Boolean error(String file) {
-        return Boolean.FALSE.equals(records.put(file, false));
+        FileOutcome previous = outcomes.record(complete(file, false));
+        return previous != null && !previous.success();
     }
 
     /**
      * Retrieve file last operation status
      *
      * @param file received file
-     * @return retrieve status
+     * @return retrieve status, null if unknown or out of the recent window
      */
     public Boolean inspect(String file) {
-        return records.get(file);
+        FileOutcome outcome = outcomes.get(file);
+        return outcome == null ? null : outcome.success();
     }
 
+    /**
+     * Recent file outcomes and counters.
+     *
+     * @return FileOutcomeStore
+     */
+    public FileOutcomeStore getOutcomes() {
+        return outcomes;
+    }
+
+    /**
+     * Number of files currently processed.
+     *
+     * @return files in flight
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * Drop the oldest files in flight beyond the capacity.
+     */
+    private void evictInFlight() {
+        evictionLock.lock();
+        try {
+            while (inFlight.size() > inFlightCapacity) {
+                inFlight.entrySet().stream()
+                        .min(Comparator.comparingLong(entry -> entry.getValue().started))
+                        .ifPresent(entry -> {
+                            if (inFlight.remove(entry.getKey(), entry.getValue())) {
+                                entry.getValue().rollback();
+                                LOG.warn("Dropping in-flight state of {}, never committed nor rolled back",
+                                        entry.getKey());
+                            }
+                        });
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private FileOutcome complete(String file, boolean success) {
+        InFlight current = inFlight.remove(file);
+        if (current != null) {
+            //side effects not published are dropped
+            current.rollback();
+        }
+        long duration = current == null ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - current.started);
+        long lines = current == null ? 0 : current.lines;
+        return new FileOutcome(file, success, duration, lines, Instant.now());
+    }
 
-}
\ No newline at end of file
+    /**
+     * Processing state of a file until commit or rollback.
+     */
+    private static final class InFlight {
+        private final long started = System.nanoTime();
+        private final List<FileCompletion> completions = new CopyOnWriteArrayList<>();
+        private volatile long lines;
+
+        /**
+         * Drop the side effects not applied yet.
+         */
+        private void rollback() {
+            for (FileCompletion completion : completions) {
+                try {
+                    completion.rollback();
+                } catch (RuntimeException e) {
+                    LOG.warn("Could not drop a deferred side effect: {}", e.getMessage());
+                }
+            }
+            completions.clear();
+        }
+    }
+}
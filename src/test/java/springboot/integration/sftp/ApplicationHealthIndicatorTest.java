@@ -1,16 +1,29 @@
 package springboot.integration.sftp;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.web.servlet.MockMvc;
+import springboot.integration.sftp.pollers.Backpressure;
 
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+@SpringBootTest(properties = "spring.integration.endpoint.no-auto-startup=*")
 @AutoConfigureMockMvc
 public class ApplicationHealthIndicatorTest {
     @Autowired
@@ -19,12 +32,30 @@ public class ApplicationHealthIndicatorTest {
     @Autowired
     private ApplicationHealthIndicator healthIndicator;
 
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private final Backpressure backpressure = mock(Backpressure.class);
+
+    @BeforeEach
+    void setup() {
+        //the endpoints are not started, each test starts a new window of its own outcomes
+        healthIndicator.reset();
+    }
+
     @Test
     void down() throws Exception {
-        healthIndicator.error("got some error");
+        for (int i = 0; i < 10; i++) {
+            healthIndicator.error("got some error");
+        }
         this.mockMvc.perform(get("/actuator/health/application"))
                 .andExpect(status().is(503))
-                .andExpect(content().string("{\"status\":\"DOWN\",\"details\":{\"message\":\"got some error\"}}"));
+                .andExpect(jsonPath("$.status").value("DOWN"))
+                .andExpect(jsonPath("$.details.message").value("got some error"))
+                .andExpect(jsonPath("$.details.successes").value(0))
+                .andExpect(jsonPath("$.details.errors").value(10))
+                .andExpect(jsonPath("$.details.errorPercent").value(100.0))
+                .andExpect(jsonPath("$.details.recentErrors", hasSize(5)))
+                .andExpect(jsonPath("$.details.recentErrors", everyItem(is("got some error"))));
     }
 
     @Test
@@ -32,7 +63,11 @@ public class ApplicationHealthIndicatorTest {
         healthIndicator.success();
         this.mockMvc.perform(get("/actuator/health/application"))
                 .andExpect(status().isOk())
-                .andExpect(content().string("{\"status\":\"UP\"}"));
+                .andExpect(jsonPath("$.status").value("UP"))
+                .andExpect(jsonPath("$.details.message").doesNotExist())
+                .andExpect(jsonPath("$.details.successes").value(1))
+                .andExpect(jsonPath("$.details.errors").value(0))
+                .andExpect(jsonPath("$.details.recentErrors").isEmpty());
     }
 
     @Test
@@ -42,4 +77,64 @@ public class ApplicationHealthIndicatorTest {
                 .andExpect(status().isOk());
     }
 
-}
\ No newline at end of file
+    @Test
+    void upDespiteRareErrors() {
+        ApplicationHealthIndicator indicator = createIndicator();
+        for (int i = 0; i < 99; i++) {
+            indicator.success();
+        }
+        indicator.error("bad line");
+
+        Health health = indicator.health();
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).containsEntry("successes", 99L)
+                .containsEntry("errors", 1L)
+                .containsEntry("errorPercent", 1.0)
+                .containsEntry("recentErrors", List.of("bad line"));
+        assertThat(indicator.isSuccess()).isTrue();
+    }
+
+    @Test
+    void downOnErrorRateThenRecovers() {
+        ApplicationHealthIndicator indicator = createIndicator();
+        indicator.success();
+        indicator.error("first error");
+        indicator.error("second error");
+
+        Health health = indicator.health();
+        assertThat(health.getStatus()).isEqualTo(Status.DOWN);
+        assertThat(health.getDetails()).containsEntry("message", "second error");
+
+        //errors fall out of the window
+        now.addAndGet(61_000);
+        indicator.success();
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    void downWhenStalledWithBacklog() {
+        ApplicationHealthIndicator indicator = createIndicator();
+        indicator.success();
+        now.addAndGet(120_000);
+        assertThat(indicator.isSuccess()).isTrue();
+
+        when(backpressure.getBacklog()).thenReturn(3L);
+        Health health = indicator.health();
+        assertThat(health.getStatus()).isEqualTo(Status.DOWN);
+        assertThat(health.getDetails()).containsKey("message");
+
+        indicator.success();
+        assertThat(indicator.isSuccess()).isTrue();
+    }
+
+    private ApplicationHealthIndicator createIndicator() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.setSftpHealthWindow(60_000L);
+        applicationProperties.setSftpHealthErrorPercent(50);
+        applicationProperties.setSftpHealthMinFiles(1);
+        applicationProperties.setSftpHealthStallTimeout(120_000L);
+        applicationProperties.setSftpHealthRecentErrors(3);
+        return new ApplicationHealthIndicator(applicationProperties, backpressure, now::get);
+    }
+
+}
@@ -11,12 +11,14 @@ import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.integration.core.MessageSource;
 import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.SubscribableChannel;
 import org.springframework.test.web.servlet.MockMvc;
 
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+@SpringBootTest(properties = {"sftp-actuator-username=operator", "sftp-actuator-password={noop}secret"})
 @AutoConfigureMockMvc
 @EnableAutoConfiguration(exclude = {TransactionAutoConfiguration.class})
 public class ApplicationSecurityTest {
@@ -30,8 +32,10 @@ public class ApplicationSecurityTest {
     public static class TestMockConfig {
         @MockBean
         private SftpAdapter sftpAdapter;
-        @MockBean
+        @MockBean(name = "sftpMessageSource")
         private MessageSource sftpMessageSource;
+        @MockBean(name = "sftpChannel")
+        private SubscribableChannel sftpChannel;
         @MockBean
         @Qualifier("inboundHandler")
         public MessageHandler inboundHandler;
@@ -53,6 +57,28 @@ public class ApplicationSecurityTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void isFilesAuthenticated() throws Exception {
+        this.mockMvc.perform(get("/actuator/files"))
+                .andExpect(status().isForbidden());
+        this.mockMvc.perform(get("/actuator/files").with(httpBasic("operator", "wrong")))
+                .andExpect(status().isUnauthorized());
+        this.mockMvc.perform(get("/actuator/files").with(httpBasic("operator", "secret")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void isMetricsAuthenticated() throws Exception {
+        this.mockMvc.perform(get("/actuator/metrics"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void isMetricsDisabledByDefault() throws Exception {
+        this.mockMvc.perform(get("/actuator/prometheus").with(httpBasic("operator", "secret")))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void otherURLDenied() throws Exception {
         this.mockMvc.perform(get("/actuator/beans"))
@@ -0,0 +1,118 @@
+package springboot.integration.sftp;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.sshd.sftp.client.SftpClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.integration.file.remote.RemoteFileTemplate;
+import org.springframework.integration.file.remote.session.CachingSessionFactory;
+import springboot.integration.sftp.utils.EmbeddedSftpServer;
+import springboot.integration.sftp.utils.SftpClientUtils;
+import springboot.integration.sftp.utils.TransactionManagerOps;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Two instances polling the same remote directory in cluster mode.
+ */
+public class ClusterModeTest {
+
+    private static final String REMOTE_DIR = "cluster-upload";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void processEachFileOnce() throws Exception {
+        EmbeddedSftpServer server = new EmbeddedSftpServer();
+        server.setPort(0);
+        server.setUploadDir(REMOTE_DIR);
+        server.start();
+        try (ConfigurableApplicationContext first = start("first", server);
+             ConfigurableApplicationContext second = start("second", server)) {
+            @SuppressWarnings("unchecked")
+            CachingSessionFactory<SftpClient.DirEntry> sessionFactory =
+                    first.getBean("sftpSessionFactory", CachingSessionFactory.class);
+            RemoteFileTemplate<SftpClient.DirEntry> template = new RemoteFileTemplate<>(sessionFactory);
+            TransactionManagerOps firstOps = first.getBean(TransactionManagerOps.class);
+            TransactionManagerOps secondOps = second.getBean(TransactionManagerOps.class);
+
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                String name = "cluster" + i + ".txt";
+                SftpClientUtils.createTestFile(template, REMOTE_DIR + "/" + name, "7\n11\n");
+                names.add(TransactionManagerOps.key("default", name));
+            }
+            await().atMost(TIMEOUT).until(() -> names.stream()
+                    .allMatch(name -> firstOps.inspect(name) != null || secondOps.inspect(name) != null));
+
+            //no duplicate processing over the next polls
+            await().during(Duration.ofSeconds(1)).atMost(Duration.ofSeconds(2)).untilAsserted(() -> {
+                for (String name : names) {
+                    Boolean firstOutcome = firstOps.inspect(name);
+                    Boolean secondOutcome = secondOps.inspect(name);
+                    assertThat(firstOutcome == null ? secondOutcome : firstOutcome).isTrue();
+                    assertThat(firstOutcome == null || secondOutcome == null).isTrue();
+                }
+            });
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void retryFailedFileBelowWatermark() throws Exception {
+        EmbeddedSftpServer server = new EmbeddedSftpServer();
+        server.setPort(0);
+        server.setUploadDir(REMOTE_DIR);
+        server.start();
+        try (ConfigurableApplicationContext first = start("first", server, "--sftp-listing-watermark=true",
+                "--sftp-listing-watermark-lag=0", "--sftp-max-fetch-size=10", "--sftp-concurrent-enabled=true")) {
+            @SuppressWarnings("unchecked")
+            CachingSessionFactory<SftpClient.DirEntry> sessionFactory =
+                    first.getBean("sftpSessionFactory", CachingSessionFactory.class);
+            RemoteFileTemplate<SftpClient.DirEntry> template = new RemoteFileTemplate<>(sessionFactory);
+            TransactionManagerOps ops = first.getBean(TransactionManagerOps.class);
+            MeterRegistry registry = first.getBean(MeterRegistry.class);
+
+            //the failing file is the oldest, the listing moves the watermark while a worker processes it
+            SftpClientUtils.createTestFile(template, REMOTE_DIR + "/failing.txt",
+                    "7\n".repeat(5000) + "not a number");
+            SftpClientUtils.createTestFile(template, REMOTE_DIR + "/numbers.txt", "7\n11\n");
+
+            await().atMost(TIMEOUT).until(() -> ops.inspect("numbers.txt") != null);
+            assertThat(ops.inspect("numbers.txt")).isTrue();
+            //the rolled back file is released, listed again and downloaded again
+            await().atMost(TIMEOUT).until(() -> registry.get("sftp.download").timer().count() >= 4);
+            assertThat(ops.inspect("failing.txt")).isFalse();
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    private ConfigurableApplicationContext start(String instanceId, EmbeddedSftpServer server, String... args)
+            throws IOException {
+        List<String> arguments = new ArrayList<>(List.of("--server.port=0",
+                "--sftp-port=" + server.getPort(),
+                "--sftp-known-hosts-file=" + server.writeKnownHosts(dir),
+                "--sftp-remote-dir=" + REMOTE_DIR,
+                "--sftp-local-dir=" + dir.resolve(instanceId),
+                "--sftp-poller-delay=100",
+                "--sftp-metadata-store=memory",
+                "--sftp-cluster-claim-dir=" + dir.resolve("claims"),
+                "--sftp-cluster-instance-id=" + instanceId));
+        arguments.addAll(List.of(args));
+        return new SpringApplicationBuilder(Application.class).run(arguments.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,118 @@
+package springboot.integration.sftp;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.sshd.sftp.client.SftpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.integration.file.remote.RemoteFileTemplate;
+import org.springframework.integration.file.remote.session.CachingSessionFactory;
+import springboot.integration.sftp.utils.EmbeddedSftpServer;
+import springboot.integration.sftp.utils.SftpClientUtils;
+import springboot.integration.sftp.utils.TransactionManagerOps;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * The main source and a named source polling their own remote directories.
+ */
+public class MultiSourceTest {
+
+    private static final String MAIN_DIR = "main-upload";
+
+    private static final String PARTNER_DIR = "partner-upload";
+
+    @TempDir
+    Path dir;
+
+    private EmbeddedSftpServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new EmbeddedSftpServer();
+        server.setPort(0);
+        server.setUploadDir(MAIN_DIR);
+        server.start();
+        Files.createDirectories(Paths.get(EmbeddedSftpServer.PATHNAME, PARTNER_DIR));
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.shutdown();
+    }
+
+    @Test
+    void pollAndCommitEachSource() throws Exception {
+        try (ConfigurableApplicationContext context = start()) {
+            RemoteFileTemplate<SftpClient.DirEntry> template = template(context);
+            TransactionManagerOps managerOps = context.getBean(TransactionManagerOps.class);
+
+            //same file name on both sources, failing on the named source only
+            SftpClientUtils.createTestFile(template, MAIN_DIR + "/numbers.txt", "7\n11\n");
+            SftpClientUtils.createTestFile(template, PARTNER_DIR + "/numbers.txt", "not a number");
+
+            await().atMost(Duration.ofSeconds(60)).until(() -> managerOps.inspect("numbers.txt") != null
+                    && managerOps.inspect("partner:numbers.txt") != null);
+            assertThat(managerOps.inspect("numbers.txt")).isTrue();
+            assertThat(managerOps.inspect("partner:numbers.txt")).isFalse();
+            //committed on the main source, kept for retry on the named source
+            assertThat(dir.resolve("local").resolve("numbers.txt")).doesNotExist();
+            assertThat(dir.resolve("local-partner").resolve("numbers.txt")).exists();
+
+            MeterRegistry registry = context.getBean(MeterRegistry.class);
+            assertThat(registry.get("sftp.download").tag("source", "default").timer().count()).isEqualTo(1);
+            assertThat(registry.get("sftp.download").tag("source", "partner").timer().count()).isEqualTo(1);
+            assertThat(registry.get("sftp.processing").tag("source", "default").timer().count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void writeResultsOfEachSource() throws Exception {
+        Path results = dir.resolve("results");
+        try (ConfigurableApplicationContext context = start("--sftp-result-sink=local",
+                "--sftp-results-dir=" + results)) {
+            RemoteFileTemplate<SftpClient.DirEntry> template = template(context);
+            TransactionManagerOps managerOps = context.getBean(TransactionManagerOps.class);
+
+            //same file name on both sources, the results of the named source go into its subdirectory
+            SftpClientUtils.createTestFile(template, MAIN_DIR + "/numbers.txt", "7\n");
+            SftpClientUtils.createTestFile(template, PARTNER_DIR + "/numbers.txt", "8\n");
+
+            await().atMost(Duration.ofSeconds(60)).until(() -> managerOps.inspect("numbers.txt") != null
+                    && managerOps.inspect("partner:numbers.txt") != null);
+            assertThat(Files.readAllLines(results.resolve("numbers.txt.results"))).containsExactly("7 1");
+            assertThat(Files.readAllLines(results.resolve("partner").resolve("numbers.txt.results")))
+                    .containsExactly("8 0");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RemoteFileTemplate<SftpClient.DirEntry> template(ConfigurableApplicationContext context) {
+        return new RemoteFileTemplate<>(context.getBean("sftpSessionFactory", CachingSessionFactory.class));
+    }
+
+    private ConfigurableApplicationContext start(String... args) throws IOException {
+        List<String> arguments = new ArrayList<>(List.of("--server.port=0",
+                "--sftp-port=" + server.getPort(),
+                "--sftp-known-hosts-file=" + server.writeKnownHosts(dir),
+                "--sftp-remote-dir=" + MAIN_DIR,
+                "--sftp-local-dir=" + dir.resolve("local"),
+                "--sftp-poller-delay=100",
+                "--sftp-metadata-store=memory",
+                "--sftp-sources.partner.remote-dir=" + PARTNER_DIR));
+        arguments.addAll(List.of(args));
+        return new SpringApplicationBuilder(Application.class).run(arguments.toArray(String[]::new));
+    }
+}
@@ -2,6 +2,7 @@ package springboot.integration.sftp;
 
 
 import org.apache.sshd.sftp.client.SftpClient;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,15 +18,18 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.integration.file.remote.RemoteFileTemplate;
 import org.springframework.integration.file.remote.session.CachingSessionFactory;
 import org.springframework.integration.file.remote.session.SessionFactory;
+import springboot.integration.sftp.pollers.Backpressure;
 import springboot.integration.sftp.utils.EmbeddedSftpServer;
 import springboot.integration.sftp.utils.SftpClientUtils;
 import springboot.integration.sftp.utils.TransactionManagerOps;
 
 import java.io.File;
+import java.time.Duration;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 
-@SpringBootTest
+@SpringBootTest(properties = {"sftp-health-min-files=1", "sftp-metadata-store=memory"})
 @AutoConfigureMockMvc
 @AutoConfigureDataMongo
 @EnableAutoConfiguration
@@ -47,6 +51,9 @@ public class SftpAdapterTest {
     @Autowired
     public TransactionManagerOps managerOps;
 
+    @Autowired
+    private Backpressure backpressure;
+
     @TestConfiguration
     public static class TestConfig {
 
@@ -65,6 +72,12 @@ public class SftpAdapterTest {
 
     }
 
+    @BeforeEach
+    void setup() {
+        //each test is rated on a new window of its own outcomes
+        healthIndicator.reset();
+    }
+
     @Test
     void inSftpWithTransactionManagerSuccess() {
         String fileName = "numbers1.txt";
@@ -93,11 +106,14 @@ public class SftpAdapterTest {
         //local file should be present for retry on the next poll since an error happened
         File localFile = new File(applicationProperties.getSftpLocalDir() + File.separator + fileName);
         assertThat(localFile.exists()).isTrue();
-        // not healthy
+        // not healthy once the error reached the error channel, only errors in the window
+        await().atMost(Duration.ofSeconds(10)).until(() -> !healthIndicator.getRecentErrors().isEmpty());
         assertThat(healthIndicator.isSuccess()).isFalse();
         //clean it since we are done
         SftpClientUtils.deleteLocalFiles(localFile.getPath());
         deleteUploadedFile(remoteFile);
+        //no retry left to record an error in the next test
+        await().atMost(Duration.ofSeconds(10)).until(() -> backpressure.getInFlight() == 0);
 
     }
 
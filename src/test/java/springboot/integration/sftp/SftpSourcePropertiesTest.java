@@ -0,0 +1,31 @@
+package springboot.integration.sftp;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SftpSourcePropertiesTest {
+
+    @Test
+    void defaultToMainSource() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.setSftpHost("localhost");
+        applicationProperties.setSftpPort(2222);
+        applicationProperties.setSftpRemoteDir("upload");
+        applicationProperties.setSftpLocalDir("local-sftp");
+        applicationProperties.setSftpRemoteArchiveDir("archive");
+        applicationProperties.setSftpMaxMessagesPerPoll(10);
+        SftpSourceProperties partner = new SftpSourceProperties();
+        partner.setHost("partner.example.com");
+        partner.setMaxMessagesPerPoll(2);
+
+        SftpSourceProperties source = partner.withDefaults(SftpSourceProperties.of(applicationProperties), "partner");
+
+        assertThat(source.getHost()).isEqualTo("partner.example.com");
+        assertThat(source.getPort()).isEqualTo(2222);
+        assertThat(source.getRemoteDir()).isEqualTo("upload");
+        assertThat(source.getLocalDir()).isEqualTo("local-sftp-partner");
+        assertThat(source.getArchiveDir()).isEqualTo("archive-partner");
+        assertThat(source.getMaxMessagesPerPoll()).isEqualTo(2);
+    }
+}
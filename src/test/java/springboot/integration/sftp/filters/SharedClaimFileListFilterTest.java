@@ -0,0 +1,126 @@
+package springboot.integration.sftp.filters;
+
+import org.apache.sshd.sftp.client.SftpClient;
+import org.apache.sshd.sftp.common.SftpConstants;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SharedClaimFileListFilterTest {
+
+    private static final Duration LEASE = Duration.ofMinutes(10);
+
+    private static final Duration RETENTION = Duration.ofDays(7);
+
+    private static final long NOW = System.currentTimeMillis();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void claimEachFileOnce() {
+        SharedClaimFileListFilter first = filter("first", NOW);
+        SharedClaimFileListFilter second = filter("second", NOW);
+        SftpClient.DirEntry numbers1 = entry("numbers1.txt", 1_000);
+        SftpClient.DirEntry numbers2 = entry("numbers2.txt", 1_000);
+
+        assertThat(first.filterFiles(new SftpClient.DirEntry[]{numbers1})).containsExactly(numbers1);
+        assertThat(second.filterFiles(new SftpClient.DirEntry[]{numbers1, numbers2})).containsExactly(numbers2);
+        // the owner keeps accepting its files on retries
+        assertThat(first.accept(numbers1)).isTrue();
+        assertThat(first.accept(numbers2)).isFalse();
+        // a new version of a file is claimed again
+        assertThat(second.accept(entry("numbers1.txt", 2_000))).isTrue();
+    }
+
+    @Test
+    void releaseOnRollback() {
+        SharedClaimFileListFilter first = filter("first", NOW);
+        SharedClaimFileListFilter second = filter("second", NOW);
+        SftpClient.DirEntry numbers1 = entry("numbers1.txt", 1_000);
+        SftpClient.DirEntry numbers2 = entry("numbers2.txt", 1_000);
+        List<SftpClient.DirEntry> accepted = first.filterFiles(new SftpClient.DirEntry[]{numbers1, numbers2});
+
+        assertThat(second.remove(numbers2)).isFalse();
+        first.rollback(numbers2, accepted);
+
+        assertThat(second.accept(numbers1)).isFalse();
+        assertThat(second.accept(numbers2)).isTrue();
+    }
+
+    @Test
+    void takeOverExpiredLease() {
+        SftpClient.DirEntry numbers = entry("numbers.txt", 1_000);
+        assertThat(filter("first", NOW).accept(numbers)).isTrue();
+
+        assertThat(filter("second", NOW + LEASE.toMillis()).accept(numbers)).isFalse();
+        assertThat(filter("second", NOW + LEASE.toMillis() + 1).accept(numbers)).isTrue();
+        // the previous owner lost its claim
+        SharedClaimFileListFilter first = filter("first", NOW + LEASE.toMillis() + 2);
+        assertThat(first.accept(numbers)).isFalse();
+        assertThat(first.release("numbers.txt")).isFalse();
+    }
+
+    @Test
+    void keepCommittedClaims() {
+        SharedClaimFileListFilter first = filter("first", NOW);
+        SftpClient.DirEntry numbers = entry("numbers.txt", 1_000);
+        assertThat(first.accept(numbers)).isTrue();
+
+        assertThat(first.commit("numbers.txt")).isTrue();
+
+        // a committed claim has no lease, not even its owner processes the file again
+        assertThat(filter("second", NOW + LEASE.toMillis() + 1).accept(numbers)).isFalse();
+        assertThat(first.accept(numbers)).isFalse();
+        assertThat(filter("second", NOW).commit("numbers.txt")).isFalse();
+        // an archived file is released
+        assertThat(first.release("numbers.txt")).isTrue();
+        assertThat(claims()).isZero();
+    }
+
+    @Test
+    void sweepExpiredClaims() {
+        SharedClaimFileListFilter first = filter("first", NOW);
+        first.filterFiles(new SftpClient.DirEntry[]{entry("numbers1.txt", 1_000), entry("numbers2.txt", 1_000)});
+        first.commit("numbers2.txt");
+
+        filter("second", NOW + LEASE.toMillis() + 1).filterFiles(new SftpClient.DirEntry[0]);
+        assertThat(claims()).isOne();
+
+        filter("second", NOW + RETENTION.toMillis() + 1).filterFiles(new SftpClient.DirEntry[0]);
+        assertThat(claims()).isZero();
+    }
+
+    private SharedClaimFileListFilter filter(String instanceId, long now) {
+        return new SharedClaimFileListFilter(dir, "localhost:2222/upload/", instanceId, LEASE, RETENTION,
+                Clock.fixed(Instant.ofEpochMilli(now), ZoneOffset.UTC));
+    }
+
+    private long claims() {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static SftpClient.DirEntry entry(String name, long modified) {
+        SftpClient.Attributes attributes = new SftpClient.Attributes();
+        attributes.setType(SftpConstants.SSH_FILEXFER_TYPE_REGULAR);
+        attributes.setPermissions(SftpConstants.S_IFREG | 0644);
+        attributes.setModifyTime(FileTime.fromMillis(modified));
+        return new SftpClient.DirEntry(name, name, attributes);
+    }
+}
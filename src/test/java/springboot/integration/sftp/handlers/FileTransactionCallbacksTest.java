@@ -0,0 +1,310 @@
+package springboot.integration.sftp.handlers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.integration.file.FileHeaders;
+import org.springframework.integration.file.filters.AcceptOnceFileListFilter;
+import org.springframework.integration.transaction.IntegrationResourceHolder;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.messaging.support.MessageBuilder;
+import springboot.integration.sftp.ApplicationProperties;
+import springboot.integration.sftp.filters.RemoteAcceptOnceFileListFilter;
+import springboot.integration.sftp.pollers.Backpressure;
+import springboot.integration.sftp.pollers.PollEndExecutor;
+import springboot.integration.sftp.synchronizers.RemoteArchiver;
+import springboot.integration.sftp.utils.FileCompletion;
+import springboot.integration.sftp.utils.TransactionManagerOps;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+public class FileTransactionCallbacksTest {
+
+    @TempDir
+    Path localDir;
+
+    private final AcceptOnceFileListFilter<File> localFilter = new AcceptOnceFileListFilter<>();
+
+    private final RemoteAcceptOnceFileListFilter remoteFilter = mock(RemoteAcceptOnceFileListFilter.class);
+
+    private TransactionManagerOps managerOps;
+
+    private FileTransactionCallbacks callbacks;
+
+    @BeforeEach
+    void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.setSftpOutcomeWindow(100);
+        managerOps = new TransactionManagerOps(applicationProperties);
+        callbacks = new FileTransactionCallbacks("default", localFilter, remoteFilter, managerOps, false);
+    }
+
+    @Test
+    void commitEachFile() throws IOException {
+        File file = receive("numbers1.txt");
+
+        callbacks.processAfterCommit(holder(file));
+
+        assertThat(file).doesNotExist();
+        assertThat(managerOps.inspect("numbers1.txt")).isTrue();
+        //released by the local filter
+        assertThat(localFilter.accept(file)).isTrue();
+    }
+
+    @Test
+    void recordStreamingErrorOfForgottenFile() {
+        //the remote filter no longer knows the file, the error must still be recorded
+        when(remoteFilter.forget("numbers1.txt")).thenReturn(false);
+        callbacks = new FileTransactionCallbacks("default", localFilter, remoteFilter, managerOps, true);
+        managerOps.begin("numbers1.txt");
+        IntegrationResourceHolder holder = new IntegrationResourceHolder();
+        holder.setMessage(MessageBuilder.withPayload(new ByteArrayInputStream(new byte[0]))
+                .setHeader(FileHeaders.REMOTE_FILE, "numbers1.txt")
+                .build());
+
+        callbacks.processAfterRollback(holder);
+
+        verify(remoteFilter).forget("numbers1.txt");
+        assertThat(managerOps.inspect("numbers1.txt")).isFalse();
+    }
+
+    @Test
+    void publishDeferredEffectsOnCommit() throws IOException {
+        File file = receive("numbers1.txt");
+        FileCompletion completion = mock(FileCompletion.class);
+        managerOps.onCompletion("numbers1.txt", completion);
+        verifyNoInteractions(completion);
+
+        callbacks.processAfterCommit(holder(file));
+
+        verify(completion).commit();
+        verify(completion, never()).rollback();
+        assertThat(managerOps.inspect("numbers1.txt")).isTrue();
+    }
+
+    @Test
+    void dropDeferredEffectsOnRollback() throws IOException {
+        File file = receive("numbers1.txt");
+        FileCompletion completion = mock(FileCompletion.class);
+        managerOps.onCompletion("numbers1.txt", completion);
+
+        callbacks.processAfterRollback(holder(file));
+
+        verify(completion, never()).commit();
+        verify(completion).rollback();
+        assertThat(managerOps.inspect("numbers1.txt")).isFalse();
+    }
+
+    @Test
+    void rollbackFileNotPublished() throws IOException {
+        File file = receive("numbers1.txt");
+        FileCompletion completion = mock(FileCompletion.class);
+        doThrow(new IOException("disk full")).when(completion).commit();
+        managerOps.onCompletion("numbers1.txt", completion);
+
+        callbacks.processAfterCommit(holder(file));
+
+        verify(completion).rollback();
+        assertThat(file).exists();
+        assertThat(managerOps.inspect("numbers1.txt")).isFalse();
+        //released by the local filter to be retried
+        assertThat(localFilter.accept(file)).isTrue();
+    }
+
+    @Test
+    void commitBatchOnceThePollEnds() throws IOException {
+        callbacks.setBatch(3, FileTransactionCallbacks.FailurePolicy.FILE);
+        File file1 = receive("numbers1.txt");
+        File file2 = receive("numbers2.txt");
+
+        callbacks.processAfterCommit(holder(file1));
+        callbacks.processAfterCommit(holder(file2));
+        assertThat(file1).exists();
+        assertThat(managerOps.inspect("numbers1.txt")).isNull();
+
+        //empty receive ending the poll
+        callbacks.processAfterCommit(new IntegrationResourceHolder());
+        assertThat(file1).doesNotExist();
+        assertThat(file2).doesNotExist();
+        assertThat(managerOps.inspect("numbers2.txt")).isTrue();
+    }
+
+    @Test
+    void commitBatchOfAPollEndedByAnException() throws IOException {
+        callbacks.setBatch(3, FileTransactionCallbacks.FailurePolicy.FILE);
+        File file1 = receive("numbers1.txt");
+        File file2 = receive("numbers2.txt");
+        PollEndExecutor poller = new PollEndExecutor(callbacks::flush);
+
+        //the handler exception ends the poll before its empty receive
+        assertThatThrownBy(() -> poller.execute(() -> {
+            callbacks.processAfterCommit(holder(file1));
+            callbacks.processAfterRollback(holder(file2));
+            throw new MessagingException("handler failed");
+        })).isInstanceOf(MessagingException.class);
+        assertThat(file1).doesNotExist();
+        assertThat(file2).exists();
+        assertThat(managerOps.inspect("numbers1.txt")).isTrue();
+        assertThat(managerOps.inspect("numbers2.txt")).isFalse();
+    }
+
+    @Test
+    void commitBatchOnceFull() throws IOException {
+        callbacks.setBatch(2, FileTransactionCallbacks.FailurePolicy.FILE);
+        File file1 = receive("numbers1.txt");
+        File file2 = receive("numbers2.txt");
+
+        callbacks.processAfterCommit(holder(file1));
+        callbacks.processAfterCommit(holder(file2));
+
+        assertThat(file1).doesNotExist();
+        assertThat(managerOps.inspect("numbers1.txt")).isTrue();
+    }
+
+    @Test
+    void rollbackOnlyTheFailedFile() throws IOException {
+        callbacks.setBatch(3, FileTransactionCallbacks.FailurePolicy.FILE);
+        File file1 = receive("numbers1.txt");
+        File file2 = receive("numbers2.txt");
+        File file3 = receive("numbers3.txt");
+
+        callbacks.processAfterCommit(holder(file1));
+        callbacks.processAfterRollback(holder(file2));
+        callbacks.processAfterCommit(holder(file3));
+
+        assertThat(file1).doesNotExist();
+        assertThat(file2).exists();
+        assertThat(file3).doesNotExist();
+        assertThat(managerOps.inspect("numbers1.txt")).isTrue();
+        assertThat(managerOps.inspect("numbers2.txt")).isFalse();
+        assertThat(managerOps.inspect("numbers3.txt")).isTrue();
+    }
+
+    @Test
+    void rejectUnboundedBatch() {
+        assertThatThrownBy(() -> callbacks.setBatch(-1, FileTransactionCallbacks.FailurePolicy.BATCH))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("sftp-max-messages-per-poll");
+    }
+
+    @Test
+    void rollbackTheWholeBatch() throws IOException {
+        callbacks.setBatch(3, FileTransactionCallbacks.FailurePolicy.BATCH);
+        File file1 = receive("numbers1.txt");
+        File file2 = receive("numbers2.txt");
+        FileCompletion completion = mock(FileCompletion.class);
+        managerOps.onCompletion("numbers1.txt", completion);
+
+        callbacks.processAfterCommit(holder(file1));
+        callbacks.processAfterRollback(holder(file2));
+        callbacks.processAfterCommit(new IntegrationResourceHolder());
+
+        //the processed file never applied its side effects
+        verify(completion, never()).commit();
+        verify(completion).rollback();
+        assertThat(file1).exists();
+        assertThat(file2).exists();
+        assertThat(managerOps.inspect("numbers1.txt")).isFalse();
+        assertThat(managerOps.inspect("numbers2.txt")).isFalse();
+        //both retried on the next poll
+        assertThat(localFilter.accept(file1)).isTrue();
+        assertThat(localFilter.accept(file2)).isTrue();
+    }
+
+    @Test
+    void releaseFilesInFlight() throws IOException {
+        Backpressure backpressure = mock(Backpressure.class);
+        callbacks.setBackpressure(backpressure);
+        callbacks.setBatch(10, FileTransactionCallbacks.FailurePolicy.FILE);
+        IntegrationResourceHolder committed = holder(receive("numbers1.txt"));
+        IntegrationResourceHolder rolledBack = holder(receive("numbers2.txt"));
+
+        //released at once, not at the end of the batch
+        callbacks.processAfterCommit(committed);
+        callbacks.processAfterRollback(rolledBack);
+
+        verify(backpressure).release(committed.getMessage());
+        verify(backpressure).release(rolledBack.getMessage());
+    }
+
+    @Test
+    void archiveRemoteFilesOnceThePollEnds() throws IOException {
+        RemoteArchiver archiver = mock(RemoteArchiver.class);
+        when(archiver.archive(any())).thenReturn(List.of("2026-10-18/numbers1.txt"));
+        callbacks.setArchiver(archiver, name -> name.replace('_', '/'), 10);
+        File file1 = receive("2026-10-18_numbers1.txt");
+        File file2 = receive("numbers2.txt");
+        File file3 = receive("numbers3.txt");
+
+        callbacks.processAfterCommit(holder(file1));
+        callbacks.processAfterCommit(holder(file2));
+        callbacks.processAfterRollback(holder(file3));
+        verify(archiver, never()).archive(any());
+
+        callbacks.processAfterCommit(new IntegrationResourceHolder());
+        verify(archiver).archive(List.of("2026-10-18/numbers1.txt", "numbers2.txt"));
+        //only the archived file is forgotten by the remote filter
+        verify(remoteFilter).forget("2026-10-18/numbers1.txt");
+        verify(remoteFilter, never()).forget("numbers2.txt");
+    }
+
+    @Test
+    void archiveOutsideTheLock() throws Exception {
+        RemoteArchiver archiver = mock(RemoteArchiver.class);
+        CountDownLatch archiving = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        when(archiver.archive(any())).thenAnswer(invocation -> {
+            archiving.countDown();
+            assertThat(resume.await(10, TimeUnit.SECONDS)).isTrue();
+            return invocation.getArgument(0);
+        });
+        callbacks.setArchiver(archiver, UnaryOperator.identity(), 1);
+        File file1 = receive("numbers1.txt");
+        File file2 = receive("numbers2.txt");
+        Thread worker = new Thread(() -> callbacks.processAfterCommit(holder(file1)));
+        worker.start();
+        assertThat(archiving.await(10, TimeUnit.SECONDS)).isTrue();
+
+        //another worker commits and queues its file without waiting for the archive in progress
+        callbacks.processAfterCommit(holder(file2));
+        assertThat(file2).doesNotExist();
+        assertThat(managerOps.inspect("numbers2.txt")).isTrue();
+        verify(archiver).archive(List.of("numbers1.txt"));
+
+        resume.countDown();
+        worker.join(10_000);
+        verify(archiver).archive(List.of("numbers2.txt"));
+    }
+
+    private File receive(String name) throws IOException {
+        File file = Files.writeString(localDir.resolve(name), "7\n").toFile();
+        assertThat(localFilter.accept(file)).isTrue();
+        managerOps.begin(name);
+        return file;
+    }
+
+    private static IntegrationResourceHolder holder(File file) {
+        IntegrationResourceHolder holder = new IntegrationResourceHolder();
+        holder.setMessage(new GenericMessage<>(file));
+        return holder;
+    }
+}
@@ -0,0 +1,58 @@
+package springboot.integration.sftp.metadata;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ContentDigestIndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void sameDigestForSameContent() throws IOException {
+        Path original = Files.writeString(dir.resolve("numbers.txt"), "7\n11\n");
+        Path retry = Files.writeString(dir.resolve("numbers_retry2.txt"), "7\n11\n");
+        Path other = Files.writeString(dir.resolve("other.txt"), "7\n12\n");
+
+        assertThat(ContentDigestIndex.digest(retry)).isEqualTo(ContentDigestIndex.digest(original))
+                .isNotEqualTo(ContentDigestIndex.digest(other))
+                .hasSize(64);
+    }
+
+    @Test
+    void evictOldestAcrossRestarts() {
+        Path file = dir.resolve("digests.log");
+        ContentDigestIndex index = new ContentDigestIndex(file, 3);
+        for (int i = 1; i <= 4; i++) {
+            index.putIfAbsent("digest" + i, new ContentDigestIndex.Entry(i, i * 1000L));
+        }
+        assertThat(index.get("digest1")).isNull();
+        assertThat(index.get("digest4")).isEqualTo(new ContentDigestIndex.Entry(4, 4000));
+        //the first commit of a content keeps its entry
+        assertThat(index.putIfAbsent("digest4", new ContentDigestIndex.Entry(9, 9000))).isFalse();
+        assertThat(index.get("digest4")).isEqualTo(new ContentDigestIndex.Entry(4, 4000));
+        index.close();
+
+        ContentDigestIndex reloaded = new ContentDigestIndex(file, 3);
+        assertThat(reloaded.size()).isEqualTo(3);
+        reloaded.putIfAbsent("digest5", new ContentDigestIndex.Entry(5, 5000));
+        assertThat(reloaded.get("digest2")).isNull();
+        assertThat(reloaded.get("digest3")).isEqualTo(new ContentDigestIndex.Entry(3, 3000));
+        reloaded.close();
+    }
+
+    @Test
+    void disabledWithoutFile() {
+        ContentDigestIndex index = new ContentDigestIndex(null, 3);
+        index.putIfAbsent("digest1", new ContentDigestIndex.Entry(1, 1000));
+
+        assertThat(index.isEnabled()).isFalse();
+        assertThat(index.get("digest1")).isNull();
+    }
+}
@@ -0,0 +1,86 @@
+package springboot.integration.sftp.metadata;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileMetadataStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void reloadAfterRestart() {
+        Path file = dir.resolve("store.log");
+        FileMetadataStore store = new FileMetadataStore(file);
+        store.put("numbers1.txt", "100");
+        assertThat(store.putIfAbsent("numbers2.txt", "200")).isNull();
+        assertThat(store.replace("numbers2.txt", "200", "201")).isTrue();
+        store.put("tab\tname", "300");
+        store.remove("numbers1.txt");
+        store.close();
+
+        FileMetadataStore reloaded = new FileMetadataStore(file);
+        assertThat(reloaded.get("numbers1.txt")).isNull();
+        assertThat(reloaded.get("numbers2.txt")).isEqualTo("201");
+        assertThat(reloaded.get("tab\tname")).isEqualTo("300");
+        reloaded.close();
+    }
+
+    @Test
+    void compactStaleRecords() throws Exception {
+        Path file = dir.resolve("store.log");
+        FileMetadataStore store = new FileMetadataStore(file);
+        for (int i = 0; i < 50_000; i++) {
+            store.put("file" + (i % 10), String.valueOf(i));
+        }
+        store.close();
+        assertThat(Files.readAllLines(file).size()).isLessThan(50_000);
+
+        FileMetadataStore reloaded = new FileMetadataStore(file);
+        assertThat(reloaded.size()).isEqualTo(10);
+        assertThat(reloaded.get("file9")).isEqualTo("49999");
+        assertThat(Files.readAllLines(file)).hasSize(10);
+        reloaded.close();
+    }
+
+    @Test
+    void ignoreIncompleteLastRecord() throws Exception {
+        Path file = dir.resolve("store.log");
+        FileMetadataStore store = new FileMetadataStore(file);
+        store.put("numbers1.txt", "100");
+        store.close();
+        Files.writeString(file, "P\tnumbers2.t", StandardOpenOption.APPEND);
+
+        FileMetadataStore reloaded = new FileMetadataStore(file);
+        reloaded.put("numbers3.txt", "300");
+        reloaded.close();
+
+        FileMetadataStore again = new FileMetadataStore(file);
+        assertThat(again.get("numbers1.txt")).isEqualTo("100");
+        assertThat(again.get("numbers3.txt")).isEqualTo("300");
+        assertThat(again.size()).isEqualTo(2);
+        again.close();
+    }
+
+    @Test
+    void dropRecordTornMidAppend() throws Exception {
+        Path file = dir.resolve("store.log");
+        FileMetadataStore store = new FileMetadataStore(file);
+        store.put("numbers1.txt", "100");
+        store.close();
+        //crash after the value separator, the value is cut short and the newline is missing
+        Files.writeString(file, "P\tnumbers2.txt\t20", StandardOpenOption.APPEND);
+
+        FileMetadataStore reloaded = new FileMetadataStore(file);
+        assertThat(reloaded.get("numbers1.txt")).isEqualTo("100");
+        assertThat(reloaded.get("numbers2.txt")).isNull();
+        assertThat(Files.readAllLines(file)).containsExactly("P\tnumbers1.txt\t100");
+        reloaded.close();
+    }
+}
@@ -0,0 +1,88 @@
+package springboot.integration.sftp.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.integration.transaction.IntegrationResourceHolder;
+import org.springframework.integration.transaction.TransactionSynchronizationProcessor;
+import org.springframework.messaging.support.GenericMessage;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PipelineMetricsTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private final PipelineMetrics metrics = new PipelineMetrics(registry);
+
+    @Test
+    void recordProcessedFiles() {
+        metrics.processed("default", 1000, 168, TimeUnit.MILLISECONDS.toNanos(500));
+        metrics.processed("default", 10, 4, TimeUnit.MILLISECONDS.toNanos(10));
+        metrics.processed("partner", 5, 1, TimeUnit.MILLISECONDS.toNanos(10));
+
+        assertThat(registry.get("sftp.processing").tag("source", "default").timer().count()).isEqualTo(2);
+        assertThat(registry.get("sftp.processing.lines").tag("source", "default").counter().count()).isEqualTo(1010);
+        assertThat(registry.get("sftp.processing.primes").tag("source", "default").counter().count()).isEqualTo(172);
+        assertThat(registry.get("sftp.processing.throughput").tag("source", "default").summary().max())
+                .isEqualTo(2000);
+        assertThat(registry.get("sftp.processing.lines").tag("source", "partner").counter().count()).isEqualTo(5);
+    }
+
+    @Test
+    void recordDeduplicatedFiles() {
+        metrics.deduplicated(1024, TimeUnit.MILLISECONDS.toNanos(1500));
+        metrics.deduplicated(2048, TimeUnit.MILLISECONDS.toNanos(500));
+
+        assertThat(registry.get("sftp.dedup.files").counter().count()).isEqualTo(2);
+        assertThat(registry.get("sftp.dedup.bytes").counter().count()).isEqualTo(3072);
+        assertThat(registry.get("sftp.dedup.saved.time").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void countCommitsAndRollbacks() {
+        TransactionSynchronizationProcessor delegate = mock(TransactionSynchronizationProcessor.class);
+        TransactionSynchronizationProcessor processor =
+                new MeteredTransactionSynchronizationProcessor(delegate, metrics);
+        IntegrationResourceHolder holder = new IntegrationResourceHolder();
+        holder.setMessage(new GenericMessage<>("numbers1.txt"));
+        processor.processAfterCommit(holder);
+        processor.processAfterCommit(holder);
+        processor.processAfterRollback(holder);
+        //empty poll
+        processor.processAfterCommit(new IntegrationResourceHolder());
+
+        verify(delegate).processAfterRollback(holder);
+        assertThat(registry.get("sftp.transactions").tag("outcome", "commit").counter().count()).isEqualTo(2);
+        assertThat(registry.get("sftp.transactions").tag("outcome", "rollback").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishSessionPool() {
+        SessionFactory<String> target = mock(SessionFactory.class);
+        Session<String> session = mock(Session.class);
+        when(target.getSession()).thenReturn(session);
+        when(session.isOpen()).thenReturn(true);
+        MeteredCachingSessionFactory<String> factory = new MeteredCachingSessionFactory<>(target, metrics);
+        factory.setPoolSize(3);
+        metrics.bindSessionPool("default", factory);
+
+        Session<String> checkedOut = factory.getSession();
+
+        assertThat(registry.get("sftp.session.pool.active").tag("source", "default").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("sftp.session.pool.size").gauge().value()).isEqualTo(3);
+        assertThat(registry.get("sftp.session.checkout").timer().count()).isEqualTo(1);
+        checkedOut.close();
+        assertThat(registry.get("sftp.session.pool.active").tag("source", "default").gauge().value()).isEqualTo(0);
+        assertThat(registry.get("sftp.session.pool.idle").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("sftp.session.pool.allocated").gauge().value()).isEqualTo(1);
+    }
+}
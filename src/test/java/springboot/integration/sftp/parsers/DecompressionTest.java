@@ -0,0 +1,59 @@
+package springboot.integration.sftp.parsers;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DecompressionTest {
+
+    private static final String CONTENT = "12345\n5\n7\n";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void detectCompressedFiles() throws IOException {
+        Path plain = Files.writeString(dir.resolve("plain.txt"), CONTENT);
+        Path magic = Files.write(dir.resolve("magic.txt"), gzip(CONTENT));
+        Path named = Files.write(dir.resolve("numbers.txt.gz"), gzip(CONTENT));
+
+        assertThat(Decompression.isCompressed(plain)).isFalse();
+        assertThat(Decompression.isCompressed(magic)).isTrue();
+        assertThat(Decompression.isCompressed(named)).isTrue();
+        try (InputStream in = Decompression.open(named)) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.US_ASCII)).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    void decompressStreams() throws IOException {
+        try (InputStream in = Decompression.decompressing(new ByteArrayInputStream(gzip(CONTENT)), "numbers.txt")) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.US_ASCII)).isEqualTo(CONTENT);
+        }
+        try (InputStream in = Decompression.decompressing(new ByteArrayInputStream(gzip(CONTENT)), "n.TXT.GZ")) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.US_ASCII)).isEqualTo(CONTENT);
+        }
+        byte[] plain = CONTENT.getBytes(StandardCharsets.US_ASCII);
+        try (InputStream in = Decompression.decompressing(new ByteArrayInputStream(plain), null)) {
+            assertThat(in.readAllBytes()).isEqualTo(plain);
+        }
+    }
+
+    private static byte[] gzip(String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content.getBytes(StandardCharsets.US_ASCII));
+        }
+        return bytes.toByteArray();
+    }
+}
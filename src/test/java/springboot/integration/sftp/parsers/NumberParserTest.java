@@ -0,0 +1,69 @@
+package springboot.integration.sftp.parsers;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class NumberParserTest {
+
+    @TempDir
+    Path dir;
+
+    private final NumberParser parser = new NumberParser();
+
+    @Test
+    void parseLikeParseIntOfTrimmedLines() {
+        assertThat(parse("12345\n 5\n")).containsExactly(12345, 5);
+        assertThat(parse("\t+7 \r\n-0\r2147483647\n-2147483648")).containsExactly(7, 0, Integer.MAX_VALUE, Integer.MIN_VALUE);
+        assertThat(parse("")).isEmpty();
+    }
+
+    @Test
+    void rejectInvalidLines() {
+        assertThatThrownBy(() -> parse("not a number"))
+                .isInstanceOf(NumberFormatException.class)
+                .hasMessage("For input string: \"not a number\"");
+        assertThatThrownBy(() -> parse("1\n\n2")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> parse("1 2")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> parse("-")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> parse("2147483648")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> parse("-2147483649")).isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    void parseFileAndChannel() throws Exception {
+        StringBuilder content = new StringBuilder();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            content.append(' ').append(i * 7919).append('\n');
+            expected.add(i * 7919);
+        }
+        byte[] bytes = content.toString().getBytes(StandardCharsets.US_ASCII);
+        Path file = Files.write(dir.resolve("numbers.txt"), bytes);
+
+        List<Integer> fromFile = new ArrayList<>();
+        assertThat(parser.parse(file, fromFile::add)).isEqualTo(100_000);
+        assertThat(fromFile).isEqualTo(expected);
+
+        List<Integer> fromChannel = new ArrayList<>();
+        parser.parse(Channels.newChannel(new ByteArrayInputStream(bytes)), fromChannel::add);
+        assertThat(fromChannel).isEqualTo(expected);
+    }
+
+    private List<Integer> parse(String content) {
+        List<Integer> numbers = new ArrayList<>();
+        parser.parse(ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)), numbers::add);
+        return numbers;
+    }
+}
@@ -0,0 +1,101 @@
+package springboot.integration.sftp.parsers;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import springboot.integration.sftp.processors.BatchProcessor;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ParallelNumberParserTest {
+
+    @TempDir
+    Path dir;
+
+    private final ParallelNumberParser parser = new ParallelNumberParser(4, 1024);
+
+    @AfterEach
+    void close() {
+        parser.close();
+    }
+
+    @Test
+    void processAllRanges() throws Exception {
+        StringBuilder content = new StringBuilder();
+        long expectedSum = 0;
+        for (int i = 0; i < 100_000; i++) {
+            content.append(' ').append(i).append(i % 2 == 0 ? "\r\n" : "\n");
+            expectedSum += i;
+        }
+        Path file = Files.writeString(dir.resolve("numbers.txt"), content);
+        AtomicLong sum = new AtomicLong();
+        BatchProcessor processor = n -> {
+            sum.addAndGet(n);
+            return n % 2 == 0;
+        };
+
+        ParallelNumberParser.Result result = parser.parse(file, processor);
+
+        assertThat(result.lines()).isEqualTo(100_000);
+        assertThat(result.matches()).isEqualTo(50_000);
+        assertThat(sum.get()).isEqualTo(expectedSum);
+    }
+
+    @Test
+    void splitOnCarriageReturns() throws Exception {
+        StringBuilder content = new StringBuilder();
+        long expectedSum = 0;
+        for (int i = 0; i < 10_000; i++) {
+            content.append(i).append('\r');
+            expectedSum += i;
+        }
+        Path file = Files.writeString(dir.resolve("numbers.txt"), content);
+        AtomicLong sum = new AtomicLong();
+
+        try (ParallelNumberParser smallRanges = new ParallelNumberParser(4, 7)) {
+            ParallelNumberParser.Result result = smallRanges.parse(file, n -> {
+                sum.addAndGet(n);
+                return true;
+            });
+
+            assertThat(result.lines()).isEqualTo(10_000);
+        }
+        assertThat(sum.get()).isEqualTo(expectedSum);
+    }
+
+    @Test
+    void keepCrLfInOneRange() throws Exception {
+        //a range never ends between a CR and its LF
+        Path file = Files.writeString(dir.resolve("numbers.txt"), "1\r\n22\r\n333\r\n4444\r\n");
+
+        try (ParallelNumberParser smallRanges = new ParallelNumberParser(2, 2)) {
+            assertThat(smallRanges.parse(file, n -> true).lines()).isEqualTo(4);
+        }
+    }
+
+    @Test
+    void rejectRangesAboveMappedLimit() {
+        assertThatThrownBy(() -> new ParallelNumberParser(1, 3L * 1024 * 1024 * 1024))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ParallelNumberParser(1, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void failWholeFileOnInvalidLine() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            content.append(i == 5_000 ? "not a number" : String.valueOf(i)).append('\n');
+        }
+        Path file = Files.writeString(dir.resolve("numbers.txt"), content);
+
+        assertThatThrownBy(() -> parser.parse(file, n -> true))
+                .isInstanceOf(NumberFormatException.class)
+                .hasMessage("For input string: \"not a number\"");
+    }
+}
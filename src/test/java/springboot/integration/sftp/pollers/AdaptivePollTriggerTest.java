@@ -0,0 +1,50 @@
+package springboot.integration.sftp.pollers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.scheduling.support.SimpleTriggerContext;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdaptivePollTriggerTest {
+
+    private final AdaptivePollTrigger trigger = new AdaptivePollTrigger(100, 1000, 3);
+
+    private final Instant completed = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Test
+    void firstPollStartsImmediately() {
+        assertThat(trigger.nextExecution(new SimpleTriggerContext())).isBeforeOrEqualTo(Instant.now());
+    }
+
+    @Test
+    void repollWhenFull() {
+        poll(3);
+        assertThat(trigger.getCurrentDelay()).isZero();
+        poll(1);
+        assertThat(trigger.getCurrentDelay()).isEqualTo(100);
+    }
+
+    @Test
+    void backOffWhenEmpty() {
+        assertThat(poll(0)).isEqualTo(completed.plusMillis(200));
+        poll(0);
+        poll(0);
+        assertThat(trigger.getCurrentDelay()).isEqualTo(800);
+        poll(0);
+        assertThat(trigger.getCurrentDelay()).isEqualTo(1000);
+        poll(3);
+        poll(0);
+        assertThat(trigger.getCurrentDelay()).isEqualTo(100);
+    }
+
+    private Instant poll(int messages) {
+        for (int i = 0; i < messages; i++) {
+            trigger.afterReceive(new GenericMessage<>("file" + i), this);
+        }
+        trigger.afterReceive(null, this);
+        return trigger.nextExecution(new SimpleTriggerContext(completed, completed, completed));
+    }
+}
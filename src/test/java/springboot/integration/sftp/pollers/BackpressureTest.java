@@ -0,0 +1,100 @@
+package springboot.integration.sftp.pollers;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.messaging.support.GenericMessage;
+import springboot.integration.sftp.ApplicationProperties;
+import springboot.integration.sftp.metrics.PipelineMetrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BackpressureTest {
+
+    @TempDir
+    Path localDir;
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    @BeforeEach
+    void setup() {
+        applicationProperties.setSftpLocalDir(localDir.toString());
+        applicationProperties.setSftpStreamingEnabled(true);
+        applicationProperties.setSftpBackpressureHighBytes(100L);
+        applicationProperties.setSftpBackpressureLowBytes(50L);
+        applicationProperties.setSftpBackpressureHighFiles(3);
+        applicationProperties.setSftpBackpressureLowFiles(1);
+        applicationProperties.setSftpBackpressureHighInFlight(2);
+        applicationProperties.setSftpBackpressureLowInFlight(1);
+    }
+
+    @Test
+    void pauseOnStagedBytesAndResumeBelowLowMark() throws IOException {
+        Backpressure backpressure = new Backpressure(applicationProperties, new PipelineMetrics(registry));
+        Files.write(localDir.resolve("numbers1.txt"), new byte[80]);
+        assertThat(backpressure.isPaused()).isFalse();
+
+        Files.write(localDir.resolve("numbers2.txt"), new byte[20]);
+        assertThat(backpressure.isPaused()).isTrue();
+        assertThat(backpressure.beforeReceive(this)).isFalse();
+        assertThat(registry.get("sftp.backpressure.paused").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("sftp.staged.bytes").gauge().value()).isEqualTo(100);
+
+        //still paused between the low and the high mark
+        Files.delete(localDir.resolve("numbers2.txt"));
+        assertThat(backpressure.isPaused()).isTrue();
+
+        Files.delete(localDir.resolve("numbers1.txt"));
+        assertThat(backpressure.isPaused()).isFalse();
+        assertThat(backpressure.beforeReceive(this)).isTrue();
+    }
+
+    @Test
+    void pauseOnFilesInFlight() {
+        Backpressure backpressure = new Backpressure(applicationProperties, new PipelineMetrics(registry));
+        backpressure.afterReceive(new GenericMessage<>("numbers1.txt"), this);
+        backpressure.afterReceive(null, this);
+        assertThat(backpressure.isPaused()).isFalse();
+
+        GenericMessage<String> numbers2 = new GenericMessage<>("numbers2.txt");
+        backpressure.afterReceive(numbers2, this);
+        assertThat(backpressure.isPaused()).isTrue();
+
+        // released once by its rollback and its error
+        backpressure.release(new GenericMessage<>(numbers2.getPayload(), Map.of("source", "partner")));
+        backpressure.release(numbers2);
+        assertThat(backpressure.isPaused()).isFalse();
+        assertThat(registry.get("sftp.inflight").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void countPartialDownloadsOnlyInBytes() throws IOException {
+        Backpressure backpressure = new Backpressure(applicationProperties, new PipelineMetrics(registry));
+        Files.write(localDir.resolve("numbers1.txt.writing"), new byte[10]);
+        Files.write(localDir.resolve("numbers2.txt.writing"), new byte[10]);
+        Files.write(localDir.resolve("numbers2.txt.resume.writing"), new byte[10]);
+        Files.write(localDir.resolve("numbers3.txt"), new byte[10]);
+
+        assertThat(backpressure.getBacklog()).isOne();
+        assertThat(backpressure.getStagedBytes()).isEqualTo(40);
+    }
+
+    @Test
+    void gateOnlyStreamingReceipts() throws IOException {
+        applicationProperties.setSftpStreamingEnabled(false);
+        Backpressure backpressure = new Backpressure(applicationProperties, new PipelineMetrics(registry));
+        Files.write(localDir.resolve("numbers1.txt"), new byte[200]);
+
+        assertThat(backpressure.isPaused()).isTrue();
+        assertThat(backpressure.beforeReceive(this)).isTrue();
+    }
+}
@@ -0,0 +1,31 @@
+package springboot.integration.sftp.pollers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PollEndExecutorTest {
+
+    private final List<String> events = new ArrayList<>();
+
+    private final PollEndExecutor executor = new PollEndExecutor(() -> events.add("end"));
+
+    @Test
+    void runCallbackAfterPoll() {
+        executor.execute(() -> events.add("poll"));
+        assertThat(events).containsExactly("poll", "end");
+    }
+
+    @Test
+    void runCallbackAfterFailedPoll() {
+        assertThatThrownBy(() -> executor.execute(() -> {
+            events.add("poll");
+            throw new IllegalStateException("handler failed");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(events).containsExactly("poll", "end");
+    }
+}
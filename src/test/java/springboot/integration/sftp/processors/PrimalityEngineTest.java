@@ -0,0 +1,58 @@
+package springboot.integration.sftp.processors;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PrimalityEngineTest {
+
+    private final PrimalityEngine trialDivision = new TrialDivisionEngine();
+    private final PrimalityEngine millerRabin = new MillerRabinEngine();
+
+    @Test
+    void sameResultsForSmallNumbers() {
+        for (int n = -1000; n < 1_000_000; n++) {
+            assertThat(millerRabin.isPrime(n)).as("n=%d", n).isEqualTo(trialDivision.isPrime(n));
+        }
+    }
+
+    @Test
+    void sameResultsForLargeNumbers() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            int n = random.nextInt(Integer.MAX_VALUE) | 1;
+            assertThat(millerRabin.isPrime(n)).as("n=%d", n).isEqualTo(trialDivision.isPrime(n));
+        }
+        int[] edges = {Integer.MAX_VALUE, Integer.MIN_VALUE, 2147483629, 46337 * 46337, 25326001, 561, 1105, 1729};
+        for (int n : edges) {
+            assertThat(millerRabin.isPrime(n)).as("n=%d", n).isEqualTo(trialDivision.isPrime(n));
+        }
+    }
+
+    @Test
+    void longNumbers() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long n = random.nextLong() >>> 1;
+            assertThat(millerRabin.isPrime(n)).as("n=%d", n)
+                    .isEqualTo(BigInteger.valueOf(n).isProbablePrime(50));
+        }
+        long[] edges = {Long.MAX_VALUE, 9223372036854775783L, 3215031751L, 3825123056546413051L,
+                4294967291L * 4294967279L, -7L};
+        for (long n : edges) {
+            assertThat(millerRabin.isPrime(n)).as("n=%d", n)
+                    .isEqualTo(n > 1 && BigInteger.valueOf(n).isProbablePrime(50));
+        }
+    }
+
+    @Test
+    void resolveEngineByName() {
+        assertThat(PrimalityEngine.forName("miller-rabin")).isInstanceOf(MillerRabinEngine.class);
+        assertThat(PrimalityEngine.forName("trial-division")).isInstanceOf(TrialDivisionEngine.class);
+        assertThatThrownBy(() -> PrimalityEngine.forName("unknown")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,88 @@
+package springboot.integration.sftp.processors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import springboot.integration.sftp.ApplicationProperties;
+import springboot.integration.sftp.ProcessorPipelineProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ProcessorRegistryTest {
+
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    private final Map<String, BatchProcessor> stages = new HashMap<>();
+
+    @BeforeEach
+    void setup() {
+        applicationProperties.setSftpPrimalityEngine("miller-rabin");
+        applicationProperties.setSftpLogEachLine(false);
+        applicationProperties.setSftpProcessorStages("prime");
+        applicationProperties.getSftpPipelines().put("even", pipeline("even_*.txt", null, "even, positive"));
+        applicationProperties.getSftpPipelines().put("partner", pipeline(null, "partner", "prime,odd"));
+        ProcessorStages builtIn = new ProcessorStages();
+        stages.put("primeStage", builtIn.primeStage(applicationProperties));
+        stages.put("oddStage", builtIn.oddStage());
+        stages.put("evenStage", builtIn.evenStage());
+        stages.put("positiveStage", builtIn.positiveStage());
+    }
+
+    @Test
+    void selectByPatternThenSourceThenDefault() {
+        ProcessorRegistry registry = new ProcessorRegistry(applicationProperties, stages);
+
+        assertThat(registry.select(null, "even_1.txt").getName()).isEqualTo("even");
+        assertThat(registry.select("partner", "even_1.txt").getName()).isEqualTo("even");
+        assertThat(registry.select("partner", "numbers.txt").getName()).isEqualTo("partner");
+        assertThat(registry.select(null, "numbers.txt").getName()).isEqualTo("default");
+        assertThat(registry.select("other", "numbers.txt").getName()).isEqualTo("default");
+        //pipelines are built once and reused
+        assertThat(registry.select(null, "even_2.txt")).isSameAs(registry.select(null, "even_1.txt"));
+    }
+
+    @Test
+    void matchAllStages() {
+        ProcessorRegistry registry = new ProcessorRegistry(applicationProperties, stages);
+
+        ProcessorPipeline even = registry.select(null, "even_1.txt");
+        assertThat(even.processNumber(4)).isTrue();
+        assertThat(even.processNumber(-4)).isFalse();
+        assertThat(even.processNumber(3)).isFalse();
+
+        ProcessorPipeline partner = registry.select("partner", "numbers.txt");
+        assertThat(partner.process("7")).isTrue();
+        assertThat(partner.process("2")).isFalse();
+        assertThat(partner.processBatch(new int[]{2, 3, 5, 9}, 4)).isEqualTo(2);
+    }
+
+    @Test
+    void resolveCustomStage() {
+        stages.put("smallStage", n -> n < 100);
+        applicationProperties.getSftpPipelines().put("small", pipeline("small_*.txt", null, "prime, small"));
+        ProcessorRegistry registry = new ProcessorRegistry(applicationProperties, stages);
+
+        ProcessorPipeline small = registry.select(null, "small_1.txt");
+        assertThat(small.processNumber(97)).isTrue();
+        assertThat(small.processNumber(101)).isFalse();
+    }
+
+    @Test
+    void rejectUnknownStage() {
+        applicationProperties.getSftpPipelines().put("bad", pipeline("*.csv", null, "prime,square"));
+        assertThatThrownBy(() -> new ProcessorRegistry(applicationProperties, stages))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("square");
+    }
+
+    private static ProcessorPipelineProperties pipeline(String pattern, String source, String stages) {
+        ProcessorPipelineProperties pipeline = new ProcessorPipelineProperties();
+        pipeline.setPattern(pattern);
+        pipeline.setSource(source);
+        pipeline.setStages(stages);
+        return pipeline;
+    }
+}
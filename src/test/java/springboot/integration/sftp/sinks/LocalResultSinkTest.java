@@ -0,0 +1,71 @@
+package springboot.integration.sftp.sinks;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import springboot.integration.sftp.processors.PrimeNumberProcessor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LocalResultSinkTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void commitResultsAndSummary() throws Exception {
+        ResultWriter writer = new LocalResultSink(dir).open("default", "numbers.txt");
+        ResultSinkProcessor processor = new ResultSinkProcessor(new PrimeNumberProcessor(), writer);
+        processor.processNumber(7);
+        processor.processBatch(new int[]{-3, 10, 13}, 3);
+        writer.commit(new FileSummary("numbers.txt", 4, processor.getMatches(), 5));
+
+        assertThat(Files.readAllLines(dir.resolve("numbers.txt.results")))
+                .containsExactly("7 1", "-3 0", "10 0", "13 1");
+        assertThat(Files.readString(dir.resolve("numbers.txt.summary")))
+                .contains("lines=4", "matches=2");
+        assertThat(dir.resolve("numbers.txt.results.writing")).doesNotExist();
+    }
+
+    @Test
+    void abortDropsResults() throws Exception {
+        ResultWriter writer = new LocalResultSink(dir).open("default", "numbers.txt");
+        writer.write(7, true);
+        writer.abort();
+
+        assertThat(Files.list(dir)).isEmpty();
+    }
+
+    @Test
+    void failedPublicationDropsResults() throws Exception {
+        ResultWriter writer = new LocalResultSink(dir) {
+            @Override
+            protected void published(String source, Path results, Path summary) throws IOException {
+                throw new IOException("upload failed");
+            }
+        }.open("default", "numbers.txt");
+        writer.write(7, true);
+
+        assertThatThrownBy(() -> writer.commit(new FileSummary("numbers.txt", 1, 1, 1)))
+                .isInstanceOf(IOException.class);
+        assertThat(Files.list(dir)).isEmpty();
+    }
+
+    @Test
+    void writeNamedSourceIntoSubdirectory() throws Exception {
+        LocalResultSink sink = new LocalResultSink(dir);
+        ResultWriter main = sink.open("default", "numbers.txt");
+        ResultWriter partner = sink.open("partner", "numbers.txt");
+        main.write(7, true);
+        partner.write(8, false);
+        main.commit(new FileSummary("numbers.txt", 1, 1, 1));
+        partner.commit(new FileSummary("numbers.txt", 1, 0, 1));
+
+        assertThat(Files.readAllLines(dir.resolve("numbers.txt.results"))).containsExactly("7 1");
+        assertThat(Files.readAllLines(dir.resolve("partner").resolve("numbers.txt.results"))).containsExactly("8 0");
+    }
+}
@@ -0,0 +1,118 @@
+package springboot.integration.sftp.synchronizers;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.sshd.sftp.client.SftpClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.integration.file.remote.RemoteFileTemplate;
+import org.springframework.integration.file.remote.SessionCallback;
+import org.springframework.integration.file.remote.session.Session;
+import springboot.integration.sftp.metrics.PipelineMetrics;
+
+import java.io.IOException;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RemoteArchiverTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-10-18T10:00:00Z"), ZoneOffset.UTC);
+
+    private Session<SftpClient.DirEntry> session;
+
+    private RemoteFileTemplate<SftpClient.DirEntry> template;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        session = mock(Session.class);
+        template = mock(RemoteFileTemplate.class);
+        when(template.execute(any())).thenAnswer(invocation ->
+                invocation.getArgument(0, SessionCallback.class).doInSession(session));
+    }
+
+    @Test
+    void moveIntoDatePartition() throws IOException {
+        when(session.exists("archive")).thenReturn(true);
+        RemoteArchiver archiver = archiver(RemoteArchiver.Action.MOVE, DateTimeFormatter.ofPattern("yyyy/MM/dd"));
+
+        List<String> archived = archiver.archive(List.of("numbers1.txt", "2026-10-17/numbers2.txt"));
+        archiver.archive(List.of("numbers3.txt"));
+
+        assertThat(archived).containsExactly("numbers1.txt", "2026-10-17/numbers2.txt");
+        verify(session, never()).mkdir("archive");
+        verify(session).mkdir("archive/2026");
+        verify(session).mkdir("archive/2026/10");
+        verify(session).mkdir("archive/2026/10/18");
+        verify(session).rename("upload/numbers1.txt", "archive/2026/10/18/numbers1.txt");
+        verify(session).rename("upload/2026-10-17/numbers2.txt", "archive/2026/10/18/2026-10-17_numbers2.txt");
+        verify(session).rename("upload/numbers3.txt", "archive/2026/10/18/numbers3.txt");
+        //one session for each batch, the directories are created once
+        verify(template, times(2)).execute(any());
+        verify(session, times(4)).exists(any());
+        assertThat(registry.get("sftp.remote.archived").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void keepArchivedFile() throws IOException {
+        when(session.exists("archive")).thenReturn(true);
+        when(session.exists("upload/numbers1.txt")).thenReturn(true);
+        when(session.exists("archive/numbers1.txt")).thenReturn(true);
+        doThrow(new IOException("Failure")).when(session).rename("upload/numbers1.txt", "archive/numbers1.txt");
+        SftpClient client = mock(SftpClient.class);
+        when(session.getClientInstance()).thenReturn(client);
+        SftpClient.Attributes attributes = new SftpClient.Attributes();
+        attributes.setModifyTime(FileTime.fromMillis(1_000_000));
+        when(client.stat("upload/numbers1.txt")).thenReturn(attributes);
+
+        List<String> archived = archiver(RemoteArchiver.Action.MOVE, null).archive(List.of("numbers1.txt"));
+
+        assertThat(archived).containsExactly("numbers1.txt");
+        verify(session, never()).remove(any());
+        verify(session).rename("upload/numbers1.txt", "archive/numbers1.1000000.txt");
+    }
+
+    @Test
+    void skipFileAlreadyGone() throws IOException {
+        when(session.exists("archive")).thenReturn(true);
+        when(session.exists("archive/numbers1.txt")).thenReturn(true);
+        doThrow(new IOException("No such file")).when(session).rename("upload/numbers1.txt", "archive/numbers1.txt");
+
+        List<String> archived = archiver(RemoteArchiver.Action.MOVE, null).archive(List.of("numbers1.txt"));
+
+        assertThat(archived).isEmpty();
+        verify(session, times(1)).rename(any(), any());
+    }
+
+    @Test
+    void deleteAndSkipFailures() throws IOException {
+        when(session.remove("upload/numbers2.txt")).thenThrow(new IOException("Permission denied"));
+
+        List<String> archived = archiver(RemoteArchiver.Action.DELETE, null)
+                .archive(List.of("numbers1.txt", "numbers2.txt", "numbers3.txt"));
+
+        assertThat(archived).containsExactly("numbers1.txt", "numbers3.txt");
+        verify(session).remove("upload/numbers1.txt");
+        verify(session).remove("upload/numbers3.txt");
+        verify(session, never()).rename(any(), any());
+    }
+
+    private RemoteArchiver archiver(RemoteArchiver.Action action, DateTimeFormatter partitionFormat) {
+        return new RemoteArchiver(template, "upload", action, "archive", partitionFormat,
+                new PipelineMetrics(registry), CLOCK);
+    }
+}
@@ -0,0 +1,340 @@
+package springboot.integration.sftp.synchronizers;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.sshd.sftp.client.SftpClient;
+import org.apache.sshd.sftp.common.SftpConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.integration.file.filters.AcceptOnceFileListFilter;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.integration.metadata.SimpleMetadataStore;
+import org.springframework.messaging.MessagingException;
+import springboot.integration.sftp.filters.RemoteAcceptOnceFileListFilter;
+import springboot.integration.sftp.metadata.ContentDigestIndex;
+import springboot.integration.sftp.metrics.PipelineMetrics;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StagingFileSynchronizerTest {
+
+    @TempDir
+    Path localDir;
+
+    private final AcceptOnceFileListFilter<SftpClient.DirEntry> filter = new AcceptOnceFileListFilter<>();
+
+    private StagingFileSynchronizer synchronizer;
+
+    private SftpClient.DirEntry[] entries;
+
+    private Session<SftpClient.DirEntry> session;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() throws IOException {
+        entries = new SftpClient.DirEntry[]{entry("numbers1.txt"), entry("numbers2.txt"),
+                entry("bad.txt"), entry("numbers3.txt")};
+        session = mock(Session.class);
+        when(session.list("upload")).thenReturn(entries);
+        doAnswer(invocation -> {
+            String path = invocation.getArgument(0);
+            if (path.endsWith("bad.txt")) {
+                throw new IOException("Connection lost");
+            }
+            invocation.getArgument(1, OutputStream.class).write(path.getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(session).read(anyString(), any(OutputStream.class));
+        SessionFactory<SftpClient.DirEntry> sessionFactory = mock(SessionFactory.class);
+        when(sessionFactory.getSession()).thenReturn(session);
+
+        synchronizer = new StagingFileSynchronizer(sessionFactory, new PipelineMetrics(new SimpleMeterRegistry()));
+        synchronizer.setRemoteDirectory("upload");
+        synchronizer.setFilter(filter);
+        synchronizer.setPreserveTimestamp(true);
+    }
+
+    @Test
+    void downloadConcurrently() throws IOException {
+        synchronizer.setDownloadExecutor(new SimpleAsyncTaskExecutor());
+
+        assertThatThrownBy(() -> synchronizer.synchronizeToLocalDirectory(localDir.toFile(), 10))
+                .isInstanceOf(MessagingException.class)
+                .hasRootCauseMessage("Connection lost");
+
+        assertThat(localDir.resolve("numbers1.txt")).hasContent("upload/numbers1.txt");
+        assertThat(localDir.resolve("numbers3.txt")).exists();
+        assertThat(Files.getLastModifiedTime(localDir.resolve("numbers3.txt")).toMillis()).isEqualTo(1_000_000);
+        assertThat(localDir.resolve("bad.txt")).doesNotExist();
+        assertThat(localDir.resolve("bad.txt.writing")).doesNotExist();
+        //only the failed file is accepted again
+        assertThat(filter.accept(entries[2])).isTrue();
+        assertThat(filter.accept(entries[3])).isFalse();
+    }
+
+    @Test
+    void downloadSequentially() {
+        assertThatThrownBy(() -> synchronizer.synchronizeToLocalDirectory(localDir.toFile(), 10))
+                .isInstanceOf(MessagingException.class);
+
+        assertThat(localDir.resolve("numbers2.txt")).exists();
+        assertThat(localDir.resolve("numbers3.txt")).doesNotExist();
+        //the failed file and the following ones are accepted again
+        assertThat(filter.accept(entries[2])).isTrue();
+        assertThat(filter.accept(entries[3])).isTrue();
+    }
+
+    @Test
+    void digestWhileDownloading() throws IOException {
+        synchronizer.setContentDigest(true);
+
+        synchronizer.synchronizeToLocalDirectory(localDir.toFile(), 2);
+
+        assertThat(synchronizer.contentDigest("numbers1.txt"))
+                .isEqualTo(ContentDigestIndex.digest(localDir.resolve("numbers1.txt")));
+        //forgotten once the local file is gone
+        Files.delete(localDir.resolve("numbers1.txt"));
+        synchronizer.synchronizeToLocalDirectory(localDir.toFile(), 0);
+        assertThat(synchronizer.contentDigest("numbers1.txt")).isNull();
+        assertThat(synchronizer.contentDigest("numbers2.txt")).isNotNull();
+    }
+
+    @Test
+    void limitFetchSize() {
+        synchronizer.synchronizeToLocalDirectory(localDir.toFile(), 2);
+
+        assertThat(localDir.resolve("numbers1.txt")).exists();
+        assertThat(localDir.resolve("numbers2.txt")).exists();
+        assertThat(filter.accept(entries[2])).isTrue();
+    }
+
+    @Test
+    void downloadSegments() throws IOException {
+        byte[] content = new byte[1000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        SftpClient.DirEntry big = entry("big.txt");
+        big.getAttributes().setSize(content.length);
+        when(session.list("upload")).thenReturn(new SftpClient.DirEntry[]{big});
+        SftpClient client = mock(SftpClient.class);
+        when(session.getClientInstance()).thenReturn(client);
+        when(client.open(anyString(), any(SftpClient.OpenMode[].class)))
+                .thenAnswer(invocation -> mock(SftpClient.CloseableHandle.class));
+        when(client.read(any(SftpClient.Handle.class), anyLong(), any(byte[].class), anyInt(), anyInt()))
+                .thenAnswer(invocation -> {
+                    int offset = (int) (long) invocation.getArgument(1, Long.class);
+                    int length = Math.min(invocation.getArgument(4, Integer.class), content.length - offset);
+                    System.arraycopy(content, offset, invocation.getArgument(2), invocation.getArgument(3), length);
+                    return length;
+                });
+        synchronizer.setSegmentedDownload(new SimpleAsyncTaskExecutor(), 3, 100);
+        synchronizer.setContentDigest(true);
+
+        synchronizer.synchronizeToLocalDirectory(localDir.toFile(), 10);
+
+        assertThat(Files.readAllBytes(localDir.resolve("big.txt"))).isEqualTo(content);
+        verify(session, never()).read(anyString(), any(OutputStream.class));
+        //digest of the range digests, labelled with the range size
+        MessageDigest expected = ContentDigestIndex.newDigest();
+        for (int offset = 0; offset < content.length; offset += 334) {
+            MessageDigest range = ContentDigestIndex.newDigest();
+            range.update(content, offset, Math.min(334, content.length - offset));
+            expected.update(range.digest());
+        }
+        assertThat(synchronizer.contentDigest("big.txt"))
+                .isEqualTo("334x" + HexFormat.of().formatHex(expected.digest()));
+    }
+
+    @Test
+    void failSegmentReturningNoData() throws IOException {
+        SftpClient.DirEntry big = entry("big.txt");
+        big.getAttributes().setSize(1000);
+        when(session.list("upload")).thenReturn(new SftpClient.DirEntry[]{big});
+        SftpClient client = mock(SftpClient.class);
+        when(session.getClientInstance()).thenReturn(client);
+        when(client.open(anyString(), any(SftpClient.OpenMode[].class)))
+                .thenAnswer(invocation -> mock(SftpClient.CloseableHandle.class));
+        //the last range never returns any data
+        when(client.read(any(SftpClient.Handle.class), anyLong(), any(byte[].class), anyInt(), anyInt()))
+                .thenAnswer(invocation -> invocation.getArgument(1, Long.class) < 668
+                        ? invocation.getArgument(4, Integer.class) : 0);
+        synchronizer.setSegmentedDownload(new SimpleAsyncTaskExecutor(), 3, 100);
+
+        assertThatThrownBy(() -> synchronizer.synchronizeToLocalDirectory(localDir.toFile(), 10))
+                .isInstanceOf(MessagingException.class)
+                .hasRootCauseMessage("Remote file upload/big.txt returned no data at 668");
+
+        assertThat(localDir.resolve("big.txt")).doesNotExist();
+        assertThat(localDir.resolve("big.txt.writing")).doesNotExist();
+    }
+
+    @Test
+    void resumePartialDownload() throws IOException {
+        byte[] content = "0123456789".getBytes(StandardCharsets.UTF_8);
+        SftpClient.DirEntry big = entry("big.txt");
+        big.getAttributes().setSize(content.length);
+        when(session.list("upload")).thenReturn(new SftpClient.DirEntry[]{big});
+        doAnswer(invocation -> {
+            invocation.getArgument(1, OutputStream.class).write(content, 0, 4);
+            throw new IOException("Connection lost");
+        }).when(session).read(anyString(), any(OutputStream.class));
+        SftpClient client = mock(SftpClient.class);
+        when(session.getClientInstance()).thenReturn(client);
+        when(client.read("upload/big.txt")).thenReturn(new ByteArrayInputStream(content));
+        synchronizer.setResumable(true);
+        synchronizer.setContentDigest(true);
+
+        assertThatThrownBy(() -> synchronizer.synchronizeToLocalDirectory(localDir.toFile(), 10))
+                .isInstanceOf(MessagingException.class);
+        assertThat(localDir.resolve("big.txt.writing")).hasContent("0123");
+
+        //the next poll continues from the partial file
+        synchronizer.synchronizeToLocalDirectory(localDir.toFile(), 10);
+
+        assertThat(localDir.resolve("big.txt")).hasContent("0123456789");
+        assertThat(synchronizer.contentDigest("big.txt"))
+                .isEqualTo(ContentDigestIndex.digest(localDir.resolve("big.txt")));
+        assertThat(localDir.resolve("big.txt.writing")).doesNotExist();
+        assertThat(localDir.resolve("big.txt.resume.writing")).doesNotExist();
+    }
+
+    @Test
+    void restartChangedPartialDownload() throws IOException {
+        SftpClient.DirEntry changed = entry("numbers1.txt", 2_000_000);
+        changed.getAttributes().setSize(19);
+        when(session.list("upload")).thenReturn(new SftpClient.DirEntry[]{changed});
+        Files.writeString(localDir.resolve("numbers1.txt.writing"), "stale");
+        Files.writeString(localDir.resolve("numbers1.txt.resume.writing"), "19\t1000000");
+        synchronizer.setResumable(true);
+
+        synchronizer.synchronizeToLocalDirectory(localDir.toFile(), 10);
+
+        assertThat(localDir.resolve("numbers1.txt")).hasContent("upload/numbers1.txt");
+        verify(session, never()).getClientInstance();
+    }
+
+    @Test
+    void skipFilesBelowWatermark() throws IOException {
+        SimpleMetadataStore store = new SimpleMetadataStore();
+        ListingWatermark watermark = new ListingWatermark(store, "watermark:upload", 1000);
+        synchronizer.setWatermark(watermark);
+        SftpClient.DirEntry[] listed = {entry("c.txt", 3000), entry("a.txt", 1000), entry("b.txt", 2000)};
+        when(session.list("upload")).thenReturn(listed);
+
+        synchronizer.synchronizeToLocalDirectory(localDir.toFile(), 10);
+        assertThat(store.get("watermark:upload")).isNull();
+
+        //files seen by the filter and settled behind the newest file move the watermark
+        synchronizer.synchronizeToLocalDirectory(localDir.toFile(), 10);
+        assertThat(store.get("watermark:upload")).isEqualTo("2000\tb.txt");
+        assertThat(new ListingWatermark(store, "watermark:upload", 1000).isAbove(2000, "b.txt")).isFalse();
+        assertThat(watermark.isAbove(3000, "c.txt")).isTrue();
+    }
+
+    @Test
+    void pruneFilterKeysBelowWatermark() throws IOException {
+        SimpleMetadataStore store = new SimpleMetadataStore();
+        RemoteAcceptOnceFileListFilter acceptOnceFilter = new RemoteAcceptOnceFileListFilter(store, "upload:");
+        synchronizer.setFilter(acceptOnceFilter);
+        synchronizer.setWatermark(new ListingWatermark(store, "watermark:upload", 1000), acceptOnceFilter);
+        SftpClient.DirEntry[] listed = {entry("c.txt", 3000), entry("a.txt", 1000), entry("b.txt", 2000)};
+        when(session.list("upload")).thenReturn(listed);
+
+        synchronizer.synchronizeToLocalDirectory(localDir.toFile(), 10);
+        assertThat(store.get("upload:a.txt")).isNotNull();
+
+        synchronizer.synchronizeToLocalDirectory(localDir.toFile(), 10);
+        assertThat(store.get("watermark:upload")).isEqualTo("2000\tb.txt");
+        //the files below the watermark are no longer evaluated, their keys are dropped
+        assertThat(store.get("upload:a.txt")).isNull();
+        assertThat(store.get("upload:b.txt")).isNull();
+        assertThat(store.get("upload:c.txt")).isNotNull();
+    }
+
+    @Test
+    void keepWatermarkBehindFilesInFlight() throws IOException {
+        SimpleMetadataStore store = new SimpleMetadataStore();
+        RemoteAcceptOnceFileListFilter acceptOnceFilter = new RemoteAcceptOnceFileListFilter(store, "upload:");
+        synchronizer.setFilter(acceptOnceFilter);
+        synchronizer.setWatermark(new ListingWatermark(store, "watermark:upload", 1000), acceptOnceFilter);
+        synchronizer.setTrackInFlight(true);
+        SftpClient.DirEntry[] listed = {entry("c.txt", 3000), entry("a.txt", 1000), entry("b.txt", 2000)};
+        when(session.list("upload")).thenReturn(listed);
+
+        synchronizer.synchronizeToLocalDirectory(localDir.toFile(), 10);
+        //processed and deleted, but not settled yet
+        Files.delete(localDir.resolve("a.txt"));
+        Files.delete(localDir.resolve("b.txt"));
+        synchronizer.synchronizeToLocalDirectory(localDir.toFile(), 10);
+        assertThat(store.get("watermark:upload")).isNull();
+        assertThat(store.get("upload:a.txt")).isNotNull();
+
+        //a settled file is passed, the watermark stops at a file still staged
+        synchronizer.settle("a.txt");
+        synchronizer.settle("b.txt");
+        synchronizer.settle("c.txt");
+        Files.writeString(localDir.resolve("b.txt"), "staged");
+        synchronizer.synchronizeToLocalDirectory(localDir.toFile(), 10);
+        assertThat(store.get("watermark:upload")).isEqualTo("1000\ta.txt");
+        assertThat(store.get("upload:a.txt")).isNull();
+        assertThat(store.get("upload:b.txt")).isNotNull();
+    }
+
+    @Test
+    void listDatePartitions() throws IOException {
+        String today = LocalDate.now(ZoneOffset.UTC).format(DateTimeFormatter.ISO_LOCAL_DATE);
+        when(session.exists("upload/" + today)).thenReturn(true);
+        when(session.list("upload/" + today)).thenReturn(new SftpClient.DirEntry[]{entry("numbers1.txt")});
+        synchronizer.setPartitions(DateTimeFormatter.ISO_LOCAL_DATE, 2);
+        synchronizer.setRecordRemoteNames(true);
+
+        synchronizer.synchronizeToLocalDirectory(localDir.toFile(), 10);
+
+        assertThat(localDir.resolve(today + "_numbers1.txt")).hasContent("upload/" + today + "/numbers1.txt");
+        verify(session, never()).list("upload");
+        //remote name kept until the local file is gone
+        assertThat(synchronizer.remoteFileName(today + "_numbers1.txt")).isEqualTo(today + "/numbers1.txt");
+        assertThat(synchronizer.remoteFileName(today + "_numbers1.txt")).isEqualTo(today + "/numbers1.txt");
+        assertThat(synchronizer.remoteFileName("numbers2.txt")).isEqualTo("numbers2.txt");
+        Files.delete(localDir.resolve(today + "_numbers1.txt"));
+        synchronizer.synchronizeToLocalDirectory(localDir.toFile(), 0);
+        assertThat(synchronizer.remoteFileName(today + "_numbers1.txt")).isEqualTo(today + "_numbers1.txt");
+    }
+
+    private static SftpClient.DirEntry entry(String name) {
+        return entry(name, 1_000_000);
+    }
+
+    private static SftpClient.DirEntry entry(String name, long modified) {
+        SftpClient.Attributes attributes = new SftpClient.Attributes();
+        attributes.setType(SftpConstants.SSH_FILEXFER_TYPE_REGULAR);
+        attributes.setPermissions(SftpConstants.S_IFREG | 0644);
+        attributes.setModifyTime(FileTime.fromMillis(modified));
+        return new SftpClient.DirEntry(name, name, attributes);
+    }
+}
@@ -28,6 +28,7 @@ public class EmbeddedSftpServer {
     public static final String PATHNAME = System.getProperty("java.io.tmpdir") +
             File.separator + "sftp_test" + File.separator;
     public static final String PRIV_KEY = "ssh_host_ed25519_key";
+    public static final String KNOWN_HOSTS = "docker/sftp1/known_hosts";
     private final SshServer server = SshServer.setUpDefaultServer();
 
     private volatile int port;
@@ -40,6 +41,27 @@ public class EmbeddedSftpServer {
         this.port = port;
     }
 
+    /**
+     * Listening port, a free port is picked on start when set to 0.
+     */
+    public int getPort() {
+        return running ? server.getPort() : port;
+    }
+
+    /**
+     * Writes the known hosts entries of the test key for the port this server listens on.
+     *
+     * @param dir directory of the known hosts file
+     * @return known hosts file
+     */
+    public Path writeKnownHosts(Path dir) throws IOException {
+        Path knownHosts = dir.resolve("known_hosts");
+        try (Stream<String> lines = Files.lines(Paths.get(KNOWN_HOSTS))) {
+            Files.write(knownHosts, lines.map(line -> line.replace("]:2222 ", "]:" + getPort() + " ")).toList());
+        }
+        return knownHosts;
+    }
+
     public void setUploadDir(String uploadDir) {
         this.uploadDir = uploadDir;
     }
@@ -0,0 +1,41 @@
+package springboot.integration.sftp.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileOutcomeStoreTest {
+
+    @Test
+    void keepOnlyRecentWindow() {
+        FileOutcomeStore store = new FileOutcomeStore(2);
+        store.record(outcome("numbers1.txt", true));
+        store.record(outcome("numbers2.txt", false));
+        store.record(outcome("numbers3.txt", true));
+
+        assertThat(store.get("numbers1.txt")).isNull();
+        assertThat(store.get("numbers2.txt").success()).isFalse();
+        assertThat(store.recent()).extracting(FileOutcome::file).containsExactly("numbers3.txt", "numbers2.txt");
+        assertThat(store.getSuccessCount()).isEqualTo(2);
+        assertThat(store.getErrorCount()).isEqualTo(1);
+    }
+
+    @Test
+    void latestOutcomeWins() {
+        FileOutcomeStore store = new FileOutcomeStore(2);
+        store.record(outcome("numbers1.txt", false));
+        store.record(outcome("numbers2.txt", true));
+        FileOutcome previous = store.record(outcome("numbers1.txt", true));
+        store.record(outcome("numbers3.txt", true));
+
+        assertThat(previous.success()).isFalse();
+        assertThat(store.get("numbers1.txt").success()).isTrue();
+        assertThat(store.get("numbers2.txt")).isNull();
+    }
+
+    private static FileOutcome outcome(String file, boolean success) {
+        return new FileOutcome(file, success, 1, 10, Instant.now());
+    }
+}
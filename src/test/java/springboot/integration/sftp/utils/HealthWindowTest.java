@@ -0,0 +1,71 @@
+package springboot.integration.sftp.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HealthWindowTest {
+
+    private final AtomicLong now = new AtomicLong(10_000);
+
+    @Test
+    void slideOutOldOutcomes() {
+        HealthWindow window = new HealthWindow(10_000, 10, 3, now::get);
+        window.success();
+        window.error("error");
+        now.addAndGet(5_000);
+        window.success();
+
+        HealthWindow.Snapshot snapshot = window.snapshot();
+        assertThat(snapshot.successes()).isEqualTo(2);
+        assertThat(snapshot.errors()).isEqualTo(1);
+        //window not filled yet, rated over the uptime
+        assertThat(snapshot.filesPerSecond()).isEqualTo(0.4);
+
+        now.addAndGet(6_000);
+        snapshot = window.snapshot();
+        assertThat(snapshot.successes()).isEqualTo(1);
+        assertThat(snapshot.errors()).isZero();
+        assertThat(snapshot.errorPercent()).isZero();
+        assertThat(window.getLastSuccess()).isEqualTo(15_000);
+    }
+
+    @Test
+    void keepLastErrors() {
+        HealthWindow window = new HealthWindow(10_000, 10, 3, now::get);
+        assertThat(window.getRecentErrors()).isEmpty();
+        for (int i = 1; i <= 5; i++) {
+            window.error("error " + i);
+        }
+        assertThat(window.getRecentErrors()).containsExactly("error 5", "error 4", "error 3");
+    }
+
+    @Test
+    void countConcurrentOutcomes() throws InterruptedException {
+        HealthWindow window = new HealthWindow(10_000, 10, 3, now::get);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 1000; i++) {
+            int file = i;
+            executor.execute(() -> {
+                if (file % 10 == 0) {
+                    window.error("error " + file);
+                } else {
+                    window.success();
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        HealthWindow.Snapshot snapshot = window.snapshot();
+        assertThat(snapshot.successes()).isEqualTo(900);
+        assertThat(snapshot.errors()).isEqualTo(100);
+        assertThat(snapshot.errorPercent()).isEqualTo(10.0);
+        assertThat(window.getRecentErrors()).hasSize(3);
+    }
+}
@@ -21,7 +21,13 @@ public class SftpClientUtils {
     public static void createTestFile(RemoteFileTemplate<SftpClient.DirEntry> template,
                                       String fileName,
                                       String content) throws IOException {
-        try (ByteArrayInputStream stream = new ByteArrayInputStream(content.getBytes())) {
+        createTestFile(template, fileName, content.getBytes());
+    }
+
+    public static void createTestFile(RemoteFileTemplate<SftpClient.DirEntry> template,
+                                      String fileName,
+                                      byte[] content) throws IOException {
+        try (ByteArrayInputStream stream = new ByteArrayInputStream(content)) {
             template.execute((SessionCallback<SftpClient.DirEntry, Void>) session -> {
                 stream.reset();
                 session.write(stream, fileName);
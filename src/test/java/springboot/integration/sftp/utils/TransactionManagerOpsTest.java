@@ -0,0 +1,36 @@
+package springboot.integration.sftp.utils;
+
+import org.junit.jupiter.api.Test;
+import springboot.integration.sftp.ApplicationProperties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TransactionManagerOpsTest {
+
+    @Test
+    void dropOldestFilesInFlight() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.setSftpOutcomeWindow(2);
+        TransactionManagerOps managerOps = new TransactionManagerOps(applicationProperties);
+
+        managerOps.begin("numbers1.txt");
+        managerOps.begin("numbers2.txt");
+        managerOps.begin("numbers3.txt");
+        managerOps.lines("numbers1.txt", 7);
+        managerOps.lines("numbers2.txt", 5);
+
+        assertThat(managerOps.getInFlight()).isEqualTo(2);
+        managerOps.success("numbers1.txt");
+        managerOps.success("numbers2.txt");
+        //the oldest file was never completed, its state was dropped
+        assertThat(managerOps.getOutcomes().get("numbers1.txt").lines()).isZero();
+        assertThat(managerOps.getOutcomes().get("numbers2.txt").lines()).isEqualTo(5);
+        assertThat(managerOps.getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void keyNamedSourcesOnly() {
+        assertThat(TransactionManagerOps.key("default", "numbers1.txt")).isEqualTo("numbers1.txt");
+        assertThat(TransactionManagerOps.key("partner", "numbers1.txt")).isEqualTo("partner:numbers1.txt");
+    }
+}